@@ -10,8 +10,10 @@ import me.daoge.allayplots.listener.PlotMovementListener;
 import me.daoge.allayplots.listener.PlotProtectionListener;
 import me.daoge.allayplots.plot.PlotService;
 import me.daoge.allayplots.storage.H2PlotStorage;
+import me.daoge.allayplots.storage.PerWorldPlotStorage;
 import me.daoge.allayplots.storage.PlotStorage;
 import me.daoge.allayplots.storage.SqlitePlotStorage;
+import me.daoge.allayplots.storage.WalPlotStorage;
 import me.daoge.allayplots.storage.YamlPlotStorage;
 import org.allaymc.api.plugin.Plugin;
 import org.allaymc.api.registry.Registries;
@@ -21,9 +23,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public final class AllayPlotsPlugin extends Plugin {
     private PluginConfig config;
+    private PlotStorage storage;
     private PlotService plotService;
 
     @Override
@@ -41,7 +46,8 @@ public final class AllayPlotsPlugin extends Plugin {
         }
 
         config = PluginConfig.load(dataFolder, this.pluginLogger);
-        plotService = new PlotService(config, createStorage(dataFolder), this.pluginLogger);
+        storage = createStorage(dataFolder);
+        plotService = new PlotService(config, storage, this.pluginLogger);
         plotService.start();
         plotService.load();
 
@@ -53,11 +59,16 @@ public final class AllayPlotsPlugin extends Plugin {
         eventBus.registerListener(new PlotMovementListener(plotService, config, messageService));
         eventBus.registerListener(new PlotDamageListener(plotService));
 
-        Registries.COMMANDS.register(new PlotCommand(plotService, config, messageService, this.pluginLogger));
+        Registries.COMMANDS.register(new PlotCommand(
+                plotService,
+                config,
+                messageService,
+                task -> Server.getInstance().getScheduler().runLater(this, task),
+                this.pluginLogger
+        ));
 
-        if (config.settings().autoSaveIntervalTicks() > 0) {
-            Server.getInstance().getScheduler().scheduleRepeating(this, plotService::requestSave, config.settings().autoSaveIntervalTicks());
-        }
+        Server.getInstance().getScheduler().scheduleRepeating(this, plotService::tickWorldEdits, 1);
+        Server.getInstance().getScheduler().scheduleRepeating(this, plotService::tickAutoSave, 1);
 
         this.pluginLogger.info("AllayPlots enabled for {} plot worlds.", plotService.worldCount());
     }
@@ -65,12 +76,53 @@ public final class AllayPlotsPlugin extends Plugin {
     @Override
     public void onDisable() {
         if (plotService != null) {
-            plotService.save();
+            // Flushes every world before it returns.
             plotService.shutdown();
         }
+        if (storage != null) {
+            storage.close();
+        }
     }
 
     private PlotStorage createStorage(Path dataFolder) {
+        Path worldsFolder = dataFolder.resolve("worlds");
+        return new PerWorldPlotStorage(
+                worldsFolder,
+                config.worlds().keySet(),
+                this::createWorldStorage,
+                needsLegacyImport(dataFolder, worldsFolder) ? createWorldStorage(dataFolder) : null,
+                this.pluginLogger,
+                config.storage().maxParallelSaves()
+        );
+    }
+
+    /**
+     * Whether plots saved by older versions, which kept all worlds in one storage in the data folder, still have to
+     * be moved into per-world folders.
+     */
+    private boolean needsLegacyImport(Path dataFolder, Path worldsFolder) {
+        boolean legacyData = Stream.of("plots.yml", "plots.db", "plots.mv.db", "wal")
+                .anyMatch(name -> Files.exists(dataFolder.resolve(name)));
+        return legacyData && config.worlds().keySet().stream()
+                .anyMatch(worldName -> !Files.isDirectory(worldsFolder.resolve(worldName)));
+    }
+
+    private PlotStorage createWorldStorage(Path folder) {
+        PlotStorage backend = createBackend(folder);
+        PluginConfig.WriteAheadLogSettings wal = config.writeAheadLog();
+        if (!wal.enabled()) {
+            return backend;
+        }
+        return new WalPlotStorage(
+                backend,
+                folder,
+                this.pluginLogger,
+                TimeUnit.SECONDS.toMillis(wal.checkpointIntervalSeconds()),
+                wal.checkpointSizeKb() * 1024L
+        );
+    }
+
+    private PlotStorage createBackend(Path dataFolder) {
         String rawType = config.storage().type();
         String type = rawType == null ? "" : rawType.trim().toLowerCase(Locale.ROOT);
         return switch (type) {
@@ -23,27 +23,48 @@ import org.slf4j.Logger;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.UnaryOperator;
 
 public final class PlotCommand extends Command {
     private final PlotService plotService;
     private final PluginConfig config;
     private final MessageService messages;
+    private final Executor syncExecutor;
+    private final Logger logger;
 
     private final EconomyAPI economyApi = EconomyAPI.getAPI();
     private final boolean economyEnabled;
     private final Currency currency;
 
-    public PlotCommand(PlotService plotService, PluginConfig config, MessageService messages, Logger logger) {
+    /**
+     * @param syncExecutor runs completion callbacks of plot mutations; expected to hop back onto the server thread
+     */
+    public PlotCommand(
+            PlotService plotService,
+            PluginConfig config,
+            MessageService messages,
+            Executor syncExecutor,
+            Logger logger
+    ) {
         super("plot", LangKeys.COMMAND_PLOT_DESCRIPTION, Permissions.COMMAND_PLOT);
         this.plotService = plotService;
         this.config = config;
         this.messages = messages;
+        this.syncExecutor = syncExecutor;
+        this.logger = logger;
 
         this.economyEnabled = config.economy().enabled();
-        this.currency = economyEnabled ? resolveCurrency(logger) : economyApi.getDefaultCurrency();
+        this.currency = economyEnabled ? resolveCurrency() : economyApi.getDefaultCurrency();
 
         aliases.addAll(List.of("plots", "p"));
         OpPermissionCalculator.NON_OP_PERMISSIONS.addAll(this.permissions);
@@ -113,34 +134,35 @@ public final class PlotCommand extends Command {
             return context.fail();
         }
 
-        PlotId nextId = plotService.findNextFreePlotId(world);
-        if (nextId == null) {
-            player.sendMessage(messages.render(player, LangKeys.MESSAGE_NO_FREE_PLOT));
-            return context.fail();
-        }
-        return doClaim(context, player, new PlotContext(world, nextId));
+        return doClaim(context, player, world, maxPlots -> plotService.claimNextFreePlotAsync(
+                world,
+                player.getUniqueId(),
+                resolveOwnerName(player),
+                maxPlots
+        ));
     }
 
     private CommandResult handleDelete(CommandContext context, EntityPlayer player) {
         return withPlotContext(context, player, pc -> {
             Plot plot = pc.plot();
             boolean bypass = player.hasPermission(Permissions.ADMIN_DELETE).asBoolean();
-            PlotService.OwnerActionResult result = plotService.deletePlot(
+            var future = plotService.deletePlotAsync(
                     pc.world(),
                     pc.plotId(),
                     player.getUniqueId(),
                     bypass
             );
-            if (!handleOwnerResult(player, result)) return context.fail();
+            return whenDone(context, player, future, result -> {
+                if (!handleOwnerResult(player, result)) return;
 
-            PlotWorldConfig wc = pc.world().getConfig();
-            if (plot != null && shouldRefundOnDelete(player, wc)) {
-                UUID receiver = plot.getOwner() != null ? plot.getOwner() : player.getUniqueId();
-                deposit(receiver, BigDecimal.valueOf(wc.sellRefund()));
-            }
+                PlotWorldConfig wc = pc.world().getConfig();
+                if (plot != null && shouldRefundOnDelete(player, wc)) {
+                    UUID receiver = plot.getOwner() != null ? plot.getOwner() : player.getUniqueId();
+                    deposit(receiver, BigDecimal.valueOf(wc.sellRefund()));
+                }
 
-            player.sendMessage(messages.render(player, LangKeys.MESSAGE_DELETE_SUCCESS));
-            return context.success();
+                player.sendMessage(messages.render(player, LangKeys.MESSAGE_DELETE_SUCCESS));
+            });
         });
     }
 
@@ -150,43 +172,35 @@ public final class PlotCommand extends Command {
             PlotId targetId = pc.world().getAdjacentPlotId(pc.plotId(), dir);
 
             boolean bypass = hasAdminBypass(player);
-            PlotService.MergeResult result = plotService.mergePlots(
+            var future = plotService.mergePlotsAsync(
                     pc.world(),
                     pc.plotId(),
                     dir,
                     player.getUniqueId(),
                     bypass
             );
-            return switch (result) {
-                case SUCCESS -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_SUCCESS, targetId.x(), targetId.z()));
-                    yield context.success();
-                }
-                case UNCLAIMED -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_PLOT_UNCLAIMED));
-                    yield context.fail();
+            return whenDone(context, player, future, result -> {
+                switch (result) {
+                    case SUCCESS -> player.sendMessage(messages.render(
+                            player,
+                            LangKeys.MESSAGE_MERGE_SUCCESS,
+                            targetId.x(),
+                            targetId.z()
+                    ));
+                    case UNCLAIMED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_PLOT_UNCLAIMED));
+                    case NOT_OWNER -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_NOT_OWNER));
+                    case TARGET_UNCLAIMED -> player.sendMessage(messages.render(
+                            player,
+                            LangKeys.MESSAGE_MERGE_TARGET_UNCLAIMED
+                    ));
+                    case NOT_SAME_OWNER -> player.sendMessage(messages.render(
+                            player,
+                            LangKeys.MESSAGE_MERGE_NOT_SAME_OWNER
+                    ));
+                    case ALREADY_MERGED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_ALREADY));
+                    case FAILED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_FAILED));
                 }
-                case NOT_OWNER -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_NOT_OWNER));
-                    yield context.fail();
-                }
-                case TARGET_UNCLAIMED -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_TARGET_UNCLAIMED));
-                    yield context.fail();
-                }
-                case NOT_SAME_OWNER -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_NOT_SAME_OWNER));
-                    yield context.fail();
-                }
-                case ALREADY_MERGED -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_ALREADY));
-                    yield context.fail();
-                }
-                case FAILED -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_MERGE_FAILED));
-                    yield context.fail();
-                }
-            };
+            });
         });
     }
 
@@ -194,33 +208,32 @@ public final class PlotCommand extends Command {
         return withPlotContext(context, player, pc -> {
             PlotMergeDirection dir = resolveMergeDirection(context, player);
             boolean bypass = hasAdminBypass(player);
-            PlotService.UnmergeResult result = plotService.unmergePlots(
+            var future = plotService.unmergePlotsAsync(
                     pc.world(),
                     pc.plotId(),
                     dir,
                     player.getUniqueId(),
                     bypass
             );
-            switch (result) {
-                case SUCCESS -> {
-                }
-                case NOT_MERGED, FAILED -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_UNMERGE_NOT_MERGED));
-                    return context.fail();
+            return whenDone(context, player, future, result -> {
+                switch (result) {
+                    case SUCCESS -> {
+                        PlotId targetId = pc.world().getAdjacentPlotId(pc.plotId(), dir);
+                        player.sendMessage(messages.render(
+                                player,
+                                LangKeys.MESSAGE_UNMERGE_SUCCESS,
+                                targetId.x(),
+                                targetId.z()
+                        ));
+                    }
+                    case NOT_MERGED, FAILED -> player.sendMessage(messages.render(
+                            player,
+                            LangKeys.MESSAGE_UNMERGE_NOT_MERGED
+                    ));
+                    case UNCLAIMED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_PLOT_UNCLAIMED));
+                    case NOT_OWNER -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_NOT_OWNER));
                 }
-                case UNCLAIMED -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_PLOT_UNCLAIMED));
-                    return context.fail();
-                }
-                case NOT_OWNER -> {
-                    player.sendMessage(messages.render(player, LangKeys.MESSAGE_NOT_OWNER));
-                    return context.fail();
-                }
-            }
-
-            PlotId targetId = pc.world().getAdjacentPlotId(pc.plotId(), dir);
-            player.sendMessage(messages.render(player, LangKeys.MESSAGE_UNMERGE_SUCCESS, targetId.x(), targetId.z()));
-            return context.success();
+            });
         });
     }
 
@@ -258,20 +271,21 @@ public final class PlotCommand extends Command {
 
     private CommandResult handleList(CommandContext context, EntityPlayer player) {
         UUID ownerId = player.getUniqueId();
+        Set<PlotService.PlotLocation> owned = plotService.getOwnedPlots(ownerId);
         boolean found = false;
 
         for (String worldName : config.worlds().keySet()) {
             PlotWorld world = plotService.getPlotWorld(worldName);
             if (world == null) continue;
 
-            for (Plot plot : world.getPlots().values()) {
-                if (!plot.isOwner(ownerId)) continue;
+            for (PlotService.PlotLocation location : owned) {
+                if (location.world() != world) continue;
 
                 player.sendMessage(messages.renderInline(
                         player,
                         LangKeys.COMMAND_PLOT_INFO_HEADER,
-                        plot.getId().x(),
-                        plot.getId().z(),
+                        location.id().x(),
+                        location.id().z(),
                         world.getConfig().worldName()
                 ));
                 found = true;
@@ -354,17 +368,18 @@ public final class PlotCommand extends Command {
 
     private CommandResult handleSetHome(CommandContext context, EntityPlayer player) {
         return withPlotContext(context, player, pc -> {
-            PlotService.OwnerActionResult result = plotService.setHomePlot(player.getUniqueId(), pc.world(), pc.plotId());
-            if (!handleOwnerResult(player, result)) return context.fail();
+            var future = plotService.setHomePlotAsync(player.getUniqueId(), pc.world(), pc.plotId());
+            return whenDone(context, player, future, result -> {
+                if (!handleOwnerResult(player, result)) return;
 
-            player.sendMessage(messages.render(
-                    player,
-                    LangKeys.MESSAGE_HOME_SET,
-                    pc.plotId().x(),
-                    pc.plotId().z(),
-                    pc.world().getConfig().worldName()
-            ));
-            return context.success();
+                player.sendMessage(messages.render(
+                        player,
+                        LangKeys.MESSAGE_HOME_SET,
+                        pc.plotId().x(),
+                        pc.plotId().z(),
+                        pc.world().getConfig().worldName()
+                ));
+            });
         });
     }
 
@@ -374,7 +389,7 @@ public final class PlotCommand extends Command {
             if (target == null) return context.fail();
 
             boolean bypass = hasAdminBypass(player);
-            PlotService.OwnerActionResult result = plotService.setPlotOwner(
+            var future = plotService.setPlotOwnerAsync(
                     pc.world(),
                     pc.plotId(),
                     player.getUniqueId(),
@@ -382,17 +397,18 @@ public final class PlotCommand extends Command {
                     target.getUniqueId(),
                     resolveOwnerName(target)
             );
-            if (!handleOwnerResult(player, result)) return context.fail();
+            return whenDone(context, player, future, result -> {
+                if (!handleOwnerResult(player, result)) return;
 
-            player.sendMessage(messages.render(
-                    player,
-                    LangKeys.MESSAGE_OWNER_SET,
-                    target.getDisplayName(),
-                    pc.plotId().x(),
-                    pc.plotId().z(),
-                    pc.world().getConfig().worldName()
-            ));
-            return context.success();
+                player.sendMessage(messages.render(
+                        player,
+                        LangKeys.MESSAGE_OWNER_SET,
+                        target.getDisplayName(),
+                        pc.plotId().x(),
+                        pc.plotId().z(),
+                        pc.world().getConfig().worldName()
+                ));
+            });
         });
     }
 
@@ -482,7 +498,7 @@ public final class PlotCommand extends Command {
     private CommandResult handleFlagSet(CommandContext context, EntityPlayer player, PlotFlag flag, String rawValue) {
         return withPlotContext(context, player, pc -> {
             if (PlotFlagValue.isReset(rawValue)) {
-                PlotService.OwnerActionResult result = plotService.updateMergeGroupOwned(
+                var result = plotService.updatePlotSettings(
                         pc.world(),
                         pc.plotId(),
                         player.getUniqueId(),
@@ -505,7 +521,7 @@ public final class PlotCommand extends Command {
                 return context.fail();
             }
 
-            PlotService.OwnerActionResult result = plotService.updateMergeGroupOwned(
+            var result = plotService.updatePlotSettings(
                     pc.world(),
                     pc.plotId(),
                     player.getUniqueId(),
@@ -613,7 +629,22 @@ public final class PlotCommand extends Command {
     }
 
     private CommandResult doClaim(CommandContext context, EntityPlayer player, PlotContext pc) {
-        PlotWorldConfig wc = pc.world().getConfig();
+        return doClaim(context, player, pc.world(), maxPlots -> plotService.claimPlotAsync(
+                pc.world(),
+                pc.plotId(),
+                player.getUniqueId(),
+                resolveOwnerName(player),
+                maxPlots
+        ).thenApply(result -> new PlotService.ClaimOutcome(result, pc.plotId())));
+    }
+
+    private CommandResult doClaim(
+            CommandContext context,
+            EntityPlayer player,
+            PlotWorld world,
+            IntFunction<CompletableFuture<PlotService.ClaimOutcome>> claim
+    ) {
+        PlotWorldConfig wc = world.getConfig();
         int maxPlots = wc.maxPlotsPerPlayer();
 
         BigDecimal price = BigDecimal.valueOf(wc.claimPrice());
@@ -625,47 +656,61 @@ public final class PlotCommand extends Command {
             }
             charged = true;
         }
-
-        PlotService.ClaimResult result = plotService.claimPlot(
-                pc.world(),
-                pc.plotId(),
-                player.getUniqueId(),
-                resolveOwnerName(player),
-                maxPlots
-        );
-        if (result != PlotService.ClaimResult.SUCCESS) {
+        CompletableFuture<PlotService.ClaimOutcome> claiming;
+        try {
+            claiming = claim.apply(maxPlots);
+        } catch (RuntimeException ex) {
+            // Never submitted, so the claim cannot happen.
             if (charged) {
                 deposit(player.getUniqueId(), price);
             }
-            switch (result) {
-                case ALREADY_CLAIMED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_ALREADY_CLAIMED));
-                case TOO_MANY -> player.sendMessage(messages.render(
-                        player,
-                        LangKeys.MESSAGE_TOO_MANY_PLOTS,
-                        String.valueOf(maxPlots)
-                ));
-                case FAILED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_CLAIM_FAILED));
-            }
-            return context.fail();
+            throw ex;
         }
-
-        Plot claimed = pc.world().getPlot(pc.plotId());
-        if (claimed == null) {
-            player.sendMessage(messages.render(player, LangKeys.MESSAGE_CLAIM_FAILED));
-            return context.fail();
+        if (charged) {
+            // Settled on the claim itself rather than on the reply below, which gives up after the caller timeout:
+            // a claim the player stopped waiting for may still go through. The claim only fails with a
+            // RejectedExecutionException if it never ran.
+            claiming.whenCompleteAsync((outcome, error) -> {
+                if (error != null || outcome.result() != PlotService.ClaimResult.SUCCESS) {
+                    deposit(player.getUniqueId(), price);
+                }
+            }, syncExecutor);
         }
 
-        new PlotClaimEvent(player, pc.world(), claimed).call();
+        return whenDone(context, player, plotService.withCallerTimeout(claiming), outcome -> {
+            PlotService.ClaimResult result = outcome.result();
+            if (result != PlotService.ClaimResult.SUCCESS) {
+                switch (result) {
+                    case ALREADY_CLAIMED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_ALREADY_CLAIMED));
+                    case TOO_MANY -> player.sendMessage(messages.render(
+                            player,
+                            LangKeys.MESSAGE_TOO_MANY_PLOTS,
+                            String.valueOf(maxPlots)
+                    ));
+                    case NO_FREE_PLOT -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_NO_FREE_PLOT));
+                    case FAILED -> player.sendMessage(messages.render(player, LangKeys.MESSAGE_CLAIM_FAILED));
+                }
+                return;
+            }
 
-        if (wc.teleportOnClaim()) {
-            teleportToPlot(player, pc.world(), pc.plotId());
-        }
+            PlotId plotId = outcome.id();
+            Plot claimed = world.getPlot(plotId);
+            if (claimed == null) {
+                player.sendMessage(messages.render(player, LangKeys.MESSAGE_CLAIM_FAILED));
+                return;
+            }
 
-        player.sendMessage(messages.render(player, LangKeys.MESSAGE_CLAIM_SUCCESS));
-        return context.success();
+            new PlotClaimEvent(player, world, claimed).call();
+
+            if (wc.teleportOnClaim()) {
+                teleportToPlot(player, world, plotId);
+            }
+
+            player.sendMessage(messages.render(player, LangKeys.MESSAGE_CLAIM_SUCCESS));
+        });
     }
 
-    private Currency resolveCurrency(Logger logger) {
+    private Currency resolveCurrency() {
         String name = config.economy().currency();
         if (name.isBlank()) return economyApi.getDefaultCurrency();
 
@@ -771,7 +816,7 @@ public final class PlotCommand extends Command {
             UnaryOperator<Plot> updater,
             String messageKey
     ) {
-        PlotService.OwnerActionResult result = plotService.updateMergeGroupOwned(
+        var result = plotService.updatePlotSettings(
                 target.world(),
                 target.plotId(),
                 player.getUniqueId(),
@@ -784,6 +829,55 @@ public final class PlotCommand extends Command {
         return context.success();
     }
 
+    /**
+     * Hands the result of a plot mutation to {@code callback} on the server thread once the world's worker is done.
+     * The command returns before that, so its result only says whether the mutation was submitted: a future that
+     * already failed, e.g. because the plot queue is full, is reported right away and fails the command; anything
+     * that goes wrong later can only reach the player as a message, through {@link #reportFailure}.
+     */
+    private <T> CommandResult whenDone(
+            CommandContext context,
+            EntityPlayer player,
+            CompletableFuture<T> future,
+            Consumer<T> callback
+    ) {
+        if (future.isCompletedExceptionally()) {
+            future.exceptionally(error -> {
+                reportFailure(player, error);
+                return null;
+            });
+            return context.fail();
+        }
+        future.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                callback.accept(result);
+            } else {
+                reportFailure(player, error);
+            }
+        }, syncExecutor);
+        return context.success();
+    }
+
+    /**
+     * Tells the player why a plot mutation failed: a full plot queue is reported as busy, a task that did not
+     * finish within the caller timeout as timed out, anything else is logged as an error.
+     */
+    private void reportFailure(EntityPlayer player, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof RejectedExecutionException) {
+            player.sendMessage(messages.render(player, LangKeys.MESSAGE_BUSY));
+        } else if (cause instanceof TimeoutException) {
+            player.sendMessage(messages.render(player, LangKeys.MESSAGE_TIMED_OUT));
+        } else {
+            logger.error("Plot command failed for {}.", player.getDisplayName(), cause);
+            player.sendMessage(messages.render(player, LangKeys.MESSAGE_ACTION_FAILED));
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     private boolean hasAdminBypass(EntityPlayer player) {
         return player.hasPermission(Permissions.ADMIN_BYPASS).asBoolean();
     }
@@ -26,6 +26,24 @@ public final class PluginConfig extends OkaeriConfig {
     @Comment("Plot storage backend settings.")
     private StorageSettings storage = new StorageSettings();
 
+    @Comment("Write-ahead log that makes plot changes durable between saves of the storage backend.")
+    @CustomKey("write-ahead-log")
+    private WriteAheadLogSettings writeAheadLog = new WriteAheadLogSettings();
+
+    @Comment("When pending plot changes are saved.")
+    @CustomKey("auto-save")
+    private AutoSaveSettings autoSave = new AutoSaveSettings();
+
+    @Comment("Limits of the per-world plot task queues.")
+    private QueueSettings queue = new QueueSettings();
+
+    @Comment("Detection of plot tasks that hang.")
+    private WatchdogSettings watchdog = new WatchdogSettings();
+
+    @Comment("Block edits applied to plot worlds (road rebuilds, ...).")
+    @CustomKey("world-edit")
+    private WorldEditSettings worldEdit = new WorldEditSettings();
+
     @Comment("Plot world definitions keyed by world name.")
     private Map<String, PlotWorldConfig> worlds = defaultWorlds();
 
@@ -82,7 +100,7 @@ public final class PluginConfig extends OkaeriConfig {
         @CustomKey("protect-roads")
         private boolean protectRoads = true;
 
-        @Comment("Auto-save interval in ticks (0 to disable).")
+        @Comment("Longest an unsaved change waits for auto-save, in ticks (0 to disable).")
         @CustomKey("auto-save-interval-ticks")
         private int autoSaveIntervalTicks = 6000;
 
@@ -91,10 +109,121 @@ public final class PluginConfig extends OkaeriConfig {
         private boolean useActionBar = true;
     }
 
+    @Getter
+    @Accessors(fluent = true)
+    public static class AutoSaveSettings extends OkaeriConfig {
+        @Comment("Save early once this many plots have unsaved changes (0 to disable).")
+        @CustomKey("dirty-plot-threshold")
+        private int dirtyPlotThreshold = 256;
+
+        @Comment("Save early once this many changes are unsaved, e.g. one plot edited over and over (0 to disable).")
+        @CustomKey("journal-threshold")
+        private int journalThreshold = 2048;
+
+        @Comment("Early saves happen at most once per this many ticks.")
+        @CustomKey("min-interval-ticks")
+        private int minIntervalTicks = 100;
+
+        @Comment("Fewer unsaved changes than this count as idle and wait for a stretched interval.")
+        @CustomKey("idle-changes")
+        private int idleChanges = 16;
+
+        @Comment("How many times the normal interval idle changes may wait.")
+        @CustomKey("idle-interval-multiplier")
+        private int idleIntervalMultiplier = 4;
+
+        @Comment("Hold saves back after a tick slower than this, in milliseconds (0 to disable).")
+        @CustomKey("spike-tick-millis")
+        private long spikeTickMillis = 100;
+
+        @Comment("How many ticks saves are held back after a slow tick.")
+        @CustomKey("spike-cooldown-ticks")
+        private int spikeCooldownTicks = 40;
+
+        @Comment("Longest a due save is held back by slow ticks.")
+        @CustomKey("max-deferral-ticks")
+        private int maxDeferralTicks = 1200;
+
+        @Comment("Log what triggered each save at info level instead of debug.")
+        @CustomKey("log-triggers")
+        private boolean logTriggers = false;
+    }
+
+    @Getter
+    @Accessors(fluent = true)
+    public static class QueueSettings extends OkaeriConfig {
+        @Comment("Max queued player commands (claim, merge, trust, ...) per world.")
+        @CustomKey("interactive-capacity")
+        private int interactiveCapacity = 256;
+
+        @Comment("Max queued background cleanups per world; follow-ups of accepted commands are never dropped.")
+        @CustomKey("maintenance-capacity")
+        private int maintenanceCapacity = 64;
+
+        @Comment("How long a caller waits for room in a full queue before being rejected (0 rejects immediately).")
+        @CustomKey("full-queue-wait-millis")
+        private long fullQueueWaitMillis = 0;
+
+        @Comment("Max tasks a world worker takes off its queue in one go.")
+        @CustomKey("batch-size")
+        private int batchSize = 64;
+    }
+
+    @Getter
+    @Accessors(fluent = true)
+    public static class WatchdogSettings extends OkaeriConfig {
+        @Comment("Log a plot task with the worker's stack once it runs longer than this (0 to disable).")
+        @CustomKey("slow-task-millis")
+        private long slowTaskMillis = 5000;
+
+        @Comment("Record where each plot task was submitted from, shown in slow task reports. Costs some CPU.")
+        @CustomKey("trace-task-origins")
+        private boolean traceTaskOrigins = false;
+
+        @Comment("How long a caller waits for a plot task before giving up (0 waits forever).")
+        @CustomKey("caller-timeout-millis")
+        private long callerTimeoutMillis = 10000;
+    }
+
+    @Getter
+    @Accessors(fluent = true)
+    public static class WorldEditSettings extends OkaeriConfig {
+        @Comment("Max world edits waiting to be applied per world.")
+        @CustomKey("max-queued-jobs")
+        private int maxQueuedJobs = 64;
+
+        @Comment("Max blocks placed per server tick across all worlds.")
+        @CustomKey("blocks-per-tick")
+        private int blocksPerTick = 4096;
+    }
+
     @Getter
     @Accessors(fluent = true)
     public static class StorageSettings extends OkaeriConfig {
         @Comment("Storage type: yaml, sqlite, or h2.")
         private String type = "yaml";
+
+        @Comment("Most worlds written to their storage at the same time; each world is kept in worlds/<name>/.")
+        @CustomKey("max-parallel-saves")
+        private int maxParallelSaves = 4;
+    }
+
+    @Getter
+    @Accessors(fluent = true)
+    public static class WriteAheadLogSettings extends OkaeriConfig {
+        @Comment("Log every plot change to disk shortly after it happens, whatever the storage type.")
+        private boolean enabled = true;
+
+        @Comment("Longest an unsaved change waits to be logged, in ticks; replaces auto-save-interval-ticks while enabled.")
+        @CustomKey("flush-interval-ticks")
+        private int flushIntervalTicks = 20;
+
+        @Comment("How often logged changes are written through to the storage backend (0 only by size).")
+        @CustomKey("checkpoint-interval-seconds")
+        private int checkpointIntervalSeconds = 300;
+
+        @Comment("Log size in kilobytes that triggers an early write-through to the storage backend.")
+        @CustomKey("checkpoint-size-kb")
+        private int checkpointSizeKb = 4096;
     }
 }
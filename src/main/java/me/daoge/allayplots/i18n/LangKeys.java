@@ -43,6 +43,9 @@ public final class LangKeys {
     public static final String MESSAGE_FLAG_RESET = "allayplots:message.flag_reset";
     public static final String MESSAGE_FLAG_INVALID_VALUE = "allayplots:message.flag_invalid_value";
     public static final String MESSAGE_NO_FREE_PLOT = "allayplots:message.no_free_plot";
+    public static final String MESSAGE_ACTION_FAILED = "allayplots:message.action_failed";
+    public static final String MESSAGE_BUSY = "allayplots:message.busy";
+    public static final String MESSAGE_TIMED_OUT = "allayplots:message.timed_out";
 
     public static final String COMMAND_PLOT_DESCRIPTION = "allayplots:command.plot.description";
     public static final String COMMAND_PLOT_HELP = "allayplots:command.plot.help";
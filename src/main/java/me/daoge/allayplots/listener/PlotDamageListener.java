@@ -4,6 +4,8 @@ import me.daoge.allayplots.Permissions;
 import me.daoge.allayplots.plot.Plot;
 import me.daoge.allayplots.plot.PlotFlag;
 import me.daoge.allayplots.plot.PlotService;
+import me.daoge.allayplots.plot.PlotWorld;
+import me.daoge.allayplots.plot.PlotWorldSnapshot;
 import org.allaymc.api.entity.Entity;
 import org.allaymc.api.entity.interfaces.EntityPlayer;
 import org.allaymc.api.entity.interfaces.EntityProjectile;
@@ -23,11 +25,17 @@ public final class PlotDamageListener {
             return;
         }
         Entity target = event.getEntity();
-        var location = plotService.resolvePlot(target.getLocation());
-        if (location == null) {
+        var location = target.getLocation();
+        PlotWorld world = plotService.getPlotWorld(location.dimension());
+        if (world == null) {
             return;
         }
-        Plot plot = location.plot();
+        PlotWorldSnapshot snapshot = world.snapshot();
+        long key = snapshot.getPlotKeyAt((int) Math.floor(location.x()), (int) Math.floor(location.z()));
+        if (key == PlotWorld.ROAD) {
+            return;
+        }
+        Plot plot = snapshot.getPlot(key);
         if (plot == null || !plot.isClaimed()) {
             return;
         }
@@ -10,12 +10,11 @@ import me.daoge.allayplots.plot.Plot;
 import me.daoge.allayplots.plot.PlotId;
 import me.daoge.allayplots.plot.PlotService;
 import me.daoge.allayplots.plot.PlotWorld;
+import me.daoge.allayplots.plot.PlotWorldSnapshot;
 import org.allaymc.api.entity.interfaces.EntityPlayer;
 import org.allaymc.api.eventbus.EventHandler;
 import org.allaymc.api.eventbus.event.player.PlayerMoveEvent;
 
-import java.util.Objects;
-
 public final class PlotMovementListener {
     private final PlotService plotService;
     private final PluginConfig config;
@@ -36,39 +35,60 @@ public final class PlotMovementListener {
             return;
         }
 
-        if (from.dimension() == to.dimension()
-                && (int) Math.floor(from.x()) == (int) Math.floor(to.x())
-                && (int) Math.floor(from.z()) == (int) Math.floor(to.z())) {
+        int fromX = (int) Math.floor(from.x());
+        int fromZ = (int) Math.floor(from.z());
+        int toX = (int) Math.floor(to.x());
+        int toZ = (int) Math.floor(to.z());
+        boolean sameDimension = from.dimension() == to.dimension();
+        if (sameDimension && fromX == toX && fromZ == toZ) {
             return;
         }
 
-        PlotService.PlotLocation fromPlot = plotService.resolvePlot(from);
-        PlotService.PlotLocation toPlot = plotService.resolvePlot(to);
-        PlotKey fromKey = PlotKey.from(fromPlot);
-        PlotKey toKey = PlotKey.from(toPlot);
+        PlotWorld fromWorld = plotService.getPlotWorld(from.dimension());
+        PlotWorld toWorld = sameDimension ? fromWorld : plotService.getPlotWorld(to.dimension());
+        // One snapshot per world keeps the keys, merge roots and plots below consistent with each other.
+        PlotWorldSnapshot fromSnapshot = fromWorld != null ? fromWorld.snapshot() : null;
+        PlotWorldSnapshot toSnapshot = sameDimension ? fromSnapshot : toWorld != null ? toWorld.snapshot() : null;
+        long fromKey = fromSnapshot != null ? fromSnapshot.getPlotKeyAt(fromX, fromZ) : PlotWorld.ROAD;
+        long toKey = toSnapshot != null ? toSnapshot.getPlotKeyAt(toX, toZ) : PlotWorld.ROAD;
+        if (fromKey == PlotWorld.ROAD) {
+            fromWorld = null;
+        }
+        if (toKey == PlotWorld.ROAD) {
+            toWorld = null;
+        }
+
+        // Most moves stay inside one cell (or on the road), so compare packed keys before touching merge groups.
+        if (fromWorld == toWorld && fromKey == toKey) {
+            return;
+        }
 
-        if (Objects.equals(fromKey, toKey)) {
+        PlotId fromId = fromWorld != null ? PlotId.fromKey(fromKey) : null;
+        PlotId toId = toWorld != null ? PlotId.fromKey(toKey) : null;
+        if (fromWorld != null && fromWorld == toWorld
+                && fromSnapshot.getMergeRoot(fromId).equals(toSnapshot.getMergeRoot(toId))) {
             return;
         }
 
-        if (toPlot != null && !canEnter(player, toPlot.plot()) && !player.hasPermission(Permissions.ADMIN_BYPASS).asBoolean()) {
+        Plot toPlot = toWorld != null ? toSnapshot.getPlot(toKey) : null;
+        if (toWorld != null && !canEnter(player, toPlot) && !player.hasPermission(Permissions.ADMIN_BYPASS).asBoolean()) {
             event.setCancelled(true);
             sendMessage(player, messages.render(player, LangKeys.MESSAGE_ENTER_DENIED));
             return;
         }
 
-        if (fromPlot != null) {
-            new PlotLeaveEvent(player, fromPlot.world(), fromPlot.id(), fromPlot.plot()).call();
-            sendMessage(player, renderLeaveMessage(player, fromPlot.id()));
+        if (fromWorld != null) {
+            new PlotLeaveEvent(player, fromWorld, fromId, fromSnapshot.getPlot(fromKey)).call();
+            sendMessage(player, renderLeaveMessage(player, fromId));
         }
 
-        if (toPlot != null) {
-            PlotEnterEvent enterEvent = new PlotEnterEvent(player, toPlot.world(), toPlot.id(), toPlot.plot());
+        if (toWorld != null) {
+            PlotEnterEvent enterEvent = new PlotEnterEvent(player, toWorld, toId, toPlot);
             if (!enterEvent.call()) {
                 event.setCancelled(true);
                 return;
             }
-            sendMessage(player, renderEnterMessage(player, toPlot.world(), toPlot.id(), toPlot.plot()));
+            sendMessage(player, renderEnterMessage(player, toWorld, toId, toPlot));
         }
     }
 
@@ -105,14 +125,4 @@ public final class PlotMovementListener {
         }
         player.sendMessage(message);
     }
-
-    private record PlotKey(String worldName, PlotId plotId) {
-        static PlotKey from(PlotService.PlotLocation location) {
-            if (location == null) {
-                return null;
-            }
-            PlotId root = location.world().getMergeRoot(location.id());
-            return new PlotKey(location.world().getConfig().worldName(), root);
-        }
-    }
 }
@@ -6,6 +6,8 @@ import me.daoge.allayplots.i18n.LangKeys;
 import me.daoge.allayplots.i18n.MessageService;
 import me.daoge.allayplots.plot.Plot;
 import me.daoge.allayplots.plot.PlotService;
+import me.daoge.allayplots.plot.PlotWorld;
+import me.daoge.allayplots.plot.PlotWorldSnapshot;
 import org.allaymc.api.block.dto.Block;
 import org.allaymc.api.entity.interfaces.EntityPlayer;
 import org.allaymc.api.eventbus.EventHandler;
@@ -90,21 +92,23 @@ public final class PlotProtectionListener {
     }
 
     private boolean shouldCancel(EntityPlayer player, Dimension dimension, int x, int z) {
-        if (player.hasPermission(Permissions.ADMIN_BYPASS).asBoolean()) {
+        PlotWorld world = plotService.getPlotWorld(dimension);
+        if (world == null) {
             return false;
         }
-        if (plotService.getPlotWorld(dimension) == null) {
+        if (player.hasPermission(Permissions.ADMIN_BYPASS).asBoolean()) {
             return false;
         }
-        PlotService.PlotLocation location = plotService.resolvePlot(dimension, x, z);
-        if (location == null) {
+        PlotWorldSnapshot snapshot = world.snapshot();
+        long key = snapshot.getPlotKeyAt(x, z);
+        if (key == PlotWorld.ROAD) {
             if (config.settings().protectRoads()) {
                 player.sendMessage(messages.render(player, LangKeys.MESSAGE_BUILD_DENIED));
                 return true;
             }
             return false;
         }
-        Plot plot = location.plot();
+        Plot plot = snapshot.getPlot(key);
         if (plot == null || !plot.canBuild(player.getUniqueId())) {
             player.sendMessage(messages.render(player, LangKeys.MESSAGE_BUILD_DENIED));
             return true;
@@ -0,0 +1,192 @@
+package me.daoge.allayplots.plot;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie from packed cell keys (see {@link PlotId#pack(int, int)}) to values.
+ * <p>
+ * Updates copy only the path from the root to the changed entry and share every other node with the previous
+ * version, so publishing a handful of changes costs a few small arrays regardless of the world's size. Keys are
+ * spread with a bijective mix, so two distinct keys always part ways within the 64 hash bits and no collision
+ * buckets are needed.
+ */
+final class CellTrie<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH_MASK = (1 << BITS) - 1;
+
+    private static final CellTrie<?> EMPTY = new CellTrie<>(null, 0);
+
+    private record Leaf(long key, long hash, Object value) {
+    }
+
+    // children holds Leaf and Node entries in bit order.
+    private record Node(int bitmap, Object[] children) {
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private CellTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> CellTrie<V> empty() {
+        return (CellTrie<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long hash = mix(key);
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            int bit = 1 << (int) ((hash >>> shift) & WIDTH_MASK);
+            if ((node.bitmap() & bit) == 0) {
+                return null;
+            }
+            Object child = node.children()[node.index(bit)];
+            if (child instanceof Leaf leaf) {
+                return leaf.key() == key ? (V) leaf.value() : null;
+            }
+            node = (Node) child;
+            shift += BITS;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a trie mapping the key to the value, or this trie if it already does.
+     */
+    CellTrie<V> with(long key, V value) {
+        if (value == null) {
+            return without(key);
+        }
+        boolean added = get(key) == null;
+        Leaf leaf = new Leaf(key, mix(key), value);
+        Node updated = root == null
+                ? new Node(bit(leaf.hash(), 0), new Object[]{leaf})
+                : put(root, 0, leaf);
+        return updated == root ? this : new CellTrie<>(updated, added ? size + 1 : size);
+    }
+
+    /**
+     * Returns a trie without the key, or this trie if it is absent.
+     */
+    CellTrie<V> without(long key) {
+        if (root == null || get(key) == null) {
+            return this;
+        }
+        Object updated = remove(root, 0, mix(key), key);
+        if (updated instanceof Leaf leaf) {
+            updated = new Node(bit(leaf.hash(), 0), new Object[]{leaf});
+        }
+        return new CellTrie<>((Node) updated, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<Long, ? super V> action) {
+        if (root != null) {
+            forEach(root, (BiConsumer<Long, Object>) action);
+        }
+    }
+
+    private static void forEach(Node node, BiConsumer<Long, Object> action) {
+        for (Object child : node.children()) {
+            if (child instanceof Leaf leaf) {
+                action.accept(leaf.key(), leaf.value());
+            } else {
+                forEach((Node) child, action);
+            }
+        }
+    }
+
+    private static Node put(Node node, int shift, Leaf leaf) {
+        int bit = bit(leaf.hash(), shift);
+        int index = node.index(bit);
+        Object[] children = node.children();
+        if ((node.bitmap() & bit) == 0) {
+            Object[] grown = new Object[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = leaf;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            return new Node(node.bitmap() | bit, grown);
+        }
+
+        Object child = children[index];
+        Object replacement;
+        if (child instanceof Leaf existing) {
+            if (existing.key() == leaf.key()) {
+                if (existing.value() == leaf.value()) return node;
+                replacement = leaf;
+            } else {
+                replacement = split(shift + BITS, existing, leaf);
+            }
+        } else {
+            Node updated = put((Node) child, shift + BITS, leaf);
+            if (updated == child) return node;
+            replacement = updated;
+        }
+        Object[] copy = Arrays.copyOf(children, children.length);
+        copy[index] = replacement;
+        return new Node(node.bitmap(), copy);
+    }
+
+    private static Node split(int shift, Leaf first, Leaf second) {
+        int firstBit = bit(first.hash(), shift);
+        int secondBit = bit(second.hash(), shift);
+        if (firstBit == secondBit) {
+            return new Node(firstBit, new Object[]{split(shift + BITS, first, second)});
+        }
+        Object[] children = Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Object[]{first, second}
+                : new Object[]{second, first};
+        return new Node(firstBit | secondBit, children);
+    }
+
+    /**
+     * Removes a key known to be present. Returns the new node, a lone leaf the parent should pull up, or null once
+     * the node is empty.
+     */
+    private static Object remove(Node node, int shift, long hash, long key) {
+        int bit = bit(hash, shift);
+        int index = node.index(bit);
+        Object[] children = node.children();
+        Object child = children[index];
+
+        Object replacement = child instanceof Leaf ? null : remove((Node) child, shift + BITS, hash, key);
+        if (replacement == null) {
+            if (children.length == 1) return null;
+            if (children.length == 2 && children[1 - index] instanceof Leaf survivor) return survivor;
+            Object[] shrunk = new Object[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            return new Node(node.bitmap() & ~bit, shrunk);
+        }
+        if (replacement instanceof Leaf && children.length == 1) {
+            return replacement;
+        }
+        Object[] copy = Arrays.copyOf(children, children.length);
+        copy[index] = replacement;
+        return new Node(node.bitmap(), copy);
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << (int) ((hash >>> shift) & WIDTH_MASK);
+    }
+
+    // Multiplying by an odd constant and xor-shifting are both invertible, so distinct keys get distinct hashes.
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
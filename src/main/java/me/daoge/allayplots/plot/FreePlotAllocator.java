@@ -0,0 +1,76 @@
+package me.daoge.allayplots.plot;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Hands out the free cell closest to the origin, in the same ring-by-ring spiral order /plot auto always used:
+ * ascending ring (Chebyshev distance), then x, then z.
+ * <p>
+ * Rings below {@code frontier} have been scanned once and their free cells sit in an ordered set; claims and
+ * releases inside that area only touch the set, so a densely claimed core is never walked again.
+ */
+final class FreePlotAllocator {
+    private static final Comparator<Long> SPIRAL_ORDER = Comparator
+            .comparingInt((Long key) -> ring(key))
+            .thenComparingInt(PlotId::unpackX)
+            .thenComparingInt(PlotId::unpackZ);
+
+    private final LongPredicate isFree;
+    private final int maxRadius;
+    private final TreeSet<Long> freeCells = new TreeSet<>(SPIRAL_ORDER);
+    private int frontier;
+
+    FreePlotAllocator(LongPredicate isFree, int maxRadius) {
+        this.isFree = isFree;
+        this.maxRadius = maxRadius;
+    }
+
+    /**
+     * Returns the packed key of the nearest free cell, or {@link PlotWorld#ROAD} if none is left within the radius.
+     */
+    synchronized long next() {
+        while (freeCells.isEmpty()) {
+            if (frontier > maxRadius) {
+                return PlotWorld.ROAD;
+            }
+            scanRing(frontier++);
+        }
+        return freeCells.first();
+    }
+
+    synchronized void claimed(long key) {
+        if (ring(key) < frontier) {
+            freeCells.remove(key);
+        }
+    }
+
+    synchronized void released(long key) {
+        if (ring(key) < frontier) {
+            freeCells.add(key);
+        }
+    }
+
+    synchronized void reset() {
+        freeCells.clear();
+        frontier = 0;
+    }
+
+    private void scanRing(int radius) {
+        for (int x = -radius; x <= radius; x++) {
+            boolean edgeColumn = x == radius || x == -radius;
+            int step = edgeColumn || radius == 0 ? 1 : 2 * radius;
+            for (int z = -radius; z <= radius; z += step) {
+                long key = PlotId.pack(x, z);
+                if (isFree.test(key)) {
+                    freeCells.add(key);
+                }
+            }
+        }
+    }
+
+    private static int ring(long key) {
+        return Math.max(Math.abs(PlotId.unpackX(key)), Math.abs(PlotId.unpackZ(key)));
+    }
+}
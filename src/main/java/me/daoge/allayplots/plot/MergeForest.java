@@ -0,0 +1,266 @@
+package me.daoge.allayplots.plot;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Union-find over the packed keys of merged cells, so a merge joins two groups without walking either of them.
+ * <p>
+ * Every component also threads its members on a circular list and tracks its extent in cells and its root cell
+ * (smallest x, then smallest z), which is all a {@link PlotMergeGroup} is built from. A union-find cannot take edges
+ * back, so after an unmerge the world {@link #remove(long) removes} the whole affected component and links its
+ * pieces again.
+ * <p>
+ * Nodes live in parallel primitive arrays, found through an open-addressing index keyed by cell. Writer thread only.
+ */
+final class MergeForest {
+    private static final int MIN_CAPACITY = 16;
+    // Index slot markers; any other value is the node plus one.
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    private long[] slotKeys;
+    private int[] slotNodes;
+    // Slots holding a node or a deletion marker.
+    private int usedSlots;
+
+    private long[] keys;
+    // Parent of each node; -1 for a free node, whose next then links the free list.
+    private int[] parent;
+    private int[] next;
+    // Only meaningful on roots.
+    private int[] size;
+    private int[] minX;
+    private int[] maxX;
+    private int[] minZ;
+    private int[] maxZ;
+    private long[] first;
+    private int nodeCount;
+    private int liveNodes;
+    private int freeNodes;
+
+    MergeForest() {
+        clear();
+    }
+
+    void clear() {
+        slotKeys = new long[MIN_CAPACITY];
+        slotNodes = new int[MIN_CAPACITY];
+        usedSlots = 0;
+        keys = new long[MIN_CAPACITY];
+        parent = new int[MIN_CAPACITY];
+        next = new int[MIN_CAPACITY];
+        size = new int[MIN_CAPACITY];
+        minX = new int[MIN_CAPACITY];
+        maxX = new int[MIN_CAPACITY];
+        minZ = new int[MIN_CAPACITY];
+        maxZ = new int[MIN_CAPACITY];
+        first = new long[MIN_CAPACITY];
+        nodeCount = 0;
+        liveNodes = 0;
+        freeNodes = -1;
+    }
+
+    boolean contains(long key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Returns the root node of the key's component, or -1 if the key is in none.
+     */
+    int find(long key) {
+        int slot = slotOf(key);
+        return slot < 0 ? -1 : root(slotNodes[slot] - 1);
+    }
+
+    /**
+     * Joins the components of both keys; a key in none starts out as a component of its own.
+     *
+     * @return the root node of the joined component, or -1 if both keys were in one already
+     */
+    int union(long a, long b) {
+        int nodeA = nodeOf(a);
+        int nodeB = nodeOf(b);
+        int rootA = root(nodeA);
+        int rootB = root(nodeB);
+        if (rootA == rootB) return -1;
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+        // Swapping the successors of two nodes on separate circles splices them into one.
+        int successor = next[rootA];
+        next[rootA] = next[rootB];
+        next[rootB] = successor;
+        minX[rootA] = Math.min(minX[rootA], minX[rootB]);
+        maxX[rootA] = Math.max(maxX[rootA], maxX[rootB]);
+        minZ[rootA] = Math.min(minZ[rootA], minZ[rootB]);
+        maxZ[rootA] = Math.max(maxZ[rootA], maxZ[rootB]);
+        if (precedes(first[rootB], first[rootA])) {
+            first[rootA] = first[rootB];
+        }
+        return rootA;
+    }
+
+    /**
+     * Drops a key without repairing its component, so the caller must drop the rest of the component before
+     * linking any of it again.
+     */
+    void remove(long key) {
+        int slot = slotOf(key);
+        if (slot < 0) return;
+        int node = slotNodes[slot] - 1;
+        slotNodes[slot] = DELETED;
+        parent[node] = -1;
+        next[node] = freeNodes;
+        freeNodes = node;
+        liveNodes--;
+    }
+
+    /**
+     * Returns the keys of the component rooted at the node.
+     */
+    long[] members(int root) {
+        long[] members = new long[size[root]];
+        int node = root;
+        int i = 0;
+        do {
+            members[i++] = keys[node];
+            node = next[node];
+        } while (node != root);
+        return members;
+    }
+
+    /**
+     * Returns the smallest-x, then smallest-z cell of the component rooted at the node.
+     */
+    long firstKey(int root) {
+        return first[root];
+    }
+
+    int minX(int root) {
+        return minX[root];
+    }
+
+    int maxX(int root) {
+        return maxX[root];
+    }
+
+    int minZ(int root) {
+        return minZ[root];
+    }
+
+    int maxZ(int root) {
+        return maxZ[root];
+    }
+
+    void forEachRoot(IntConsumer action) {
+        for (int node = 0; node < nodeCount; node++) {
+            if (parent[node] == node) action.accept(node);
+        }
+    }
+
+    private int root(int node) {
+        while (parent[node] != node) {
+            // Path halving keeps the trees flat without a second pass.
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static boolean precedes(long a, long b) {
+        int ax = PlotId.unpackX(a);
+        int bx = PlotId.unpackX(b);
+        return ax < bx || (ax == bx && PlotId.unpackZ(a) < PlotId.unpackZ(b));
+    }
+
+    private int slotOf(long key) {
+        int mask = slotKeys.length - 1;
+        int i = PlotTable.mix(key) & mask;
+        while (true) {
+            int node = slotNodes[i];
+            if (node == EMPTY) return -1;
+            if (node != DELETED && slotKeys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private int nodeOf(long key) {
+        int slot = slotOf(key);
+        if (slot >= 0) return slotNodes[slot] - 1;
+
+        if ((usedSlots + 1) * 4L > slotKeys.length * 3L) {
+            reindex(liveNodes + 1);
+        }
+        int node = allocateNode();
+        keys[node] = key;
+        parent[node] = node;
+        next[node] = node;
+        size[node] = 1;
+        minX[node] = maxX[node] = PlotId.unpackX(key);
+        minZ[node] = maxZ[node] = PlotId.unpackZ(key);
+        first[node] = key;
+        liveNodes++;
+        if (insert(key, node)) usedSlots++;
+        return node;
+    }
+
+    private int allocateNode() {
+        if (freeNodes >= 0) {
+            int node = freeNodes;
+            freeNodes = next[node];
+            return node;
+        }
+        if (nodeCount == keys.length) {
+            int capacity = nodeCount * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            next = Arrays.copyOf(next, capacity);
+            size = Arrays.copyOf(size, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            minZ = Arrays.copyOf(minZ, capacity);
+            maxZ = Arrays.copyOf(maxZ, capacity);
+            first = Arrays.copyOf(first, capacity);
+        }
+        return nodeCount++;
+    }
+
+    /**
+     * Puts the key into the first free or deleted slot of its probe sequence.
+     *
+     * @return whether the slot was empty before, rather than a reused deletion marker
+     */
+    private boolean insert(long key, int node) {
+        int mask = slotKeys.length - 1;
+        int i = PlotTable.mix(key) & mask;
+        while (slotNodes[i] > EMPTY) {
+            i = (i + 1) & mask;
+        }
+        boolean empty = slotNodes[i] == EMPTY;
+        slotKeys[i] = key;
+        slotNodes[i] = node + 1;
+        return empty;
+    }
+
+    private void reindex(int expected) {
+        int capacity = MIN_CAPACITY;
+        // Same headroom as the plot table: at most half full right after a rebuild.
+        while (capacity < expected * 2L) {
+            capacity <<= 1;
+        }
+        slotKeys = new long[capacity];
+        slotNodes = new int[capacity];
+        usedSlots = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (parent[node] >= 0) {
+                insert(keys[node], node);
+                usedSlots++;
+            }
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package me.daoge.allayplots.plot;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class Plot {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
     private final String worldName;
     private final PlotId id;
     private final UUID owner;
@@ -28,6 +32,7 @@ public final class Plot {
             Map<String, String> flags,
             Set<PlotMergeDirection> mergedDirections
     ) {
+        this.version = VERSIONS.incrementAndGet();
         this.worldName = Objects.requireNonNull(worldName, "worldName");
         this.id = Objects.requireNonNull(id, "id");
         this.owner = owner;
@@ -39,6 +44,14 @@ public final class Plot {
         this.mergedDirections = Set.copyOf(mergedDirections);
     }
 
+    /**
+     * Returns the version stamp of this state. Every plot instance gets a fresh, higher stamp than any created before
+     * it, so two reads of a plot with the same stamp saw exactly the same state.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     public String getWorldName() {
         return worldName;
     }
@@ -251,6 +264,18 @@ public final class Plot {
         return new Plot(worldName, id, owner, ownerName, home, source.trusted, source.denied, source.flags, mergedDirections);
     }
 
+    /**
+     * Whether the other plot differs from this one at most in its settings: trusted, denied and flags.
+     */
+    boolean hasSameStructure(Plot other) {
+        return worldName.equals(other.worldName)
+               && id.equals(other.id)
+               && Objects.equals(owner, other.owner)
+               && Objects.equals(ownerName, other.ownerName)
+               && home == other.home
+               && mergedDirections.equals(other.mergedDirections);
+    }
+
     public boolean canEnter(UUID playerId) {
         if (denied.contains(playerId)) {
             return false;
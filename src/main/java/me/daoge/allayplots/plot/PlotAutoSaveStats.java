@@ -0,0 +1,12 @@
+package me.daoge.allayplots.plot;
+
+import java.util.Map;
+
+/**
+ * Counters of the auto-save since the service started.
+ *
+ * @param triggers      saves started, by what triggered them
+ * @param deferredSaves due saves that were held back by a slow tick
+ */
+public record PlotAutoSaveStats(Map<PlotSaveTrigger, Long> triggers, long deferredSaves) {
+}
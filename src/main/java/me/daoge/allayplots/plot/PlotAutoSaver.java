@@ -0,0 +1,128 @@
+package me.daoge.allayplots.plot;
+
+import org.slf4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides once per server tick whether the pending plot changes should be saved now.
+ * <p>
+ * The clock starts with the first unsaved change, so an idle server never saves. A save is due once the oldest
+ * change has waited for the interval, or for a stretched interval while only a few changes are pending. It is due
+ * early, though at most once per minimum interval, when the number of dirty plots or journaled changes passes its
+ * threshold. A due save is held back for a few ticks after a slow tick, so it does not pile onto a lag spike, but
+ * never for longer than the maximum deferral.
+ */
+final class PlotAutoSaver {
+    /**
+     * Tuning of the auto-save; thresholds and the spike check are off at zero.
+     */
+    record Limits(
+            int intervalTicks,
+            int minIntervalTicks,
+            int idleChanges,
+            int idleIntervalMultiplier,
+            int dirtyPlotThreshold,
+            int journalThreshold,
+            long spikeTickMillis,
+            int spikeCooldownTicks,
+            int maxDeferralTicks,
+            boolean logTriggers
+    ) {
+    }
+
+    private final Logger logger;
+    private final Limits limits;
+    private final long spikeNanos;
+    private final Map<PlotSaveTrigger, Long> triggerCounts = new EnumMap<>(PlotSaveTrigger.class);
+    // Only touched by the ticking thread, apart from the counters which are read under this.
+    private long lastTickNanos = -1;
+    private int pendingTicks;
+    private int ticksSinceSave = Integer.MAX_VALUE;
+    private int spikeTicksLeft;
+    private int deferredTicks;
+    private long deferredSaves;
+
+    PlotAutoSaver(Logger logger, Limits limits) {
+        this.logger = logger;
+        this.limits = limits;
+        this.spikeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, limits.spikeTickMillis()));
+    }
+
+    /**
+     * Advances by one tick. Must always be called from the same thread.
+     *
+     * @param now        current {@link System#nanoTime()}
+     * @param dirtyPlots distinct plots with unsaved changes
+     * @param journaled  unsaved changes
+     * @return why a save should start now, or null if none should
+     */
+    PlotSaveTrigger tick(long now, int dirtyPlots, int journaled) {
+        if (lastTickNanos >= 0 && spikeNanos > 0 && now - lastTickNanos > spikeNanos) {
+            spikeTicksLeft = limits.spikeCooldownTicks();
+        } else if (spikeTicksLeft > 0) {
+            spikeTicksLeft--;
+        }
+        lastTickNanos = now;
+        if (ticksSinceSave < Integer.MAX_VALUE) {
+            ticksSinceSave++;
+        }
+        if (journaled <= 0) {
+            pendingTicks = 0;
+            deferredTicks = 0;
+            return null;
+        }
+        pendingTicks++;
+
+        PlotSaveTrigger trigger = due(dirtyPlots, journaled);
+        if (trigger == null) {
+            return null;
+        }
+        if (spikeTicksLeft > 0 && deferredTicks < limits.maxDeferralTicks()) {
+            if (deferredTicks++ == 0) {
+                synchronized (this) {
+                    deferredSaves++;
+                }
+            }
+            return null;
+        }
+
+        synchronized (this) {
+            triggerCounts.merge(trigger, 1L, Long::sum);
+        }
+        if (limits.logTriggers()) {
+            logger.info("Saving {} plot changes on {} plots ({}).", journaled, dirtyPlots, trigger);
+        } else {
+            logger.debug("Saving {} plot changes on {} plots ({}).", journaled, dirtyPlots, trigger);
+        }
+        pendingTicks = 0;
+        ticksSinceSave = 0;
+        deferredTicks = 0;
+        return trigger;
+    }
+
+    private PlotSaveTrigger due(int dirtyPlots, int journaled) {
+        if (ticksSinceSave >= limits.minIntervalTicks()) {
+            if (limits.dirtyPlotThreshold() > 0 && dirtyPlots >= limits.dirtyPlotThreshold()) {
+                return PlotSaveTrigger.DIRTY_PLOTS;
+            }
+            if (limits.journalThreshold() > 0 && journaled >= limits.journalThreshold()) {
+                return PlotSaveTrigger.JOURNAL_SIZE;
+            }
+        }
+        if (journaled < limits.idleChanges()) {
+            long stretched = (long) limits.intervalTicks() * Math.max(1, limits.idleIntervalMultiplier());
+            return pendingTicks >= stretched ? PlotSaveTrigger.IDLE_INTERVAL : null;
+        }
+        return pendingTicks >= limits.intervalTicks() ? PlotSaveTrigger.INTERVAL : null;
+    }
+
+    synchronized PlotAutoSaveStats stats() {
+        return new PlotAutoSaveStats(
+                triggerCounts.isEmpty() ? Map.of() : Map.copyOf(triggerCounts),
+                deferredSaves
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package me.daoge.allayplots.plot;
+
+/**
+ * One entry of a world's change journal: the plot as it was stored right after a write, or {@code null} once it was
+ * removed. Sequence numbers grow in the order the changes were made within their world.
+ */
+public record PlotChange(long sequence, String worldName, PlotId id, Plot plot) {
+    public boolean isRemoval() {
+        return plot == null;
+    }
+}
@@ -0,0 +1,110 @@
+package me.daoge.allayplots.plot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongPredicate;
+
+/**
+ * Bounded cache of resolved plot keys per chunk column, so block events in a hot chunk resolve with one array read.
+ * <p>
+ * Chunks map onto a fixed number of slots and a newer chunk simply replaces whatever shared its slot. A chunk's
+ * columns are resolved one at a time as they are first read, so a miss costs one resolve rather than 256. Each cache
+ * belongs to one immutable {@link PlotWorldSnapshot}, so its columns never go stale and reads are lock-free from any
+ * thread; two threads resolving the same column both store the same key. The next snapshot {@link #derive derives}
+ * its cache from this one, keeping every column its changes did not touch.
+ */
+final class PlotChunkCache {
+    private static final int SLOTS = 256;
+    // Keys are stored xor this, so a fresh array reads as unresolved. No plot coordinate gets near Integer.MAX_VALUE,
+    // so no real key is stored as zero.
+    private static final long UNRESOLVED = Long.MAX_VALUE;
+    // Opaque access keeps the lazily written keys from tearing without fencing the reads.
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    @FunctionalInterface
+    interface KeyResolver {
+        long resolve(int x, int z);
+    }
+
+    private record Columns(long chunkKey, long[] keys) {
+    }
+
+    private final AtomicReferenceArray<Columns> slots = new AtomicReferenceArray<>(SLOTS);
+    private final KeyResolver resolver;
+
+    PlotChunkCache(KeyResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Returns a cache resolving through {@code resolver} that starts out with this cache's columns, minus the chunks
+     * {@code stale} accepts (packed chunk keys).
+     */
+    PlotChunkCache derive(KeyResolver resolver, LongPredicate stale) {
+        PlotChunkCache derived = new PlotChunkCache(resolver);
+        for (int i = 0; i < SLOTS; i++) {
+            Columns columns = slots.get(i);
+            if (columns != null && !stale.test(columns.chunkKey())) {
+                derived.slots.set(i, columns);
+            }
+        }
+        return derived;
+    }
+
+    long get(int x, int z) {
+        return key(columns(x >> 4, z >> 4), x, z);
+    }
+
+    /**
+     * Resolves {@code count} positions into {@code out}, reusing the column map while consecutive positions stay in
+     * the same chunk.
+     */
+    void getAll(int[] xs, int[] zs, int count, long[] out) {
+        long[] keys = null;
+        int lastChunkX = 0;
+        int lastChunkZ = 0;
+        for (int i = 0; i < count; i++) {
+            int x = xs[i];
+            int z = zs[i];
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+            if (keys == null || chunkX != lastChunkX || chunkZ != lastChunkZ) {
+                keys = columns(chunkX, chunkZ);
+                lastChunkX = chunkX;
+                lastChunkZ = chunkZ;
+            }
+            out[i] = key(keys, x, z);
+        }
+    }
+
+    private long[] columns(int chunkX, int chunkZ) {
+        long chunkKey = PlotId.pack(chunkX, chunkZ);
+        int slot = slot(chunkKey);
+
+        Columns columns = slots.get(slot);
+        if (columns != null && columns.chunkKey() == chunkKey) {
+            return columns.keys();
+        }
+
+        long[] keys = new long[256];
+        slots.set(slot, new Columns(chunkKey, keys));
+        return keys;
+    }
+
+    private long key(long[] keys, int x, int z) {
+        int column = ((z & 15) << 4) | (x & 15);
+        long stored = (long) KEYS.getOpaque(keys, column);
+        if (stored != 0) {
+            return stored ^ UNRESOLVED;
+        }
+        long key = resolver.resolve(x, z);
+        KEYS.setOpaque(keys, column, key ^ UNRESOLVED);
+        return key;
+    }
+
+    private static int slot(long chunkKey) {
+        long h = chunkKey * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (SLOTS - 1);
+    }
+}
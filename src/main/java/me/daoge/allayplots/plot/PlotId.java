@@ -9,6 +9,29 @@ public record PlotId(int x, int z) {
         return new PlotId(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
     }
 
+    /**
+     * Packs cell coordinates into a single long: x in the high 32 bits, z in the low 32 bits.
+     */
+    public static long pack(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int unpackZ(long key) {
+        return (int) key;
+    }
+
+    public static PlotId fromKey(long key) {
+        return new PlotId(unpackX(key), unpackZ(key));
+    }
+
+    public long key() {
+        return pack(x, z);
+    }
+
     public String asString() {
         return x + ";" + z;
     }
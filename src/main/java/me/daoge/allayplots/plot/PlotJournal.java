@@ -0,0 +1,96 @@
+package me.daoge.allayplots.plot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The changes of one world that have not been saved yet, at most one per plot.
+ * <p>
+ * The world records a change for every plot it writes or removes. A plot's latest change replaces any earlier one not
+ * drained yet, a removal included, so the journal never holds more entries than the world has plots however long
+ * saving is put off. Recorded changes stay staged until {@link #commit()}, which the world calls when it publishes a
+ * snapshot, so a drain only ever sees whole batches of writes. Each change carries the plot value itself, so saving
+ * needs neither the worker nor a copy of the world.
+ */
+final class PlotJournal {
+    private final String worldName;
+    private long nextSequence;
+    private LinkedHashMap<PlotId, PlotChange> staged = new LinkedHashMap<>();
+    private LinkedHashMap<PlotId, PlotChange> committed = new LinkedHashMap<>();
+    // Plots with a change not drained yet, staged or committed.
+    private final Set<PlotId> dirty = new HashSet<>();
+    // Changes recorded since the last drain, counting those that replaced an earlier one.
+    private int recorded;
+
+    PlotJournal(String worldName) {
+        this.worldName = worldName;
+    }
+
+    synchronized void append(PlotId id, Plot plot) {
+        staged.put(id, new PlotChange(nextSequence++, worldName, id, plot));
+        dirty.add(id);
+        recorded++;
+    }
+
+    /**
+     * Makes the staged changes visible to {@link #drain()}.
+     */
+    synchronized void commit() {
+        if (staged.isEmpty()) return;
+        if (committed.isEmpty()) {
+            LinkedHashMap<PlotId, PlotChange> swap = committed;
+            committed = staged;
+            staged = swap;
+        } else {
+            committed.putAll(staged);
+            staged.clear();
+        }
+    }
+
+    /**
+     * Removes and returns the committed changes, the latest one of every plot.
+     */
+    synchronized List<PlotChange> drain() {
+        if (committed.isEmpty()) return List.of();
+        List<PlotChange> drained = new ArrayList<>(committed.values());
+        committed = new LinkedHashMap<>();
+        dirty.clear();
+        dirty.addAll(staged.keySet());
+        recorded = staged.size();
+        return drained;
+    }
+
+    /**
+     * Puts back changes returned by {@link #drain()} that could not be saved, ahead of everything committed since. A
+     * plot changed again in the meantime keeps its newer change.
+     */
+    synchronized void requeue(List<PlotChange> changes) {
+        if (changes.isEmpty()) return;
+        LinkedHashMap<PlotId, PlotChange> restored = new LinkedHashMap<>();
+        for (PlotChange change : changes) {
+            restored.put(change.id(), change);
+            dirty.add(change.id());
+        }
+        restored.putAll(committed);
+        committed = restored;
+        recorded += changes.size();
+    }
+
+    /**
+     * Returns how many changes were recorded and not drained yet, staged ones included. Repeated changes of one plot
+     * all count, although only the latest is kept.
+     */
+    synchronized int size() {
+        return recorded;
+    }
+
+    /**
+     * Returns how many distinct plots have changes waiting to be drained.
+     */
+    synchronized int dirtyPlots() {
+        return dirty.size();
+    }
+}
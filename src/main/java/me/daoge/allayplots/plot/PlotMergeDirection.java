@@ -24,6 +24,13 @@ public enum PlotMergeDirection {
         return dz;
     }
 
+    /**
+     * Bit of this direction in a merge mask.
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
     public PlotMergeDirection opposite() {
         return switch (this) {
             case NORTH -> SOUTH;
@@ -0,0 +1,13 @@
+package me.daoge.allayplots.plot;
+
+import java.util.Set;
+
+/**
+ * A connected component of merged plots.
+ *
+ * @param root    member with the smallest x, then smallest z
+ * @param members every plot id in the component
+ * @param bounds  block bounds spanning all members, roads between them included
+ */
+public record PlotMergeGroup(PlotId root, Set<PlotId> members, PlotBounds bounds) {
+}
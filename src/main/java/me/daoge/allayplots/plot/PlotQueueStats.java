@@ -0,0 +1,28 @@
+package me.daoge.allayplots.plot;
+
+/**
+ * Point-in-time counters of one lane of a plot world's worker.
+ *
+ * @param worker            name of the worker thread
+ * @param depth             tasks currently waiting in the lane
+ * @param capacity          most tasks the lane accepts before rejecting submissions
+ * @param dispatched        tasks taken off the lane since the worker started
+ * @param rejected          submissions refused because the lane was full
+ * @param averageWaitMicros mean time dispatched tasks spent waiting in the lane
+ * @param maxWaitMicros     longest time a dispatched task spent waiting in the lane
+ * @param averageRunMicros  mean time the lane's tasks took to run
+ * @param maxRunMicros      longest time one of the lane's tasks took to run
+ */
+public record PlotQueueStats(
+        String worker,
+        PlotTaskLane lane,
+        int depth,
+        int capacity,
+        long dispatched,
+        long rejected,
+        long averageWaitMicros,
+        long maxWaitMicros,
+        long averageRunMicros,
+        long maxRunMicros
+) {
+}
@@ -0,0 +1,331 @@
+package me.daoge.allayplots.plot;
+
+import me.daoge.allayplots.config.PlotWorldConfig;
+import me.daoge.allayplots.generator.PlotGeneratorPreset;
+import org.allaymc.api.block.type.BlockState;
+import org.allaymc.api.block.type.BlockTypes;
+import org.allaymc.api.registry.Registries;
+import org.allaymc.api.server.Server;
+import org.allaymc.api.utils.identifier.Identifier;
+import org.allaymc.api.world.Dimension;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rebuilds the road on one side of a plot so it matches the merge state, as a {@link PlotWorldEditor} job. The merge
+ * state is read from the world's snapshot when the job is planned, so a job queued behind later merge changes of the
+ * same edge still builds the latest state.
+ */
+final class PlotRoadEdit implements PlotWorldEditor.Job {
+    private record Key(String worldName, PlotId plotId, PlotMergeDirection direction) {
+    }
+
+    private final PlotWorld world;
+    private final PlotId plotId;
+    private final PlotMergeDirection direction;
+    private final Logger logger;
+    private final UpdateArea area;
+    private final Key key;
+
+    PlotRoadEdit(PlotWorld world, PlotId plotId, PlotMergeDirection direction, Logger logger) {
+        this.world = world;
+        this.plotId = plotId;
+        this.direction = direction;
+        this.logger = logger;
+        this.area = UpdateArea.forMerge(world.getPlotBounds(plotId), world.getConfig().roadSize(), direction);
+        this.key = new Key(world.getConfig().worldName(), plotId, direction);
+    }
+
+    @Override
+    public String worldName() {
+        return key.worldName();
+    }
+
+    @Override
+    public Object key() {
+        return key;
+    }
+
+    @Override
+    public CompletableFuture<?> loadChunks() {
+        if (world.getConfig().roadSize() <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Dimension dim = resolveOverworldDimension();
+        if (dim == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Plot world " + worldName() + " is not loaded."));
+        }
+
+        var chunkManager = dim.getChunkManager();
+        var futures = new ArrayList<CompletableFuture<?>>();
+        for (int chunkX = area.minX >> 4; chunkX <= area.maxX >> 4; chunkX++) {
+            for (int chunkZ = area.minZ >> 4; chunkZ <= area.maxZ >> 4; chunkZ++) {
+                final int cx = chunkX;
+                final int cz = chunkZ;
+
+                try {
+                    futures.add(chunkManager.getOrLoadChunk(cx, cz)
+                            .handle((chunk, ex) -> {
+                                if (ex != null) {
+                                    logger.warn("Failed to load chunk {},{} for road update.", cx, cz, ex);
+                                }
+                                return null;
+                            }));
+                } catch (RuntimeException ex) {
+                    logger.warn("Failed to schedule chunk load {},{} for road update.", cx, cz, ex);
+                }
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public boolean chunksLoaded() {
+        if (world.getConfig().roadSize() <= 0) {
+            return true;
+        }
+        Dimension dim = resolveOverworldDimension();
+        if (dim == null) {
+            return false;
+        }
+        var chunkManager = dim.getChunkManager();
+        for (int chunkX = area.minX >> 4; chunkX <= area.maxX >> 4; chunkX++) {
+            for (int chunkZ = area.minZ >> 4; chunkZ <= area.maxZ >> 4; chunkZ++) {
+                if (chunkManager.getChunk(chunkX, chunkZ) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public PlotWorldEditor.Plan plan() {
+        PlotWorldConfig cfg = world.getConfig();
+        Dimension dim = cfg.roadSize() > 0 ? resolveOverworldDimension() : null;
+        if (dim == null) {
+            return Blocks.EMPTY;
+        }
+
+        var info = dim.getDimensionInfo();
+        int surfaceY = resolveSurfaceY(info.minHeight(), info.maxHeight(), cfg.groundY());
+        int topY = surfaceY + 1;
+        boolean hasTop = topY <= info.maxHeight();
+
+        PlotWorldSnapshot snapshot = world.snapshot();
+        boolean merged = snapshot.isMerged(plotId, direction);
+
+        String preset = dim.getWorldGenerator() != null ? dim.getWorldGenerator().getPreset() : "";
+        PlotSurfacePalette pal = PlotSurfacePalette.fromWorld(cfg, preset);
+
+        PlotMask mask = PlotMask.build(snapshot, area, merged);
+
+        int columns = (area.maxX - area.minX + 1) * (area.maxZ - area.minZ + 1);
+        Blocks blocks = new Blocks(dim, hasTop ? columns * 2 : columns);
+        for (int x = area.minX; x <= area.maxX; x++) {
+            for (int z = area.minZ; z <= area.maxZ; z++) {
+                boolean plotArea = mask.isPlot(x, z);
+
+                // surface
+                blocks.add(x, surfaceY, z, plotArea ? pal.plotBlock() : pal.roadBlock());
+
+                if (!hasTop) continue;
+
+                // top
+                if (plotArea) {
+                    blocks.add(x, topY, z, BlockTypes.AIR.getDefaultState());
+                } else {
+                    blocks.add(x, topY, z, resolveRoadTop(mask, x, z, pal));
+                }
+            }
+        }
+        return blocks;
+    }
+
+    private Dimension resolveOverworldDimension() {
+        var targetWorld = Server.getInstance().getWorldPool().getWorld(worldName());
+        if (targetWorld == null) {
+            logger.warn("Plot world {} is not loaded; skipping road update.", worldName());
+            return null;
+        }
+
+        Dimension dim = targetWorld.getOverWorld();
+        if (dim == null) {
+            logger.warn("Plot world {} has no overworld dimension; skipping road update.", worldName());
+            return null;
+        }
+        return dim;
+    }
+
+    /**
+     * Planned block writes, kept in parallel arrays so a long road costs a few allocations.
+     */
+    private static final class Blocks implements PlotWorldEditor.Plan {
+        private static final Blocks EMPTY = new Blocks(null, 0);
+
+        private final Dimension dimension;
+        private final int[] xs;
+        private final int[] ys;
+        private final int[] zs;
+        private final BlockState[] states;
+        private int size;
+
+        private Blocks(Dimension dimension, int capacity) {
+            this.dimension = dimension;
+            this.xs = new int[capacity];
+            this.ys = new int[capacity];
+            this.zs = new int[capacity];
+            this.states = new BlockState[capacity];
+        }
+
+        private void add(int x, int y, int z, BlockState state) {
+            xs[size] = x;
+            ys[size] = y;
+            zs[size] = z;
+            states[size] = state;
+            size++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void apply(int from, int to) {
+            for (int i = from; i < to; i++) {
+                dimension.setBlockState(xs[i], ys[i], zs[i], states[i]);
+            }
+        }
+    }
+
+    private static BlockState resolveRoadTop(PlotMask mask, int x, int z, PlotSurfacePalette pal) {
+        // N/S/E/W adjacency to plot
+        boolean plotW = mask.isPlot(x - 1, z);
+        boolean plotE = mask.isPlot(x + 1, z);
+        boolean plotN = mask.isPlot(x, z - 1);
+        boolean plotS = mask.isPlot(x, z + 1);
+
+        boolean edgeX = plotW || plotE;
+        boolean edgeZ = plotN || plotS;
+
+        if (edgeX && edgeZ) return pal.roadCornerBlock();
+        if (edgeX || edgeZ) return pal.roadEdgeBlock();
+
+        // Diagonal-only adjacency (fixes missing corner after merge/unmerge)
+        boolean plotNW = mask.isPlot(x - 1, z - 1);
+        boolean plotNE = mask.isPlot(x + 1, z - 1);
+        boolean plotSW = mask.isPlot(x - 1, z + 1);
+        boolean plotSE = mask.isPlot(x + 1, z + 1);
+
+        if (plotNW || plotNE || plotSW || plotSE) return pal.roadCornerBlock();
+
+        return BlockTypes.AIR.getDefaultState();
+    }
+
+    private static int resolveSurfaceY(int minY, int maxY, int groundY) {
+        int surface = Math.min(maxY, groundY);
+        if (surface <= minY) surface = Math.min(maxY, minY + 1);
+        return surface;
+    }
+
+    private static BlockState resolveBlockState(String id, BlockState fallback) {
+        if (id == null || id.isBlank()) return fallback;
+        try {
+            var type = Registries.BLOCKS.get(new Identifier(id));
+            return type != null ? type.getDefaultState() : fallback;
+        } catch (RuntimeException ex) {
+            return fallback;
+        }
+    }
+
+    private record UpdateArea(
+            int minX, int maxX, int minZ, int maxZ,
+            int stripMinX, int stripMaxX, int stripMinZ, int stripMaxZ
+    ) {
+        static UpdateArea forMerge(PlotBounds base, int roadSize, PlotMergeDirection dir) {
+            return switch (dir) {
+                case EAST -> new UpdateArea(
+                        base.maxX() + 1, base.maxX() + roadSize,
+                        base.minZ() - roadSize, base.maxZ() + roadSize,
+                        base.maxX() + 1, base.maxX() + roadSize,
+                        base.minZ(), base.maxZ()
+                );
+                case WEST -> new UpdateArea(
+                        base.minX() - roadSize, base.minX() - 1,
+                        base.minZ() - roadSize, base.maxZ() + roadSize,
+                        base.minX() - roadSize, base.minX() - 1,
+                        base.minZ(), base.maxZ()
+                );
+                case SOUTH -> new UpdateArea(
+                        base.minX() - roadSize, base.maxX() + roadSize,
+                        base.maxZ() + 1, base.maxZ() + roadSize,
+                        base.minX(), base.maxX(),
+                        base.maxZ() + 1, base.maxZ() + roadSize
+                );
+                case NORTH -> new UpdateArea(
+                        base.minX() - roadSize, base.maxX() + roadSize,
+                        base.minZ() - roadSize, base.minZ() - 1,
+                        base.minX(), base.maxX(),
+                        base.minZ() - roadSize, base.minZ() - 1
+                );
+            };
+        }
+    }
+
+    private record PlotSurfacePalette(
+            BlockState plotBlock,
+            BlockState roadBlock,
+            BlockState roadEdgeBlock,
+            BlockState roadCornerBlock
+    ) {
+        static PlotSurfacePalette fromWorld(PlotWorldConfig config, String presetString) {
+            PlotGeneratorPreset preset = (presetString == null || presetString.isBlank())
+                    ? PlotGeneratorPreset.fromConfig(config)
+                    : PlotGeneratorPreset.fromPreset(presetString);
+
+            BlockState plotBlock = resolveBlockState(preset.plotBlock(), BlockTypes.GRASS_BLOCK.getDefaultState());
+            BlockState roadBlock = resolveBlockState(preset.roadBlock(), BlockTypes.OAK_PLANKS.getDefaultState());
+            BlockState roadEdgeBlock = resolveBlockState(preset.roadEdgeBlock(), BlockTypes.SMOOTH_STONE_SLAB.getDefaultState());
+            BlockState roadCornerBlock = resolveBlockState(preset.roadCornerBlock(), BlockTypes.SMOOTH_STONE_SLAB.getDefaultState());
+
+            return new PlotSurfacePalette(plotBlock, roadBlock, roadEdgeBlock, roadCornerBlock);
+        }
+    }
+
+    private record PlotMask(int minX, int minZ, int width, int depth, boolean[] mask) {
+        static PlotMask build(PlotWorldSnapshot snapshot, UpdateArea area, boolean merged) {
+            int padMinX = area.minX - 1;
+            int padMaxX = area.maxX + 1;
+            int padMinZ = area.minZ - 1;
+            int padMaxZ = area.maxZ + 1;
+
+            int width = padMaxX - padMinX + 1;
+            int depth = padMaxZ - padMinZ + 1;
+            boolean[] mask = new boolean[width * depth];
+
+            for (int x = padMinX; x <= padMaxX; x++) {
+                for (int z = padMinZ; z <= padMaxZ; z++) {
+                    boolean inStrip = merged
+                                      && x >= area.stripMinX && x <= area.stripMaxX
+                                      && z >= area.stripMinZ && z <= area.stripMaxZ;
+
+                    boolean isPlot = inStrip || snapshot.getPlotKeyAt(x, z) != PlotWorld.ROAD;
+                    mask[(x - padMinX) * depth + (z - padMinZ)] = isPlot;
+                }
+            }
+
+            return new PlotMask(padMinX, padMinZ, width, depth, mask);
+        }
+
+        boolean isPlot(int x, int z) {
+            int dx = x - minX;
+            int dz = z - minZ;
+            if (dx < 0 || dz < 0 || dx >= width || dz >= depth) return false;
+            return mask[dx * depth + dz];
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package me.daoge.allayplots.plot;
+
+/**
+ * Why the auto-save started a save.
+ */
+public enum PlotSaveTrigger {
+    /**
+     * Enough distinct plots had unsaved changes.
+     */
+    DIRTY_PLOTS,
+    /**
+     * Enough changes were journaled, e.g. one plot edited over and over.
+     */
+    JOURNAL_SIZE,
+    /**
+     * The oldest unsaved change had waited for the save interval.
+     */
+    INTERVAL,
+    /**
+     * Only a few changes were pending, so they waited for the stretched idle interval.
+     */
+    IDLE_INTERVAL
+}
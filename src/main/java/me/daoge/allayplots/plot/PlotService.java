@@ -2,29 +2,29 @@ package me.daoge.allayplots.plot;
 
 import me.daoge.allayplots.config.PlotWorldConfig;
 import me.daoge.allayplots.config.PluginConfig;
-import me.daoge.allayplots.generator.PlotGeneratorPreset;
 import me.daoge.allayplots.storage.PlotStorage;
-import org.allaymc.api.block.type.BlockState;
-import org.allaymc.api.block.type.BlockTypes;
 import org.allaymc.api.math.MathUtils;
 import org.allaymc.api.math.location.Location3dc;
-import org.allaymc.api.registry.Registries;
 import org.allaymc.api.server.Server;
-import org.allaymc.api.utils.identifier.Identifier;
 import org.allaymc.api.world.Dimension;
+import org.allaymc.api.world.World;
 import org.slf4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.UnaryOperator;
 
 public final class PlotService {
@@ -33,41 +33,106 @@ public final class PlotService {
     private final Logger logger;
 
     private final Map<String, PlotWorld> worlds = new ConcurrentHashMap<>();
+    private final PlotWorldLookup<Dimension> dimensionLookup = new PlotWorldLookup<>(
+            dimension -> worlds.get(dimension.getWorld().getName()),
+            dimension -> {
+                World world = dimension.getWorld();
+                return Server.getInstance().getWorldPool().getWorld(world.getName()) == world;
+            }
+    );
     private final Map<UUID, PlotLocation> homeByOwner = new ConcurrentHashMap<>();
-    private final BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<>();
+    private final Map<UUID, Set<PlotLocation>> plotsByOwner = new ConcurrentHashMap<>();
+    // One worker per configured world, keyed by world name; fixed for the lifetime of the service.
+    private final Map<String, Shard> shards;
+    private final PlotWorker.Limits queueLimits;
+    private final PlotWorldEditor worldEditor;
+    private final PlotWatchdog watchdog;
+    // Null while auto-save is disabled.
+    private final PlotAutoSaver autoSaver;
+    private final long callerTimeoutMillis;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private final ExecutorService saveExecutor = Executors.newSingleThreadExecutor(
-            Thread.ofVirtual().name("AllayPlots-PlotSave", 0).factory());
-    private final AtomicBoolean saveInFlight = new AtomicBoolean(false);
-    private final AtomicReference<PlotChanges> pendingSave = new AtomicReference<>();
-    private final Object saveLock = new Object();
-    private Thread serviceThread;
-    private static final Runnable POISON_PILL = () -> {};
+    // Held shared by settings changes made off the workers, exclusively by shutdown before it stops the workers.
+    private final ReadWriteLock settingsWriters = new ReentrantReadWriteLock();
+    private final ExecutorService saveExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("AllayPlots-PlotSave-", 0).factory());
 
     /**
-     * Holds incremental changes for saving.
+     * Worker of one plot world together with its pending /plot auto requests and its save state.
      */
-    private record PlotChanges(
-            Map<String, Map<PlotId, Plot>> dirtyPlots,
-            Map<String, Set<PlotId>> deletedPlots,
-            Map<String, Map<PlotId, Plot>> fullSnapshot
+    private record Shard(
+            PlotWorker worker,
+            Queue<AutoClaimRequest> autoClaims,
+            AtomicBoolean autoClaimScheduled,
+            SaveState save
     ) {
-        boolean isEmpty() {
-            return dirtyPlots.isEmpty() && deletedPlots.isEmpty();
-        }
+    }
+
+    /**
+     * Saves of one world. At most one background save loop runs per world, and the lock keeps the world's drains
+     * and writes in order, so an older change never lands after a newer one.
+     */
+    private static final class SaveState {
+        private final AtomicBoolean requested = new AtomicBoolean(false);
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+        private final Object lock = new Object();
     }
 
     public PlotService(PluginConfig config, PlotStorage storage, Logger logger) {
         this.config = config;
         this.storage = storage;
         this.logger = logger;
+
+        PluginConfig.QueueSettings queue = config.queue();
+        this.queueLimits = new PlotWorker.Limits(
+                queue.interactiveCapacity(),
+                queue.maintenanceCapacity(),
+                queue.fullQueueWaitMillis(),
+                queue.batchSize()
+        );
+        PluginConfig.WatchdogSettings watchdog = config.watchdog();
+        Map<String, Shard> shards = new HashMap<>();
+        for (String worldName : config.worlds().keySet()) {
+            PlotWorker worker = new PlotWorker("AllayPlots-PlotService-" + worldName, logger, queueLimits);
+            worker.setOriginTracing(watchdog.traceTaskOrigins());
+            shards.put(worldName, new Shard(
+                    worker, new ConcurrentLinkedQueue<>(), new AtomicBoolean(false), new SaveState()));
+        }
+        this.shards = Map.copyOf(shards);
+        this.watchdog = new PlotWatchdog(
+                logger,
+                watchdog.slowTaskMillis(),
+                this.shards.values().stream().map(Shard::worker).toList()
+        );
+        this.callerTimeoutMillis = watchdog.callerTimeoutMillis();
+
+        // With the write-ahead log a save is a cheap append, so the base interval is far shorter.
+        int saveIntervalTicks = config.writeAheadLog().enabled()
+                ? config.writeAheadLog().flushIntervalTicks()
+                : config.settings().autoSaveIntervalTicks();
+        PluginConfig.AutoSaveSettings autoSave = config.autoSave();
+        this.autoSaver = saveIntervalTicks <= 0 ? null : new PlotAutoSaver(logger, new PlotAutoSaver.Limits(
+                saveIntervalTicks,
+                autoSave.minIntervalTicks(),
+                autoSave.idleChanges(),
+                autoSave.idleIntervalMultiplier(),
+                autoSave.dirtyPlotThreshold(),
+                autoSave.journalThreshold(),
+                autoSave.spikeTickMillis(),
+                autoSave.spikeCooldownTicks(),
+                autoSave.maxDeferralTicks(),
+                autoSave.logTriggers()
+        ));
+
+        PluginConfig.WorldEditSettings worldEdit = config.worldEdit();
+        this.worldEditor = new PlotWorldEditor(logger, worldEdit.maxQueuedJobs(), worldEdit.blocksPerTick());
     }
 
     public void start() {
         if (running.compareAndSet(false, true)) {
-            serviceThread = Thread.ofPlatform()
-                    .name("AllayPlots-PlotService")
-                    .start(this::runLoop);
+            for (Shard shard : shards.values()) {
+                shard.worker().start();
+            }
+            watchdog.start();
         }
     }
 
@@ -75,13 +140,23 @@ public final class PlotService {
         if (!running.compareAndSet(true, false)) {
             return;
         }
-        taskQueue.offer(POISON_PILL);
-        if (serviceThread != null) {
-            try {
-                serviceThread.join();
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
+        // Settings changes that got past ensureRunning() hand their bookkeeping to the workers before they stop.
+        settingsWriters.writeLock().lock();
+        settingsWriters.writeLock().unlock();
+        for (Shard shard : shards.values()) {
+            shard.worker().stop();
+        }
+        watchdog.stop();
+        worldEditor.shutdown();
+        // The workers are gone, so this thread is the writer now: commit what their last batches staged and flush
+        // every journal, after whatever background saves are still running.
+        for (PlotWorld world : worlds.values()) {
+            world.publish();
+        }
+        try {
+            saveAll();
+        } catch (RuntimeException ex) {
+            logger.error("Failed to save plot data on shutdown.", ex);
         }
         saveExecutor.shutdown();
         try {
@@ -95,122 +170,102 @@ public final class PlotService {
         }
     }
 
-    private void runLoop() {
-        while (true) {
-            Runnable task;
-            try {
-                task = taskQueue.take();
-            } catch (InterruptedException ex) {
-                if (!running.get()) {
-                    break;
-                }
-                continue;
-            }
-            if (task == POISON_PILL) {
-                break;
-            }
-            try {
-                task.run();
-            } catch (Throwable ex) {
-                logger.error("Plot service task failed.", ex);
-            }
-        }
-    }
-
-    private boolean isPlotThread() {
-        return Thread.currentThread() == serviceThread;
-    }
-
     private void ensureRunning() {
         if (!running.get()) {
-            throw new IllegalStateException("Plot service thread is not running.");
+            throw new IllegalStateException("Plot service is not running.");
         }
     }
 
-    private void enqueue(Runnable task) {
-        ensureRunning();
-        try {
-            taskQueue.put(task);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while enqueuing plot task.", ex);
+    private Shard shard(PlotWorld world) {
+        Shard shard = shards.get(world.getConfig().worldName());
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown plot world " + world.getConfig().worldName() + ".");
         }
+        return shard;
     }
 
-    private void markDirty() {
-        // No-op: changes are now tracked per-PlotWorld
+    private boolean isWorldThread(PlotWorld world) {
+        return world != null && shard(world).worker().isCurrentThread();
     }
 
-    private PlotChanges collectChanges() {
-        Map<String, Map<PlotId, Plot>> dirtyPlots = new HashMap<>();
-        Map<String, Set<PlotId>> deletedPlots = new HashMap<>();
-        Map<String, Map<PlotId, Plot>> fullSnapshot = null;
-
-        boolean hasChanges = false;
-        for (Map.Entry<String, PlotWorld> entry : worlds.entrySet()) {
-            PlotWorld world = entry.getValue();
-            if (world.hasChanges()) {
-                hasChanges = true;
-                String worldName = entry.getKey();
-
-                // Collect dirty plots
-                Set<PlotId> dirty = world.getDirtyPlots();
-                if (!dirty.isEmpty()) {
-                    Map<PlotId, Plot> worldDirty = new HashMap<>();
-                    for (PlotId id : dirty) {
-                        Plot plot = world.getPlot(id);
-                        if (plot != null) {
-                            worldDirty.put(id, plot);
-                        }
-                    }
-                    if (!worldDirty.isEmpty()) {
-                        dirtyPlots.put(worldName, worldDirty);
-                    }
-                }
-
-                // Collect deleted plots
-                Set<PlotId> deleted = world.getDeletedPlots();
-                if (!deleted.isEmpty()) {
-                    deletedPlots.put(worldName, new HashSet<>(deleted));
-                }
-
-                world.clearChanges();
+    private boolean isWorkerThread() {
+        for (Shard shard : shards.values()) {
+            if (shard.worker().isCurrentThread()) {
+                return true;
             }
         }
+        return false;
+    }
 
-        if (!hasChanges) {
-            return null;
-        }
-
-        // Create full snapshot for non-incremental storage backends
-        if (!storage.supportsIncrementalSave()) {
-            fullSnapshot = snapshotPlots();
-        }
+    private void markDirty() {
+        // No-op: changes are now tracked per-PlotWorld
+    }
 
-        return new PlotChanges(dirtyPlots, deletedPlots, fullSnapshot);
+    private <T> T runOnWorldThread(PlotWorld world, Callable<T> action) {
+        return runOnWorldThread(world, PlotTaskLane.INTERACTIVE, action);
     }
 
-    private <T> T runOnPlotThread(Callable<T> action) {
-        if (isPlotThread()) {
+    private <T> T runOnWorldThread(PlotWorld world, PlotTaskLane lane, Callable<T> action) {
+        if (world == null || isWorldThread(world)) {
             try {
                 return action.call();
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
             }
         }
-        CompletableFuture<T> future = new CompletableFuture<>();
-        enqueue(() -> {
+        return await(supplyOnWorldThread(world, lane, action));
+    }
+
+    /**
+     * Runs a caller's action in the interactive lane. The returned future fails with {@link TimeoutException} if the
+     * action has not finished within the caller timeout; the action itself still runs once the worker gets to it.
+     */
+    private <T> CompletableFuture<T> supplyOnWorldThread(PlotWorld world, Callable<T> action) {
+        return withCallerTimeout(supplyOnWorldThread(world, PlotTaskLane.INTERACTIVE, action));
+    }
+
+    /**
+     * Returns a view of the future that gives up after the caller timeout; the future itself is left alone.
+     */
+    public <T> CompletableFuture<T> withCallerTimeout(CompletableFuture<T> future) {
+        return callerTimeoutMillis > 0 ? future.copy().orTimeout(callerTimeoutMillis, TimeUnit.MILLISECONDS) : future;
+    }
+
+    /**
+     * Waits for a task on behalf of a blocking caller, giving up after the caller timeout with a
+     * {@link java.util.concurrent.CompletionException} caused by {@link TimeoutException}.
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        return withCallerTimeout(future).join();
+    }
+
+    /**
+     * Runs the action in the given lane of the world's worker without waiting for it. On that worker itself, or for a
+     * null world (which every action rejects up front), the action runs inline and the returned future is already
+     * complete. A full lane fails the future with {@link RejectedExecutionException}.
+     *
+     * @throws IllegalStateException if the plot service is not running
+     */
+    private <T> CompletableFuture<T> supplyOnWorldThread(PlotWorld world, PlotTaskLane lane, Callable<T> action) {
+        if (world == null) {
             try {
-                future.complete(action.call());
+                return CompletableFuture.completedFuture(action.call());
             } catch (Throwable ex) {
-                future.completeExceptionally(ex);
+                return CompletableFuture.failedFuture(ex);
             }
-        });
-        return future.join();
+        }
+        ensureRunning();
+        return shard(world).worker().supply(lane, action);
     }
 
-    private void submitAsync(Runnable action) {
-        if (isPlotThread()) {
+    /**
+     * Queues follow-up work of an admitted task in the maintenance lane of a world's worker, behind player commands
+     * but past the lane bound so it cannot be lost halfway. Runs inline when already on that worker. Silently dropped
+     * once the service stopped.
+     */
+    private void submitToWorldThread(PlotWorld world, Runnable action) {
+        PlotWorker worker = shard(world).worker();
+        if (worker.isCurrentThread()) {
             action.run();
             return;
         }
@@ -218,29 +273,72 @@ public final class PlotService {
             return;
         }
         try {
-            taskQueue.put(() -> {
+            worker.post(PlotTaskLane.MAINTENANCE, () -> {
                 try {
                     action.run();
                 } catch (Throwable ex) {
                     logger.error("Plot service task failed.", ex);
                 }
             });
+        } catch (IllegalStateException ex) {
+            // Shutting down; the change is lost together with the rest of the queue.
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to hand a plot task to {}.", worker.name(), ex);
+        }
+    }
+
+    /**
+     * Runs the action on the world's worker once the batch it lands in has finished, at most once per key and batch.
+     * Meant for idempotent follow-ups that read the state at run time, so a burst of tasks asking for the same one
+     * triggers it a single time.
+     */
+    private void deferOnWorldThread(PlotWorld world, Object key, Runnable action) {
+        PlotWorker worker = shard(world).worker();
+        submitToWorldThread(world, () -> worker.deferToBatchEnd(key, action));
+    }
+
+    /**
+     * Parks every world worker behind a barrier and runs the action on the calling thread meanwhile, for the few
+     * operations that replace the state of all worlds at once. The workers park from the maintenance lane, so player
+     * commands already queued go first.
+     */
+    private void runExclusive(Runnable action) {
+        ensureRunning();
+        if (isWorkerThread()) {
+            throw new IllegalStateException("Plot workers cannot be paused from a plot worker.");
+        }
+        CountDownLatch parked = new CountDownLatch(shards.size());
+        CountDownLatch released = new CountDownLatch(1);
+        try {
+            for (Shard shard : shards.values()) {
+                shard.worker().post(PlotTaskLane.MAINTENANCE, () -> {
+                    parked.countDown();
+                    try {
+                        released.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            parked.await();
+            action.run();
         } catch (InterruptedException ex) {
             Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while pausing plot workers.", ex);
+        } finally {
+            released.countDown();
         }
     }
 
     public void load() {
-        runOnPlotThread(() -> {
-            loadInternal();
-            return null;
-        });
+        runExclusive(this::loadInternal);
     }
 
     private void loadInternal() {
         Map<String, Map<PlotId, Plot>> stored = storage.load();
         worlds.clear();
         homeByOwner.clear();
+        plotsByOwner.clear();
         boolean changed = false;
 
         for (Map.Entry<String, PlotWorldConfig> entry : config.worlds().entrySet()) {
@@ -254,6 +352,7 @@ public final class PlotService {
                 }
             }
 
+            attachToWorker(world);
             worlds.put(entry.getKey(), world);
         }
 
@@ -261,6 +360,8 @@ public final class PlotService {
             changed = true;
         }
 
+        dimensionLookup.clear();
+
         if (!stored.isEmpty() && worlds.isEmpty()) {
             logger.warn("Plot data exists but no plot worlds are configured.");
         }
@@ -269,30 +370,107 @@ public final class PlotService {
         }
     }
 
+    /**
+     * Hooks a world up to its worker. Snapshots are published once per batch rather than after every write, so
+     * readers see whole operations and a burst of writes costs one publication; writes outside the worker (loading,
+     * with every worker parked) still publish right away. The bookkeeping of settings changes made from other
+     * threads is posted to the worker's maintenance lane; it is order-independent, so player commands may overtake it.
+     * Once the worker stopped the change is rejected, since the shutdown thread owns the world then.
+     */
+    private void attachToWorker(PlotWorld world) {
+        PlotWorker worker = shard(world).worker();
+        world.setPublishScheduler(publish -> {
+            if (worker.isCurrentThread()) {
+                worker.deferToBatchEnd(world, publish);
+            } else {
+                publish.run();
+            }
+        });
+        world.setWriterExecutor(task -> {
+            if (worker.isCurrentThread()) {
+                task.run();
+                return;
+            }
+            try {
+                worker.post(PlotTaskLane.MAINTENANCE, task);
+            } catch (IllegalStateException ex) {
+                throw new RejectedExecutionException("Plot worker " + worker.name() + " is not running.", ex);
+            }
+        });
+    }
+
+    /**
+     * Saves every journaled change and waits until all worlds are written. Worlds are saved in parallel; how many
+     * write at once is up to the storage. Does not wait for the plot workers.
+     */
     public void save() {
-        PlotChanges changes = runOnPlotThread(this::collectChanges);
-        if (changes == null) {
-            return;
-        }
-        saveBlocking(changes);
+        saveAll();
     }
 
+    /**
+     * Saves the journaled changes of every world with pending changes in the background, each world on its own;
+     * requests made while a world's save runs are folded into one more.
+     */
     public void requestSave() {
-        submitAsync(() -> {
-            PlotChanges changes = collectChanges();
-            if (changes == null) {
-                return;
+        if (!running.get()) {
+            return;
+        }
+        for (Map.Entry<String, Shard> entry : shards.entrySet()) {
+            PlotWorld world = worlds.get(entry.getKey());
+            if (world == null || world.pendingChanges() == 0) {
+                continue;
             }
-            enqueueSave(changes);
-        });
+            String worldName = entry.getKey();
+            SaveState save = entry.getValue().save();
+            save.requested.set(true);
+            if (save.inFlight.compareAndSet(false, true)) {
+                saveExecutor.execute(() -> runSaveLoop(worldName, save));
+            }
+        }
+    }
+
+    /**
+     * Starts a background save if the pending changes call for one. Called by the plugin once per server tick.
+     */
+    public void tickAutoSave() {
+        if (autoSaver == null || !running.get()) {
+            return;
+        }
+        int dirtyPlots = 0;
+        int journaled = 0;
+        for (PlotWorld world : worlds.values()) {
+            dirtyPlots += world.dirtyPlotCount();
+            journaled += world.pendingChanges();
+        }
+        if (autoSaver.tick(System.nanoTime(), dirtyPlots, journaled) != null) {
+            requestSave();
+        }
     }
 
     public int worldCount() {
         return worlds.size();
     }
 
+    /**
+     * Returns the current depth and wait-time counters of every lane of every world's worker.
+     */
+    public List<PlotQueueStats> getQueueStats() {
+        List<PlotQueueStats> stats = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            stats.addAll(shard.worker().stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns what triggered the auto-saves so far, or null while auto-save is disabled.
+     */
+    public PlotAutoSaveStats getAutoSaveStats() {
+        return autoSaver != null ? autoSaver.stats() : null;
+    }
+
     public PlotWorld getPlotWorld(Dimension dimension) {
-        return getPlotWorld(dimension.getWorld().getName());
+        return dimensionLookup.get(dimension);
     }
 
     public PlotWorld getPlotWorld(String worldName) {
@@ -320,6 +498,25 @@ public final class PlotService {
         return new PlotLocation(world, id);
     }
 
+    /**
+     * Resolves many block columns of one dimension at once, writing the packed plot key or {@link PlotWorld#ROAD}
+     * for each of the first {@code count} positions into {@code out}. Meant for multi-block events such as
+     * explosions, where resolving every block through {@link #resolvePlot(Dimension, int, int)} adds up.
+     *
+     * @return the snapshot the keys were resolved against, for looking up their plots consistently, or null (with
+     * {@code out} filled with road) if the dimension is not a plot world
+     */
+    public PlotWorldSnapshot resolvePlotKeys(Dimension dimension, int[] xs, int[] zs, int count, long[] out) {
+        PlotWorld world = getPlotWorld(dimension);
+        if (world == null) {
+            Arrays.fill(out, 0, count, PlotWorld.ROAD);
+            return null;
+        }
+        PlotWorldSnapshot snapshot = world.snapshot();
+        snapshot.getPlotKeysAt(xs, zs, count, out);
+        return snapshot;
+    }
+
     public PlotLocation resolvePlot(Dimension dimension, PlotId plotId) {
         PlotWorld world = getPlotWorld(dimension);
         if (world == null) return null;
@@ -331,9 +528,25 @@ public final class PlotService {
         SUCCESS,
         ALREADY_CLAIMED,
         TOO_MANY,
+        NO_FREE_PLOT,
         FAILED
     }
 
+    /**
+     * Result of a claim together with the plot it was made for; the id is null when no plot was picked.
+     */
+    public record ClaimOutcome(ClaimResult result, PlotId id) {
+    }
+
+    private record AutoClaimRequest(
+            PlotWorld world,
+            UUID owner,
+            String ownerName,
+            int maxPlots,
+            CompletableFuture<ClaimOutcome> future
+    ) {
+    }
+
     public enum OwnerActionResult {
         SUCCESS,
         UNCLAIMED,
@@ -349,7 +562,26 @@ public final class PlotService {
     }
 
     public ClaimResult claimPlot(PlotWorld world, PlotId id, UUID owner, String ownerName, int maxPlots) {
-        return runOnPlotThread(() -> claimPlotInternal(world, id, owner, ownerName, maxPlots));
+        return runOnWorldThread(world, () -> claimPlotInternal(world, id, owner, ownerName, maxPlots));
+    }
+
+    /**
+     * Claims the plot on the world's thread. Unlike the other async mutations the future is not bound by the caller
+     * timeout: it completes once the claim actually ran, or fails with {@link RejectedExecutionException} if it never
+     * will, so callers that took payment for the claim can settle it on the real outcome. Wait on it through
+     * {@link #withCallerTimeout(CompletableFuture)}.
+     *
+     * @throws IllegalStateException if the plot service is not running; the claim never runs then
+     */
+    public CompletableFuture<ClaimResult> claimPlotAsync(
+            PlotWorld world,
+            PlotId id,
+            UUID owner,
+            String ownerName,
+            int maxPlots
+    ) {
+        return supplyOnWorldThread(world, PlotTaskLane.INTERACTIVE,
+                () -> claimPlotInternal(world, id, owner, ownerName, maxPlots));
     }
 
     private ClaimResult claimPlotInternal(PlotWorld world, PlotId id, UUID owner, String ownerName, int maxPlots) {
@@ -360,26 +592,112 @@ public final class PlotService {
         if (existing != null && existing.isClaimed()) {
             return ClaimResult.ALREADY_CLAIMED;
         }
-        if (maxPlots > 0 && world.countOwnedPlots(owner) >= maxPlots) {
+        if (maxPlots > 0 && countOwnedPlots(world, owner) >= maxPlots) {
             return ClaimResult.TOO_MANY;
         }
         claimPlotUnchecked(world, id, owner, ownerName);
         return ClaimResult.SUCCESS;
     }
 
-    private Plot claimPlotUnchecked(PlotWorld world, PlotId id, UUID owner, String ownerName) {
+    /**
+     * Picks the free plot nearest to the origin and claims it in one step on the world's thread, so concurrent callers
+     * can never race for the same cell. Requests queued while the thread is busy are drained together in one pass,
+     * each receiving a distinct plot.
+     */
+    public ClaimOutcome claimNextFreePlot(PlotWorld world, UUID owner, String ownerName, int maxPlots) {
+        if (world == null || isWorldThread(world)) {
+            return claimNextFreePlotInternal(world, owner, ownerName, maxPlots);
+        }
+        return await(claimNextFreePlotAsync(world, owner, ownerName, maxPlots));
+    }
+
+    /**
+     * Asynchronous {@link #claimNextFreePlot}. Like {@link #claimPlotAsync} the future is not bound by the caller
+     * timeout and fails with {@link RejectedExecutionException} only if the claim never runs.
+     *
+     * @throws IllegalStateException if the plot service is not running; the claim never runs then
+     */
+    public CompletableFuture<ClaimOutcome> claimNextFreePlotAsync(
+            PlotWorld world,
+            UUID owner,
+            String ownerName,
+            int maxPlots
+    ) {
+        if (world == null || isWorldThread(world)) {
+            return supplyOnWorldThread(world, PlotTaskLane.INTERACTIVE,
+                    () -> claimNextFreePlotInternal(world, owner, ownerName, maxPlots));
+        }
+        ensureRunning();
+        Shard shard = shard(world);
+        // Batched requests bypass the lane queue, so they are held to the same bound.
+        if (shard.autoClaims().size() >= queueLimits.capacity(PlotTaskLane.INTERACTIVE)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Too many pending auto claims in " + world.getConfig().worldName() + "."));
+        }
+        AutoClaimRequest request = new AutoClaimRequest(world, owner, ownerName, maxPlots, new CompletableFuture<>());
+        shard.autoClaims().add(request);
+        if (shard.autoClaimScheduled().compareAndSet(false, true)) {
+            try {
+                shard.worker().execute(PlotTaskLane.INTERACTIVE, () -> drainAutoClaims(shard));
+            } catch (RuntimeException ex) {
+                shard.autoClaimScheduled().set(false);
+                // A drain still running may already have taken the request; then it completes the future.
+                if (shard.autoClaims().remove(request)) {
+                    if (ex instanceof RejectedExecutionException) {
+                        return CompletableFuture.failedFuture(ex);
+                    }
+                    throw ex;
+                }
+            }
+        }
+        return request.future();
+    }
+
+    private void drainAutoClaims(Shard shard) {
+        // Cleared before polling: a request added after the last poll schedules a fresh drain.
+        shard.autoClaimScheduled().set(false);
+        AutoClaimRequest request;
+        while ((request = shard.autoClaims().poll()) != null) {
+            try {
+                request.future().complete(claimNextFreePlotInternal(
+                        request.world(),
+                        request.owner(),
+                        request.ownerName(),
+                        request.maxPlots()
+                ));
+            } catch (Throwable ex) {
+                request.future().completeExceptionally(ex);
+            }
+        }
+    }
+
+    private ClaimOutcome claimNextFreePlotInternal(PlotWorld world, UUID owner, String ownerName, int maxPlots) {
+        if (world == null || owner == null) {
+            return new ClaimOutcome(ClaimResult.FAILED, null);
+        }
+        if (maxPlots > 0 && countOwnedPlots(world, owner) >= maxPlots) {
+            return new ClaimOutcome(ClaimResult.TOO_MANY, null);
+        }
+        PlotId id = world.findNextFreePlotId();
+        if (id == null) {
+            return new ClaimOutcome(ClaimResult.NO_FREE_PLOT, null);
+        }
+        claimPlotUnchecked(world, id, owner, ownerName);
+        return new ClaimOutcome(ClaimResult.SUCCESS, id);
+    }
+
+    private void claimPlotUnchecked(PlotWorld world, PlotId id, UUID owner, String ownerName) {
         Plot plot = world.claimPlot(id, owner, ownerName);
 
         PlotLocation loc = new PlotLocation(world, id);
+        indexOwnedPlot(owner, loc);
         if (plot.isHome()) {
-            homeByOwner.put(owner, loc);
-        } else if (!homeByOwner.containsKey(owner)) {
-            plot = plot.withHome(true);
-            world.putPlot(id, plot);
-            homeByOwner.put(owner, loc);
+            moveHome(owner, loc);
+        } else if (homeByOwner.putIfAbsent(owner, loc) == null) {
+            // The flag follows the pointer like on every other home path, in case a home move races in meanwhile.
+            reconcileHomeFlag(owner, loc);
         }
         markDirty();
-        return plot;
     }
 
     private record OwnerCheck(OwnerActionResult result, Plot plot) {}
@@ -399,7 +717,16 @@ public final class PlotService {
     }
 
     public OwnerActionResult deletePlot(PlotWorld world, PlotId id, UUID requester, boolean bypassOwner) {
-        return runOnPlotThread(() -> deletePlotInternal(world, id, requester, bypassOwner));
+        return runOnWorldThread(world, () -> deletePlotInternal(world, id, requester, bypassOwner));
+    }
+
+    public CompletableFuture<OwnerActionResult> deletePlotAsync(
+            PlotWorld world,
+            PlotId id,
+            UUID requester,
+            boolean bypassOwner
+    ) {
+        return supplyOnWorldThread(world, () -> deletePlotInternal(world, id, requester, bypassOwner));
     }
 
     private OwnerActionResult deletePlotInternal(PlotWorld world, PlotId id, UUID requester, boolean bypassOwner) {
@@ -423,24 +750,35 @@ public final class PlotService {
         world.removePlot(id);
         markDirty();
         for (PlotMergeDirection direction : mergedDirections) {
-            updateMergeRoadsInternal(world, id, direction);
+            queueRoadUpdate(world, id, direction);
         }
 
         if (removed != null && removed.getOwner() != null) {
             UUID owner = removed.getOwner();
-            PlotLocation homeLoc = homeByOwner.get(owner);
-
-            boolean affectsHome = removed.isHome()
-                    || (homeLoc != null && homeLoc.world() == world && homeLoc.id().equals(id));
-
-            if (affectsHome && recomputeOwnerIndexes(owner)) {
-                markDirty();
-            }
+            PlotLocation loc = new PlotLocation(world, id);
+            unindexOwnedPlot(owner, loc);
+            replaceHome(owner, loc);
         }
     }
 
     public int countOwnedPlots(PlotWorld world, UUID owner) {
-        return world.countOwnedPlots(owner);
+        Set<PlotLocation> owned = plotsByOwner.get(owner);
+        if (owned == null) {
+            return 0;
+        }
+        int count = 0;
+        for (PlotLocation loc : owned) {
+            if (loc.world() == world) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a snapshot of every plot the player owns, across all plot worlds.
+     */
+    public Set<PlotLocation> getOwnedPlots(UUID owner) {
+        Set<PlotLocation> owned = plotsByOwner.get(owner);
+        return owned != null ? Set.copyOf(owned) : Set.of();
     }
 
     public PlotId findNextFreePlotId(PlotWorld world) {
@@ -452,7 +790,11 @@ public final class PlotService {
     }
 
     public OwnerActionResult setHomePlot(UUID owner, PlotWorld world, PlotId id) {
-        return runOnPlotThread(() -> setHomePlotInternal(owner, world, id));
+        return runOnWorldThread(world, () -> setHomePlotInternal(owner, world, id));
+    }
+
+    public CompletableFuture<OwnerActionResult> setHomePlotAsync(UUID owner, PlotWorld world, PlotId id) {
+        return supplyOnWorldThread(world, () -> setHomePlotInternal(owner, world, id));
     }
 
     private OwnerActionResult setHomePlotInternal(UUID owner, PlotWorld world, PlotId id) {
@@ -460,34 +802,7 @@ public final class PlotService {
         if (check.result != OwnerActionResult.SUCCESS) {
             return check.result;
         }
-        Plot plot = check.plot;
-        boolean changed = false;
-
-        PlotLocation oldHome = homeByOwner.get(owner);
-        if (oldHome != null) {
-            if (!(oldHome.world() == world && oldHome.id().equals(id))) {
-                Plot oldPlot = oldHome.plot();
-                if (oldPlot != null && oldPlot.isOwner(owner) && oldPlot.isHome()) {
-                    Plot updated = oldPlot.withHome(false);
-                    if (updated != oldPlot) {
-                        oldHome.world().putPlot(oldHome.id(), updated);
-                        changed = true;
-                    }
-                }
-            }
-        }
-
-        Plot updated = plot.withHome(true);
-        if (updated != plot) {
-            world.putPlot(id, updated);
-            changed = true;
-        }
-        PlotLocation newHome = new PlotLocation(world, id);
-        homeByOwner.put(owner, newHome);
-
-        if (changed) {
-            markDirty();
-        }
+        moveHome(owner, new PlotLocation(world, id));
         return OwnerActionResult.SUCCESS;
     }
 
@@ -499,7 +814,18 @@ public final class PlotService {
             UUID newOwner,
             String newOwnerName
     ) {
-        return runOnPlotThread(() -> setPlotOwnerInternal(world, id, requester, bypassOwner, newOwner, newOwnerName));
+        return runOnWorldThread(world, () -> setPlotOwnerInternal(world, id, requester, bypassOwner, newOwner, newOwnerName));
+    }
+
+    public CompletableFuture<OwnerActionResult> setPlotOwnerAsync(
+            PlotWorld world,
+            PlotId id,
+            UUID requester,
+            boolean bypassOwner,
+            UUID newOwner,
+            String newOwnerName
+    ) {
+        return supplyOnWorldThread(world, () -> setPlotOwnerInternal(world, id, requester, bypassOwner, newOwner, newOwnerName));
     }
 
     private OwnerActionResult setPlotOwnerInternal(
@@ -526,84 +852,109 @@ public final class PlotService {
 
         UUID oldOwner = plot.getOwner();
         if (oldOwner != null && oldOwner.equals(newOwner)) {
-            Plot updated = plot.withOwner(newOwner, newOwnerName);
-            if (updated != plot) {
-                world.putPlot(id, updated);
-                markDirty();
-            }
+            world.updatePlot(id, current -> current.withOwner(newOwner, newOwnerName));
+            markDirty();
             return true;
         }
 
         Set<PlotMergeDirection> mergedDirections = Set.copyOf(plot.getMergedDirections());
         world.clearMergedConnections(id);
-        plot = plot.withOwner(newOwner, newOwnerName);
-        world.putPlot(id, plot);
+        world.updatePlot(id, current -> current.withOwner(newOwner, newOwnerName));
 
+        PlotLocation loc = new PlotLocation(world, id);
+        if (newOwner != null) {
+            indexOwnedPlot(newOwner, loc);
+        }
         if (oldOwner != null) {
-            recomputeOwnerIndexes(oldOwner);
+            unindexOwnedPlot(oldOwner, loc);
+            replaceHome(oldOwner, loc);
         }
 
-        if (newOwner != null && !homeByOwner.containsKey(newOwner)) {
-            Plot updated = plot.withHome(true);
-            if (updated != plot) {
-                plot = updated;
-                world.putPlot(id, plot);
-            }
-            homeByOwner.put(newOwner, new PlotLocation(world, id));
+        if (newOwner != null) {
+            homeByOwner.putIfAbsent(newOwner, loc);
+            reconcileHomeFlag(newOwner, loc);
         }
 
         for (PlotMergeDirection direction : mergedDirections) {
-            updateMergeRoadsInternal(world, id, direction);
+            queueRoadUpdate(world, id, direction);
         }
         markDirty();
         return true;
     }
 
-    private void enqueueSave(PlotChanges changes) {
-        pendingSave.set(changes);
-        if (saveInFlight.compareAndSet(false, true)) {
-            saveExecutor.execute(this::runSaveLoop);
-        }
-    }
-
-    private void runSaveLoop() {
+    private void runSaveLoop(String worldName, SaveState save) {
         try {
-            while (true) {
-                PlotChanges changes = pendingSave.getAndSet(null);
-                if (changes == null) {
-                    break;
-                }
+            while (save.requested.getAndSet(false)) {
                 try {
-                    saveBlocking(changes);
+                    saveWorld(worldName);
                 } catch (Throwable ex) {
-                    logger.error("Failed to save plot data.", ex);
+                    logger.error("Failed to save plot data of world {}.", worldName, ex);
                 }
             }
         } finally {
-            saveInFlight.set(false);
-            if (pendingSave.get() != null && saveInFlight.compareAndSet(false, true)) {
-                saveExecutor.execute(this::runSaveLoop);
+            save.inFlight.set(false);
+            if (save.requested.get() && save.inFlight.compareAndSet(false, true)) {
+                saveExecutor.execute(() -> runSaveLoop(worldName, save));
             }
         }
     }
 
-    private void saveBlocking(PlotChanges changes) {
-        synchronized (saveLock) {
-            if (storage.supportsIncrementalSave()) {
-                storage.saveIncremental(changes.dirtyPlots(), changes.deletedPlots());
-            } else {
-                // Fall back to full save for non-incremental storage (e.g., YAML)
-                storage.save(changes.fullSnapshot());
+    /**
+     * Saves every world in parallel and waits for all of them. The first failure is rethrown once all are done.
+     */
+    private void saveAll() {
+        Map<String, CompletableFuture<Void>> saves = new HashMap<>();
+        for (String worldName : shards.keySet()) {
+            CompletableFuture<Void> save;
+            try {
+                save = CompletableFuture.runAsync(() -> saveWorld(worldName), saveExecutor);
+            } catch (RejectedExecutionException ex) {
+                save = CompletableFuture.runAsync(() -> saveWorld(worldName), Runnable::run);
             }
+            saves.put(worldName, save);
+        }
+        RuntimeException failure = null;
+        for (Map.Entry<String, CompletableFuture<Void>> entry : saves.entrySet()) {
+            try {
+                entry.getValue().join();
+            } catch (CompletionException ex) {
+                RuntimeException cause = ex.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException("Failed to save plot world " + entry.getKey() + ".", ex.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
-    private Map<String, Map<PlotId, Plot>> snapshotPlots() {
-        Map<String, Map<PlotId, Plot>> snapshot = new HashMap<>(worlds.size());
-        for (Map.Entry<String, PlotWorld> entry : worlds.entrySet()) {
-            snapshot.put(entry.getKey(), new HashMap<>(entry.getValue().getPlots()));
+    /**
+     * Drains one world's journal and hands the changes to the storage. Changes that fail to save go back into the
+     * journal for the next attempt.
+     */
+    private void saveWorld(String worldName) {
+        Shard shard = shards.get(worldName);
+        synchronized (shard.save().lock) {
+            PlotWorld world = worlds.get(worldName);
+            if (world == null) {
+                return;
+            }
+            List<PlotChange> changes = world.drainChanges();
+            if (changes.isEmpty()) {
+                return;
+            }
+            try {
+                storage.saveChanges(changes);
+            } catch (RuntimeException ex) {
+                world.requeueChanges(changes);
+                throw ex;
+            }
         }
-        return snapshot;
     }
 
     public OwnerActionResult updateMergeGroupOwned(
@@ -613,24 +964,136 @@ public final class PlotService {
             boolean bypassOwner,
             UnaryOperator<Plot> updater
     ) {
-        return runOnPlotThread(() -> {
+        return runOnWorldThread(world, () -> updateMergeGroupOwnedInternal(world, id, requester, bypassOwner, updater));
+    }
+
+    public CompletableFuture<OwnerActionResult> updateMergeGroupOwnedAsync(
+            PlotWorld world,
+            PlotId id,
+            UUID requester,
+            boolean bypassOwner,
+            UnaryOperator<Plot> updater
+    ) {
+        return supplyOnWorldThread(world, () -> updateMergeGroupOwnedInternal(world, id, requester, bypassOwner, updater));
+    }
+
+    private OwnerActionResult updateMergeGroupOwnedInternal(
+            PlotWorld world,
+            PlotId id,
+            UUID requester,
+            boolean bypassOwner,
+            UnaryOperator<Plot> updater
+    ) {
+        OwnerCheck check = checkOwnedPlot(world, id, requester, bypassOwner);
+        if (check.result != OwnerActionResult.SUCCESS) {
+            return check.result;
+        }
+        UUID baseOwner = check.plot.getOwner();
+        updateMergeGroupInternal(world, id, plot -> {
+            if (!Objects.equals(plot.getOwner(), baseOwner)) {
+                return plot;
+            }
+            return updater.apply(plot);
+        });
+        return OwnerActionResult.SUCCESS;
+    }
+
+    /**
+     * Applies a settings-only change (trusted, denied, flags) to the plot's merge group right on the calling thread.
+     * Each plot is swapped in with {@link PlotWorld#compareAndSetSettings(PlotId, long, Plot)} and recomputed from
+     * the fresh value on conflict, so unlike {@link #updateMergeGroupOwned} this never waits for the world's worker.
+     * Plots that changed owner in the meantime are skipped. The merge group is taken from the world's latest snapshot,
+     * since the worker may be changing the live one.
+     *
+     * @throws IllegalArgumentException   if the updater changes more than the plot's settings
+     * @throws IllegalStateException      if the plot service is not running
+     * @throws RejectedExecutionException if the world's worker stopped anyway; the plot being written is left alone
+     */
+    public OwnerActionResult updatePlotSettings(
+            PlotWorld world,
+            PlotId id,
+            UUID requester,
+            boolean bypassOwner,
+            UnaryOperator<Plot> updater
+    ) {
+        settingsWriters.readLock().lock();
+        try {
+            ensureRunning();
             OwnerCheck check = checkOwnedPlot(world, id, requester, bypassOwner);
             if (check.result != OwnerActionResult.SUCCESS) {
                 return check.result;
             }
             UUID baseOwner = check.plot.getOwner();
-            updateMergeGroupInternal(world, id, plot -> {
-                if (!Objects.equals(plot.getOwner(), baseOwner)) {
-                    return plot;
+            Set<PlotId> group = world.snapshot().getMergeGroup(id);
+            // A claim not published yet has no group in the snapshot; the plot itself is still updated.
+            for (PlotId plotId : group.isEmpty() ? Set.of(id) : group) {
+                while (true) {
+                    Plot plot = world.getPlot(plotId);
+                    if (plot == null || !Objects.equals(plot.getOwner(), baseOwner)) break;
+                    Plot updated = updater.apply(plot);
+                    if (updated == plot || world.compareAndSetSettings(plotId, plot.getVersion(), updated)) break;
                 }
-                return updater.apply(plot);
-            });
+            }
             return OwnerActionResult.SUCCESS;
+        } finally {
+            settingsWriters.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the player from every trusted and denied list in all plot worlds.
+     *
+     * @return the number of plots that changed
+     */
+    public int removeMemberships(UUID player) {
+        return await(removeMembershipsAsync(player));
+    }
+
+    /**
+     * Async variant of {@link #removeMemberships(UUID)}; every world is cleaned up on its own worker. The cleanup is
+     * background work and runs in the maintenance lane, so a full lane fails it with
+     * {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<Integer> removeMembershipsAsync(UUID player) {
+        List<CompletableFuture<Integer>> parts = new ArrayList<>(worlds.size());
+        for (PlotWorld world : worlds.values()) {
+            parts.add(withCallerTimeout(supplyOnWorldThread(world, PlotTaskLane.MAINTENANCE,
+                    () -> removeMembershipsInternal(world, player))));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            int changed = 0;
+            for (CompletableFuture<Integer> part : parts) {
+                changed += part.join();
+            }
+            return changed;
         });
     }
 
+    private int removeMembershipsInternal(PlotWorld world, UUID player) {
+        int changed = 0;
+        Set<PlotId> ids = new HashSet<>(world.getTrustedPlots(player));
+        ids.addAll(world.getDeniedPlots(player));
+        for (PlotId plotId : ids) {
+            Plot plot = world.getPlot(plotId);
+            if (plot == null || !plot.getTrusted().contains(player) && !plot.getDenied().contains(player)) continue;
+            world.updatePlot(plotId, current -> current.withTrustedRemoved(player).withDeniedRemoved(player));
+            changed++;
+        }
+        if (changed > 0) {
+            markDirty();
+        }
+        return changed;
+    }
+
     public void syncPlotSettings(PlotWorld world, PlotId id, Plot source) {
-        runOnPlotThread(() -> {
+        runOnWorldThread(world, () -> {
+            syncPlotSettingsInternal(world, id, source);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> syncPlotSettingsAsync(PlotWorld world, PlotId id, Plot source) {
+        return supplyOnWorldThread(world, () -> {
             syncPlotSettingsInternal(world, id, source);
             return null;
         });
@@ -641,9 +1104,7 @@ public final class PlotService {
         for (PlotId plotId : world.getMergeGroup(id)) {
             Plot plot = world.getPlot(plotId);
             if (plot == null) continue;
-            Plot updated = updater.apply(plot);
-            if (updated != plot) {
-                world.putPlot(plotId, updated);
+            if (world.updatePlot(plotId, updater) != plot) {
                 changed = true;
             }
         }
@@ -681,7 +1142,17 @@ public final class PlotService {
             UUID requester,
             boolean bypassOwner
     ) {
-        return runOnPlotThread(() -> mergePlotsInternal(world, plotId, direction, requester, bypassOwner));
+        return runOnWorldThread(world, () -> mergePlotsInternal(world, plotId, direction, requester, bypassOwner));
+    }
+
+    public CompletableFuture<MergeResult> mergePlotsAsync(
+            PlotWorld world,
+            PlotId plotId,
+            PlotMergeDirection direction,
+            UUID requester,
+            boolean bypassOwner
+    ) {
+        return supplyOnWorldThread(world, () -> mergePlotsInternal(world, plotId, direction, requester, bypassOwner));
     }
 
     private MergeResult mergePlotsInternal(
@@ -721,7 +1192,7 @@ public final class PlotService {
 
         Plot source = world.getPlot(plotId);
         syncPlotSettingsInternal(world, plotId, source);
-        updateMergeRoadsInternal(world, plotId, direction);
+        queueRoadUpdate(world, plotId, direction);
         return MergeResult.SUCCESS;
     }
 
@@ -732,7 +1203,17 @@ public final class PlotService {
             UUID requester,
             boolean bypassOwner
     ) {
-        return runOnPlotThread(() -> unmergePlotsInternal(world, plotId, direction, requester, bypassOwner));
+        return runOnWorldThread(world, () -> unmergePlotsInternal(world, plotId, direction, requester, bypassOwner));
+    }
+
+    public CompletableFuture<UnmergeResult> unmergePlotsAsync(
+            PlotWorld world,
+            PlotId plotId,
+            PlotMergeDirection direction,
+            UUID requester,
+            boolean bypassOwner
+    ) {
+        return supplyOnWorldThread(world, () -> unmergePlotsInternal(world, plotId, direction, requester, bypassOwner));
     }
 
     private UnmergeResult unmergePlotsInternal(
@@ -759,155 +1240,55 @@ public final class PlotService {
             return UnmergeResult.FAILED;
         }
         markDirty();
-        updateMergeRoadsInternal(world, plotId, direction);
+        queueRoadUpdate(world, plotId, direction);
         return UnmergeResult.SUCCESS;
     }
 
+    /**
+     * Rebuilds the road next to a plot edge so it matches the merge state, without waiting for it.
+     */
     public void updateMergeRoads(PlotWorld world, PlotId plotId, PlotMergeDirection direction) {
-        runOnPlotThread(() -> {
-            updateMergeRoadsInternal(world, plotId, direction);
-            return null;
-        });
-    }
-
-    private void updateMergeRoadsInternal(PlotWorld world, PlotId plotId, PlotMergeDirection direction) {
-        if (world == null || plotId == null || direction == null) return;
-
-        PlotWorldConfig cfg = world.getConfig();
-        if (cfg.roadSize() <= 0) return;
-
-        Dimension dim = resolveOverworldDimension(cfg.worldName());
-        if (dim == null) return;
-
-        var info = dim.getDimensionInfo();
-        int surfaceY = resolveSurfaceY(info.minHeight(), info.maxHeight(), cfg.groundY());
-        int topY = surfaceY + 1;
-        boolean hasTop = topY <= info.maxHeight();
-
-        PlotBounds base = world.getPlotBounds(plotId);
-        boolean merged = world.isMerged(plotId, direction);
-
-        UpdateArea area = UpdateArea.forMerge(base, cfg.roadSize(), direction);
-        loadChunks(dim, area.minX, area.maxX, area.minZ, area.maxZ);
-
-        String preset = dim.getWorldGenerator() != null ? dim.getWorldGenerator().getPreset() : "";
-        PlotSurfacePalette pal = PlotSurfacePalette.fromWorld(cfg, preset);
-
-        PlotMask mask = PlotMask.build(world, area, merged);
-
-        for (int x = area.minX; x <= area.maxX; x++) {
-            for (int z = area.minZ; z <= area.maxZ; z++) {
-                boolean plotArea = mask.isPlot(x, z);
-
-                // surface
-                dim.setBlockState(x, surfaceY, z, plotArea ? pal.plotBlock() : pal.roadBlock());
-
-                if (!hasTop) continue;
-
-                // top
-                if (plotArea) {
-                    dim.setBlockState(x, topY, z, BlockTypes.AIR.getDefaultState());
-                } else {
-                    dim.setBlockState(x, topY, z, resolveRoadTop(mask, x, z, pal));
-                }
-            }
-        }
-    }
-
-    public record PlotLocation(PlotWorld world, PlotId id) {
-        public Plot plot() {
-            return world != null ? world.getPlot(id) : null;
-        }
+        queueRoadUpdate(world, plotId, direction);
     }
 
-    private Dimension resolveOverworldDimension(String worldName) {
-        var targetWorld = Server.getInstance().getWorldPool().getWorld(worldName);
-        if (targetWorld == null) {
-            logger.warn("Plot world {} is not loaded; skipping road update.", worldName);
-            return null;
-        }
-
-        Dimension dim = targetWorld.getOverWorld();
-        if (dim == null) {
-            logger.warn("Plot world {} has no overworld dimension; skipping road update.", worldName);
-            return null;
+    /**
+     * Rebuilds the road next to a plot edge so it matches the merge state. The returned future completes once the
+     * blocks have been placed, which happens on a later server tick, so it must not be waited on from that thread.
+     */
+    public CompletableFuture<Void> updateMergeRoadsAsync(PlotWorld world, PlotId plotId, PlotMergeDirection direction) {
+        if (world == null || plotId == null || direction == null) {
+            return CompletableFuture.completedFuture(null);
         }
-        return dim;
+        return worldEditor.submit(new PlotRoadEdit(world, plotId, direction, logger));
     }
 
-    private static BlockState resolveRoadTop(PlotMask mask, int x, int z, PlotSurfacePalette pal) {
-        // N/S/E/W adjacency to plot
-        boolean plotW = mask.isPlot(x - 1, z);
-        boolean plotE = mask.isPlot(x + 1, z);
-        boolean plotN = mask.isPlot(x, z - 1);
-        boolean plotS = mask.isPlot(x, z + 1);
-
-        boolean edgeX = plotW || plotE;
-        boolean edgeZ = plotN || plotS;
-
-        if (edgeX && edgeZ) return pal.roadCornerBlock();
-        if (edgeX || edgeZ) return pal.roadEdgeBlock();
-
-        // Diagonal-only adjacency (fixes missing corner after merge/unmerge)
-        boolean plotNW = mask.isPlot(x - 1, z - 1);
-        boolean plotNE = mask.isPlot(x + 1, z - 1);
-        boolean plotSW = mask.isPlot(x - 1, z + 1);
-        boolean plotSE = mask.isPlot(x + 1, z + 1);
-
-        if (plotNW || plotNE || plotSW || plotSE) return pal.roadCornerBlock();
-
-        return BlockTypes.AIR.getDefaultState();
+    /**
+     * Places queued world edits within this tick's block budget. Called by the plugin once per server tick.
+     */
+    public void tickWorldEdits() {
+        worldEditor.tick();
     }
 
-    private void loadChunks(Dimension dimension, int minX, int maxX, int minZ, int maxZ) {
-        int minChunkX = minX >> 4;
-        int maxChunkX = maxX >> 4;
-        int minChunkZ = minZ >> 4;
-        int maxChunkZ = maxZ >> 4;
-
-        var chunkManager = dimension.getChunkManager();
-        int chunkCount = (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
-        var futures = new ArrayList<CompletableFuture<?>>(Math.max(0, chunkCount));
-
-        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
-            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
-                final int cx = chunkX;
-                final int cz = chunkZ;
-
-                try {
-                    CompletableFuture<?> f = chunkManager.getOrLoadChunk(cx, cz)
-                            .handle((chunk, ex) -> {
-                                if (ex != null) {
-                                    logger.warn("Failed to load chunk {},{} for road update.", cx, cz, ex);
-                                }
-                                return null;
-                            });
-                    futures.add(f);
-                } catch (RuntimeException ex) {
-                    logger.warn("Failed to schedule chunk load {},{} for road update.", cx, cz, ex);
-                }
-            }
-        }
-
-        if (futures.isEmpty()) {
-            return;
-        }
-        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    /**
+     * Hands the road rebuild after a merge change to the world editor once the batch has finished, so the rebuild
+     * sees the published state and changes to the same edge within one batch share a single one.
+     */
+    private void queueRoadUpdate(PlotWorld world, PlotId plotId, PlotMergeDirection direction) {
+        deferOnWorldThread(world, new RoadUpdate(plotId, direction), () -> updateMergeRoadsAsync(world, plotId, direction)
+                .whenComplete((ignored, error) -> {
+                    if (error instanceof RejectedExecutionException) {
+                        logger.warn("Dropped road update of plot {} in {}: {}", plotId, world.getConfig().worldName(),
+                                error.getMessage());
+                    }
+                }));
     }
 
-    private static int resolveSurfaceY(int minY, int maxY, int groundY) {
-        int surface = Math.min(maxY, groundY);
-        if (surface <= minY) surface = Math.min(maxY, minY + 1);
-        return surface;
+    private record RoadUpdate(PlotId plotId, PlotMergeDirection direction) {
     }
 
-    private static BlockState resolveBlockState(String id, BlockState fallback) {
-        if (id == null || id.isBlank()) return fallback;
-        try {
-            var type = Registries.BLOCKS.get(new Identifier(id));
-            return type != null ? type.getDefaultState() : fallback;
-        } catch (RuntimeException ex) {
-            return fallback;
+    public record PlotLocation(PlotWorld world, PlotId id) {
+        public Plot plot() {
+            return world != null ? world.getPlot(id) : null;
         }
     }
 
@@ -921,6 +1302,7 @@ public final class PlotService {
                 if (owner == null) continue;
 
                 PlotLocation loc = new PlotLocation(world, plot.getId());
+                indexOwnedPlot(owner, loc);
 
                 if (plot.isHome()) {
                     homeByOwner.put(owner, loc);
@@ -935,136 +1317,79 @@ public final class PlotService {
             PlotLocation loc = entry.getValue();
             Plot plot = loc.plot();
             if (plot != null && !plot.isHome()) {
-                Plot updated = plot.withHome(true);
-                if (updated != plot) {
-                    loc.world().putPlot(loc.id(), updated);
-                    changed = true;
-                }
+                loc.world().updatePlot(loc.id(), current -> current.withHome(true));
+                changed = true;
             }
             homeByOwner.put(entry.getKey(), loc);
         }
         return changed;
     }
 
-    private boolean recomputeOwnerIndexes(UUID owner) {
-        homeByOwner.remove(owner);
-
-        PlotLocation fallback = null;
-        boolean changed = false;
-
-        for (PlotWorld world : worlds.values()) {
-            for (Plot plot : world.getPlots().values()) {
-                if (!plot.isOwner(owner)) continue;
+    private void indexOwnedPlot(UUID owner, PlotLocation loc) {
+        plotsByOwner.computeIfAbsent(owner, key -> ConcurrentHashMap.newKeySet()).add(loc);
+    }
 
-                PlotLocation loc = new PlotLocation(world, plot.getId());
+    private void unindexOwnedPlot(UUID owner, PlotLocation loc) {
+        plotsByOwner.computeIfPresent(owner, (key, owned) -> {
+            owned.remove(loc);
+            return owned.isEmpty() ? null : owned;
+        });
+    }
 
-                if (plot.isHome()) {
-                    homeByOwner.put(owner, loc);
-                    return changed;
-                }
+    /**
+     * Points the owner's home at {@code loc} and brings the home flags of the new and the previous home in line, each
+     * on the thread of its own world.
+     */
+    private void moveHome(UUID owner, PlotLocation loc) {
+        PlotLocation previous = homeByOwner.put(owner, loc);
+        reconcileHomeFlag(owner, loc);
+        if (previous != null && !previous.equals(loc)) {
+            reconcileHomeFlag(owner, previous);
+        }
+    }
 
-                if (fallback == null) fallback = loc;
-            }
+    /**
+     * Re-points the owner's home after {@code lost} stopped being theirs, preferring another plot that is still
+     * flagged as home. Does nothing if the home has already moved elsewhere.
+     */
+    private void replaceHome(UUID owner, PlotLocation lost) {
+        if (!homeByOwner.remove(owner, lost)) {
+            return;
         }
+        PlotLocation fallback = null;
+        for (PlotLocation loc : plotsByOwner.getOrDefault(owner, Set.of())) {
+            Plot plot = loc.plot();
+            if (plot == null || !plot.isOwner(owner)) continue;
 
-        if (fallback != null) {
-            Plot plot = fallback.plot();
-            if (plot != null && !plot.isHome()) {
-                Plot updated = plot.withHome(true);
-                if (updated != plot) {
-                    fallback.world().putPlot(fallback.id(), updated);
-                    changed = true;
-                }
+            if (plot.isHome()) {
+                fallback = loc;
+                break;
             }
-            homeByOwner.put(owner, fallback);
+            if (fallback == null) fallback = loc;
         }
-        return changed;
-    }
-
-    private record UpdateArea(
-            int minX, int maxX, int minZ, int maxZ,
-            int stripMinX, int stripMaxX, int stripMinZ, int stripMaxZ
-    ) {
-        static UpdateArea forMerge(PlotBounds base, int roadSize, PlotMergeDirection dir) {
-            return switch (dir) {
-                case EAST -> new UpdateArea(
-                        base.maxX() + 1, base.maxX() + roadSize,
-                        base.minZ() - roadSize, base.maxZ() + roadSize,
-                        base.maxX() + 1, base.maxX() + roadSize,
-                        base.minZ(), base.maxZ()
-                );
-                case WEST -> new UpdateArea(
-                        base.minX() - roadSize, base.minX() - 1,
-                        base.minZ() - roadSize, base.maxZ() + roadSize,
-                        base.minX() - roadSize, base.minX() - 1,
-                        base.minZ(), base.maxZ()
-                );
-                case SOUTH -> new UpdateArea(
-                        base.minX() - roadSize, base.maxX() + roadSize,
-                        base.maxZ() + 1, base.maxZ() + roadSize,
-                        base.minX(), base.maxX(),
-                        base.maxZ() + 1, base.maxZ() + roadSize
-                );
-                case NORTH -> new UpdateArea(
-                        base.minX() - roadSize, base.maxX() + roadSize,
-                        base.minZ() - roadSize, base.minZ() - 1,
-                        base.minX(), base.maxX(),
-                        base.minZ() - roadSize, base.minZ() - 1
-                );
-            };
-        }
-    }
-
-    private record PlotSurfacePalette(
-            BlockState plotBlock,
-            BlockState roadBlock,
-            BlockState roadEdgeBlock,
-            BlockState roadCornerBlock
-    ) {
-        static PlotSurfacePalette fromWorld(PlotWorldConfig config, String presetString) {
-            PlotGeneratorPreset preset = (presetString == null || presetString.isBlank())
-                    ? PlotGeneratorPreset.fromConfig(config)
-                    : PlotGeneratorPreset.fromPreset(presetString);
-
-            BlockState plotBlock = resolveBlockState(preset.plotBlock(), BlockTypes.GRASS_BLOCK.getDefaultState());
-            BlockState roadBlock = resolveBlockState(preset.roadBlock(), BlockTypes.OAK_PLANKS.getDefaultState());
-            BlockState roadEdgeBlock = resolveBlockState(preset.roadEdgeBlock(), BlockTypes.SMOOTH_STONE_SLAB.getDefaultState());
-            BlockState roadCornerBlock = resolveBlockState(preset.roadCornerBlock(), BlockTypes.SMOOTH_STONE_SLAB.getDefaultState());
-
-            return new PlotSurfacePalette(plotBlock, roadBlock, roadEdgeBlock, roadCornerBlock);
+        if (fallback != null && homeByOwner.putIfAbsent(owner, fallback) == null) {
+            reconcileHomeFlag(owner, fallback);
         }
     }
 
-    private record PlotMask(int minX, int minZ, int width, int depth, boolean[] mask) {
-        static PlotMask build(PlotWorld world, UpdateArea area, boolean merged) {
-            int padMinX = area.minX - 1;
-            int padMaxX = area.maxX + 1;
-            int padMinZ = area.minZ - 1;
-            int padMaxZ = area.maxZ + 1;
-
-            int width = padMaxX - padMinX + 1;
-            int depth = padMaxZ - padMinZ + 1;
-            boolean[] mask = new boolean[width * depth];
-
-            for (int x = padMinX; x <= padMaxX; x++) {
-                for (int z = padMinZ; z <= padMaxZ; z++) {
-                    boolean inStrip = merged
-                                      && x >= area.stripMinX && x <= area.stripMaxX
-                                      && z >= area.stripMinZ && z <= area.stripMaxZ;
+    /**
+     * Sets or clears the home flag of the plot so it matches {@link #homeByOwner} at the time the task runs on the
+     * plot's world. Flags always follow the pointer, so home moves racing in from several worlds still leave exactly
+     * the current home flagged. Reconciliations of the same plot within one batch collapse into one.
+     */
+    private void reconcileHomeFlag(UUID owner, PlotLocation loc) {
+        deferOnWorldThread(loc.world(), new HomeReconcile(owner, loc), () -> {
+            Plot plot = loc.plot();
+            if (plot == null || !plot.isOwner(owner)) return;
 
-                    boolean isPlot = inStrip || world.getPlotIdAt(x, z) != null;
-                    mask[(x - padMinX) * depth + (z - padMinZ)] = isPlot;
-                }
+            boolean home = loc.equals(homeByOwner.get(owner));
+            if (plot.isHome() != home) {
+                loc.world().updatePlot(loc.id(), current -> current.isOwner(owner) ? current.withHome(home) : current);
+                markDirty();
             }
+        });
+    }
 
-            return new PlotMask(padMinX, padMinZ, width, depth, mask);
-        }
-
-        boolean isPlot(int x, int z) {
-            int dx = x - minX;
-            int dz = z - minZ;
-            if (dx < 0 || dz < 0 || dx >= width || dz >= depth) return false;
-            return mask[dx * depth + dz];
-        }
+    private record HomeReconcile(UUID owner, PlotLocation loc) {
     }
 }
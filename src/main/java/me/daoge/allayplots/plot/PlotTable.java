@@ -0,0 +1,487 @@
+package me.daoge.allayplots.plot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash table from packed cell keys (see {@link PlotId#pack(int, int)}) to plots.
+ * <p>
+ * Writes must come from a single thread (the worker of its world), except {@link #replace(long, Plot, Plot)}, which
+ * swaps the value of a live key from any thread. Reads are safe from any thread. A slot's key never changes once
+ * written, removals only clear the value and leave a tombstone behind, and rehashing publishes fresh arrays instead
+ * of touching the ones readers may still be probing. While copying, the writer freezes each old slot so a concurrent
+ * replace cannot land in an array that is about to be dropped; readers that hit a frozen slot wait for the new arrays,
+ * which only happens while the table grows.
+ * <p>
+ * Each slot also carries a small merge mask and the cached merge group of its cell, both maintained by
+ * {@link PlotWorld}, so hot-path merge checks share the probe of the plot lookup.
+ * <p>
+ * The table remembers which keys were written since the last {@link #drainTouched()}, so the world can
+ * publish only those into its next snapshot. Each slot records the drain epoch it was last touched in, and touched
+ * keys are appended to a reused array, so a write allocates nothing for this either.
+ */
+final class PlotTable {
+    // Key reserved for empty slots; a plot stored under it lives in freeKeyValue instead.
+    private static final long FREE = Long.MIN_VALUE;
+    // Value of an old slot whose plot has been copied into the arrays of a rehash in progress.
+    private static final Plot MOVED = new Plot("", new PlotId(0, 0));
+    private static final int MIN_CAPACITY = 16;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Plot[].class);
+    private static final VarHandle MASKS = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle GROUPS = MethodHandles.arrayElementVarHandle(PlotMergeGroup[].class);
+    private static final VarHandle FREE_KEY_VALUE;
+
+    static {
+        try {
+            FREE_KEY_VALUE = MethodHandles.lookup().findVarHandle(PlotTable.class, "freeKeyValue", Plot.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    // touchedIn holds the drain epoch each slot was last touched in; only the writer uses it.
+    private record Slots(long[] keys, Plot[] values, byte[] masks, PlotMergeGroup[] groups, int[] touchedIn) {
+        static Slots allocate(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, FREE);
+            return new Slots(keys, new Plot[capacity], new byte[capacity], new PlotMergeGroup[capacity],
+                    new int[capacity]);
+        }
+    }
+
+    private volatile Slots slots = Slots.allocate(MIN_CAPACITY);
+    private volatile Plot freeKeyValue;
+    private volatile byte freeKeyMask;
+    private volatile PlotMergeGroup freeKeyGroup;
+    private volatile int size;
+    // Occupied slots including tombstones; only touched by the writer.
+    private int used;
+    // Keys written since the last drain, in touchedKeys[0, touchedCount); only touched by the writer.
+    private long[] touchedKeys = new long[MIN_CAPACITY];
+    private int touchedCount;
+    // Current drain epoch; slots stamped with it are already in touchedKeys. Zero means never touched.
+    private int epoch = 1;
+    private boolean freeKeyTouched;
+
+    private final Map<PlotId, Plot> view = new MapView();
+
+    int size() {
+        return size;
+    }
+
+    Plot get(long key) {
+        if (key == FREE) {
+            return freeKeyValue;
+        }
+        while (true) {
+            Slots s = slots;
+            int i = find(s, key);
+            if (i < 0) {
+                return null;
+            }
+            Plot value = (Plot) VALUES.getAcquire(s.values(), i);
+            if (value != MOVED) {
+                return value;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the merge mask stored for a live key, or 0 when the key is absent.
+     */
+    int getMask(long key) {
+        if (key == FREE) {
+            return freeKeyValue != null ? freeKeyMask : 0;
+        }
+        Slots s = slots;
+        int i = find(s, key);
+        return i >= 0 ? (byte) MASKS.getAcquire(s.masks(), i) : 0;
+    }
+
+    /**
+     * Stores the merge mask for a live key; ignored when the key is absent.
+     */
+    void setMask(long key, int value) {
+        if (key == FREE) {
+            if (freeKeyValue != null) {
+                freeKeyMask = (byte) value;
+                touchFreeKey();
+            }
+            return;
+        }
+        Slots s = slots;
+        int i = find(s, key);
+        if (i >= 0 && s.values()[i] != null) {
+            MASKS.setRelease(s.masks(), i, (byte) value);
+            touchSlot(s, i);
+        }
+    }
+
+    /**
+     * Returns the merge group cached for a live key, or null when the key is absent or not merged.
+     */
+    PlotMergeGroup getGroup(long key) {
+        if (key == FREE) {
+            return freeKeyValue != null ? freeKeyGroup : null;
+        }
+        Slots s = slots;
+        int i = find(s, key);
+        return i >= 0 ? (PlotMergeGroup) GROUPS.getAcquire(s.groups(), i) : null;
+    }
+
+    /**
+     * Caches the merge group for a live key; ignored when the key is absent.
+     */
+    void setGroup(long key, PlotMergeGroup group) {
+        if (key == FREE) {
+            if (freeKeyValue != null) {
+                freeKeyGroup = group;
+                touchFreeKey();
+            }
+            return;
+        }
+        Slots s = slots;
+        int i = find(s, key);
+        if (i >= 0 && s.values()[i] != null) {
+            GROUPS.setRelease(s.groups(), i, group);
+            touchSlot(s, i);
+        }
+    }
+
+    private static int find(Slots s, long key) {
+        long[] keys = s.keys();
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (true) {
+            long k = (long) KEYS.getAcquire(keys, i);
+            if (k == key) {
+                return i;
+            }
+            if (k == FREE) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    Plot put(long key, Plot value) {
+        Objects.requireNonNull(value, "value");
+        if (key == FREE) {
+            Plot previous = (Plot) FREE_KEY_VALUE.getAndSet(this, value);
+            if (previous == null) size++;
+            touchFreeKey();
+            return previous;
+        }
+        Slots s = slots;
+        long[] keys = s.keys();
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                Plot previous = (Plot) VALUES.getAndSet(s.values(), i, value);
+                if (previous == null) size++;
+                touchSlot(s, i);
+                return previous;
+            }
+            if (k == FREE) break;
+            i = (i + 1) & mask;
+        }
+
+        if ((used + 1) * 4L > keys.length * 3L) {
+            rehash(size + 1);
+            s = slots;
+            i = insertFresh(s, key, value, (byte) 0, null, 0);
+        } else {
+            // Value first: a reader that observes the key must also observe its value.
+            VALUES.setRelease(s.values(), i, value);
+            KEYS.setRelease(keys, i, key);
+        }
+        touchSlot(s, i);
+        used++;
+        size++;
+        return null;
+    }
+
+    Plot remove(long key) {
+        if (key == FREE) {
+            Plot previous = (Plot) FREE_KEY_VALUE.getAndSet(this, (Plot) null);
+            freeKeyMask = 0;
+            freeKeyGroup = null;
+            if (previous != null) {
+                size--;
+                touchFreeKey();
+            }
+            return previous;
+        }
+        Slots s = slots;
+        long[] keys = s.keys();
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                Plot previous = (Plot) VALUES.getAndSet(s.values(), i, (Plot) null);
+                if (previous != null) {
+                    MASKS.setRelease(s.masks(), i, (byte) 0);
+                    GROUPS.setRelease(s.groups(), i, null);
+                    size--;
+                    touchSlot(s, i);
+                }
+                return previous;
+            }
+            if (k == FREE) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Replaces the value of a live key if it is still {@code expected}. Safe from any thread; the key is not recorded
+     * as touched, so the writer has to {@link #touch(long)} it afterwards.
+     *
+     * @return false if the key is absent or holds a different value
+     */
+    boolean replace(long key, Plot expected, Plot updated) {
+        Objects.requireNonNull(expected, "expected");
+        Objects.requireNonNull(updated, "updated");
+        if (key == FREE) {
+            return FREE_KEY_VALUE.compareAndSet(this, expected, updated);
+        }
+        while (true) {
+            Slots s = slots;
+            int i = find(s, key);
+            if (i < 0) {
+                return false;
+            }
+            if (VALUES.compareAndSet(s.values(), i, expected, updated)) {
+                return true;
+            }
+            if (VALUES.getAcquire(s.values(), i) != MOVED) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Records a key as written, for values swapped in through {@link #replace(long, Plot, Plot)}. Writer thread only.
+     */
+    void touch(long key) {
+        if (key == FREE) {
+            touchFreeKey();
+            return;
+        }
+        Slots s = slots;
+        int i = find(s, key);
+        if (i >= 0) {
+            touchSlot(s, i);
+        }
+    }
+
+    private void touchSlot(Slots s, int i) {
+        if (s.touchedIn()[i] != epoch) {
+            s.touchedIn()[i] = epoch;
+            addTouched(s.keys()[i]);
+        }
+    }
+
+    private void touchFreeKey() {
+        if (!freeKeyTouched) {
+            freeKeyTouched = true;
+            addTouched(FREE);
+        }
+    }
+
+    private void addTouched(long key) {
+        if (touchedCount == touchedKeys.length) {
+            touchedKeys = Arrays.copyOf(touchedKeys, touchedCount * 2);
+        }
+        touchedKeys[touchedCount++] = key;
+    }
+
+    void forEach(Consumer<Plot> action) {
+        Plot free = freeKeyValue;
+        if (free != null) action.accept(free);
+        Slots s = slots;
+        Plot[] values = s.values();
+        for (int i = 0; i < values.length; i++) {
+            Plot plot = (Plot) VALUES.getAcquire(values, i);
+            if (plot == MOVED) plot = get(s.keys()[i]);
+            if (plot != null) action.accept(plot);
+        }
+    }
+
+    /**
+     * Returns every key written since the previous call and forgets them. Writer thread only.
+     */
+    long[] drainTouched() {
+        long[] keys = Arrays.copyOf(touchedKeys, touchedCount);
+        touchedCount = 0;
+        freeKeyTouched = false;
+        // A new epoch unmarks every slot at once; on wrap-around the stamps are cleared for real.
+        if (++epoch == 0) {
+            Arrays.fill(slots.touchedIn(), 0);
+            epoch = 1;
+        }
+        return keys;
+    }
+
+    /**
+     * Read-only, weakly consistent {@link Map} view of the table.
+     */
+    Map<PlotId, Plot> asMap() {
+        return view;
+    }
+
+    private void rehash(int expected) {
+        Slots current = slots;
+        Slots fresh = Slots.allocate(capacityFor(expected));
+        int live = 0;
+        for (int i = 0; i < current.keys().length; i++) {
+            // Only the writer clears values, so a live slot stays live; freezing it catches the last replace.
+            if (current.values()[i] == null) continue;
+            Plot plot = (Plot) VALUES.getAndSet(current.values(), i, MOVED);
+            insertFresh(fresh, current.keys()[i], plot, current.masks()[i], current.groups()[i],
+                    current.touchedIn()[i]);
+            live++;
+        }
+        slots = fresh;
+        used = live;
+    }
+
+    private static int insertFresh(Slots s, long key, Plot value, byte mergeMask, PlotMergeGroup group,
+                                   int touchedIn) {
+        long[] keys = s.keys();
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        s.masks()[i] = mergeMask;
+        s.groups()[i] = group;
+        s.touchedIn()[i] = touchedIn;
+        VALUES.setRelease(s.values(), i, value);
+        KEYS.setRelease(keys, i, key);
+        return i;
+    }
+
+    private static int capacityFor(int expected) {
+        // Keep the load factor at or below 1/2 after a rehash so inserts have headroom before the next one.
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    private final class MapView extends AbstractMap<PlotId, Plot> {
+        private final Set<Map.Entry<PlotId, Plot>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<PlotId, Plot>> iterator() {
+                Iterator<Plot> plots = new PlotIterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return plots.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<PlotId, Plot> next() {
+                        Plot plot = plots.next();
+                        return Map.entry(plot.getId(), plot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PlotTable.this.size();
+            }
+        };
+
+        private final Collection<Plot> values = new AbstractCollection<>() {
+            @Override
+            public Iterator<Plot> iterator() {
+                return new PlotIterator();
+            }
+
+            @Override
+            public int size() {
+                return PlotTable.this.size();
+            }
+        };
+
+        @Override
+        public Plot get(Object key) {
+            return key instanceof PlotId id ? PlotTable.this.get(id.key()) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return PlotTable.this.size();
+        }
+
+        @Override
+        public Set<Map.Entry<PlotId, Plot>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public Collection<Plot> values() {
+            return values;
+        }
+    }
+
+    private final class PlotIterator implements Iterator<Plot> {
+        private final Slots s = slots;
+        private final Plot[] values = s.values();
+        private int index = -1;
+        private Plot next = freeKeyValue;
+
+        PlotIterator() {
+            if (next == null) advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (++index < values.length) {
+                Plot plot = (Plot) VALUES.getAcquire(values, index);
+                if (plot == MOVED) plot = get(s.keys()[index]);
+                if (plot != null) {
+                    next = plot;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Plot next() {
+            Plot current = next;
+            if (current == null) throw new NoSuchElementException();
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package me.daoge.allayplots.plot;
+
+/**
+ * Priority lanes of a plot world's worker. A worker always serves the first non-empty lane in declaration order,
+ * so player commands never queue behind background upkeep. Saves and block edits do not use the workers at all;
+ * see {@link PlotWorld#drainChanges()} and {@link PlotWorldEditor}.
+ */
+public enum PlotTaskLane {
+    /**
+     * Player-facing mutations such as claims, merges and trust changes.
+     */
+    INTERACTIVE,
+    /**
+     * Background upkeep that must not hold up player commands: membership cleanups, home flag reconciliation across
+     * worlds, the bookkeeping of settings changes made off the worker, and pausing the workers for a reload. Only the
+     * cleanups count against the lane's capacity; follow-ups of accepted commands are never dropped.
+     */
+    MAINTENANCE
+}
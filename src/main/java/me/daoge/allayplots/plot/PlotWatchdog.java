@@ -0,0 +1,110 @@
+package me.daoge.allayplots.plot;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background check that reports plot tasks running longer than a threshold.
+ * <p>
+ * A task stuck on a chunk load or a database lock holds up every later task of its world. The watchdog polls what each
+ * worker is running and, once a task crosses the threshold, logs how long it has run and waited, the worker's stack
+ * and where the task was submitted from. Each task is reported once.
+ */
+final class PlotWatchdog {
+    /**
+     * A task that crossed the threshold.
+     */
+    record SlowTask(PlotWorker worker, PlotWorker.Task task, long runningNanos, StackTraceElement[] stack) {
+    }
+
+    private final Logger logger;
+    private final long thresholdNanos;
+    private final Collection<PlotWorker> workers;
+    // The last task reported per worker; only touched by the checking thread.
+    private final Map<PlotWorker, PlotWorker.Task> reported = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    PlotWatchdog(Logger logger, long thresholdMillis, Collection<PlotWorker> workers) {
+        this.logger = logger;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+        this.workers = List.copyOf(workers);
+    }
+
+    /**
+     * Starts polling, a few times per threshold. Does nothing if the threshold is zero.
+     */
+    synchronized void start() {
+        if (thresholdNanos <= 0 || scheduler != null) {
+            return;
+        }
+        long periodMillis = Math.max(50, TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 4);
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("AllayPlots-Watchdog").daemon().factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                check(System.nanoTime());
+            } catch (Throwable ex) {
+                logger.error("Plot watchdog check failed.", ex);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reports every task that has been running for longer than the threshold at {@code now} and was not reported yet.
+     *
+     * @return the tasks reported by this call
+     */
+    List<SlowTask> check(long now) {
+        List<SlowTask> slow = new ArrayList<>();
+        for (PlotWorker worker : workers) {
+            PlotWorker.Task task = worker.currentTask();
+            if (task == null || now - task.startedAt() < thresholdNanos || reported.get(worker) == task) {
+                continue;
+            }
+            reported.put(worker, task);
+            Thread thread = worker.thread();
+            StackTraceElement[] stack = thread != null ? thread.getStackTrace() : new StackTraceElement[0];
+            SlowTask entry = new SlowTask(worker, task, now - task.startedAt(), stack);
+            slow.add(entry);
+            log(entry);
+        }
+        return slow;
+    }
+
+    private void log(SlowTask slow) {
+        PlotWorker.Task task = slow.task();
+        StringBuilder message = new StringBuilder()
+                .append("Plot task on ").append(slow.worker().name())
+                .append(" has been running for ").append(TimeUnit.NANOSECONDS.toMillis(slow.runningNanos()))
+                .append(" ms after waiting ").append(TimeUnit.NANOSECONDS.toMillis(task.waitNanos()))
+                .append(" ms in the ").append(task.lane() != null ? task.lane() + " lane" : "batch-end queue")
+                .append("; submitted by ").append(task.submitter()).append('.');
+        if (task.origin() == null) {
+            message.append(" Enable watchdog.trace-task-origins to see where it was submitted from.");
+        }
+        message.append(System.lineSeparator()).append("Worker stack:");
+        for (StackTraceElement element : slow.stack()) {
+            message.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+        if (task.origin() != null) {
+            logger.warn(message.toString(), task.origin());
+        } else {
+            logger.warn(message.toString());
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package me.daoge.allayplots.plot;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A named platform thread draining its own prioritized task queue.
+ * <p>
+ * {@link PlotService} runs one worker per plot world and sends every write to a world through that world's worker,
+ * so worlds never wait on each other while each one still has a single writer.
+ * <p>
+ * Tasks are split into {@link PlotTaskLane lanes}, each a bounded FIFO. The worker serves the highest-priority
+ * non-empty lane, except that a lower lane whose oldest task has waited longer than {@link #STARVATION_NANOS} gets
+ * every other turn, so background work still moves under constant player load.
+ * <p>
+ * The worker takes up to {@code batchSize} tasks per lock round-trip and runs them back to back. Side effects that
+ * only need to happen once per burst are registered with {@link #deferToBatchEnd(Object, Runnable)} and run, one per
+ * key, after the batch.
+ * <p>
+ * The worker publishes the task it is running through {@link #currentTask()}, which {@link PlotWatchdog} polls to
+ * report tasks that hang. With {@link #setOriginTracing(boolean) origin tracing} on, every task also carries the stack
+ * of the code that submitted it.
+ */
+final class PlotWorker {
+    private static final long STARVATION_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Lane capacities, how long a submitter waits for room in a full lane before it is rejected, and how many tasks
+     * the worker takes per batch.
+     */
+    record Limits(
+            int interactiveCapacity,
+            int maintenanceCapacity,
+            long fullQueueWaitMillis,
+            int batchSize
+    ) {
+        static final Limits UNBOUNDED = new Limits(Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 64);
+
+        int capacity(PlotTaskLane lane) {
+            return Math.max(1, switch (lane) {
+                case INTERACTIVE -> interactiveCapacity;
+                case MAINTENANCE -> maintenanceCapacity;
+            });
+        }
+    }
+
+    /**
+     * A queued task. The worker stamps it when it starts and publishes it as {@link #currentTask()}.
+     */
+    static final class Task {
+        private final Runnable action;
+        private final PlotTaskLane lane;
+        private final long enqueuedAt;
+        private final String submitter;
+        private final Throwable origin;
+        // Written by the worker before the task is published.
+        private long startedAt;
+
+        private Task(Runnable action, PlotTaskLane lane, long enqueuedAt, String submitter, Throwable origin) {
+            this.action = action;
+            this.lane = lane;
+            this.enqueuedAt = enqueuedAt;
+            this.submitter = submitter;
+            this.origin = origin;
+        }
+
+        /**
+         * Returns the lane the task came from, or null for batch-end work.
+         */
+        PlotTaskLane lane() {
+            return lane;
+        }
+
+        /**
+         * Returns the name of the thread that submitted the task.
+         */
+        String submitter() {
+            return submitter;
+        }
+
+        /**
+         * Returns the stack of the submission, or null unless origin tracing was on.
+         */
+        Throwable origin() {
+            return origin;
+        }
+
+        /**
+         * Returns the time the task spent queued before it started.
+         */
+        long waitNanos() {
+            return startedAt - enqueuedAt;
+        }
+
+        /**
+         * Returns the {@link System#nanoTime()} at which the task started.
+         */
+        long startedAt() {
+            return startedAt;
+        }
+    }
+
+    // All fields are guarded by the worker's lock.
+    private static final class Lane {
+        private final PlotTaskLane id;
+        private final int capacity;
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private long dispatched;
+        private long rejected;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+        private long totalRunNanos;
+        private long maxRunNanos;
+
+        private Lane(PlotTaskLane id, int capacity) {
+            this.id = id;
+            this.capacity = capacity;
+        }
+    }
+
+    private final String name;
+    private final Logger logger;
+    private final long fullQueueWaitNanos;
+    private final int batchSize;
+    private final Lane[] lanes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Thread thread;
+    // Whether the last dispatch went to a starving lower lane; guarded by the lock.
+    private boolean starvationTurn;
+    // Published with release semantics only: the watchdog may see a task a little late, the worker never waits for it.
+    private final AtomicReference<Task> current = new AtomicReference<>();
+    private volatile boolean traceOrigins;
+    // Only touched by the worker thread.
+    private final Map<Object, Runnable> batchEnd = new LinkedHashMap<>();
+    // Run times of the last batch per lane, folded into the lanes on the next lock round-trip; worker thread only.
+    private final long[] batchRunNanos;
+    private final long[] batchMaxRunNanos;
+
+    PlotWorker(String name, Logger logger, Limits limits) {
+        this.name = name;
+        this.logger = logger;
+        this.fullQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, limits.fullQueueWaitMillis()));
+        this.batchSize = Math.max(1, limits.batchSize());
+
+        PlotTaskLane[] ids = PlotTaskLane.values();
+        this.lanes = new Lane[ids.length];
+        for (PlotTaskLane id : ids) {
+            lanes[id.ordinal()] = new Lane(id, limits.capacity(id));
+        }
+        this.batchRunNanos = new long[ids.length];
+        this.batchMaxRunNanos = new long[ids.length];
+    }
+
+    String name() {
+        return name;
+    }
+
+    void start() {
+        if (running.compareAndSet(false, true)) {
+            // Published before starting so tasks already see themselves as running on this worker.
+            Thread worker = Thread.ofPlatform().name(name).unstarted(this::runLoop);
+            thread = worker;
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops accepting tasks, lets the ones already queued finish and waits for the thread to exit.
+     */
+    void stop() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        Thread worker = thread;
+        if (worker != null && worker != Thread.currentThread()) {
+            try {
+                worker.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    boolean isCurrentThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Returns the worker's thread, or null if it was never started.
+     */
+    Thread thread() {
+        return thread;
+    }
+
+    /**
+     * Returns the task running right now, or null while the worker is idle.
+     */
+    Task currentTask() {
+        return current.getAcquire();
+    }
+
+    /**
+     * Whether tasks submitted from now on record the stack of their submitter. Costs a stack walk per submission.
+     */
+    void setOriginTracing(boolean traceOrigins) {
+        this.traceOrigins = traceOrigins;
+    }
+
+    /**
+     * Queues the task in the given lane, waiting up to the configured time for room if the lane is full. The worker
+     * itself never waits, since only it could make room.
+     *
+     * @throws IllegalStateException      if the worker is not running
+     * @throws RejectedExecutionException if the lane stayed full
+     */
+    void execute(PlotTaskLane lane, Runnable task) {
+        enqueue(lane, task, true);
+    }
+
+    /**
+     * Queues the task regardless of the lane's capacity. Reserved for follow-up work of tasks that were already
+     * admitted, which must not be lost halfway.
+     *
+     * @throws IllegalStateException if the worker is not running
+     */
+    void post(PlotTaskLane lane, Runnable task) {
+        enqueue(lane, task, false);
+    }
+
+    /**
+     * Runs the action in the given lane and completes the returned future with its result. On the worker itself the
+     * action runs inline; a rejected submission yields a future failed with {@link RejectedExecutionException}.
+     *
+     * @throws IllegalStateException if the worker is not running
+     */
+    <T> CompletableFuture<T> supply(PlotTaskLane lane, Callable<T> action) {
+        if (isCurrentThread()) {
+            try {
+                return CompletableFuture.completedFuture(action.call());
+            } catch (Throwable ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            execute(lane, () -> {
+                try {
+                    future.complete(action.call());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Runs the action once the current batch has finished. Registering again under a key that is already pending
+     * is a no-op, so a burst of tasks touching the same thing pays for it once.
+     *
+     * @throws IllegalStateException if not called from this worker
+     */
+    void deferToBatchEnd(Object key, Runnable action) {
+        if (!isCurrentThread()) {
+            throw new IllegalStateException("Batch-end work must be registered from " + name + ".");
+        }
+        batchEnd.putIfAbsent(key, action);
+    }
+
+    List<PlotQueueStats> stats() {
+        List<PlotQueueStats> stats = new ArrayList<>(lanes.length);
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                long averageWait = lane.dispatched > 0 ? lane.totalWaitNanos / lane.dispatched : 0;
+                long averageRun = lane.dispatched > 0 ? lane.totalRunNanos / lane.dispatched : 0;
+                stats.add(new PlotQueueStats(
+                        name,
+                        lane.id,
+                        lane.tasks.size(),
+                        lane.capacity,
+                        lane.dispatched,
+                        lane.rejected,
+                        TimeUnit.NANOSECONDS.toMicros(averageWait),
+                        TimeUnit.NANOSECONDS.toMicros(lane.maxWaitNanos),
+                        TimeUnit.NANOSECONDS.toMicros(averageRun),
+                        TimeUnit.NANOSECONDS.toMicros(lane.maxRunNanos)
+                ));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    private void enqueue(PlotTaskLane laneId, Runnable task, boolean bounded) {
+        Lane lane = lanes[laneId.ordinal()];
+        String submitter = Thread.currentThread().getName();
+        Throwable origin = traceOrigins ? new Throwable("Plot task submitted from " + submitter) : null;
+        lock.lock();
+        try {
+            ensureRunning();
+            if (bounded) {
+                long remaining = isCurrentThread() ? 0 : fullQueueWaitNanos;
+                while (lane.tasks.size() >= lane.capacity) {
+                    if (remaining <= 0) {
+                        lane.rejected++;
+                        throw new RejectedExecutionException(
+                                "Plot worker " + name + " has no room in the " + laneId + " lane.");
+                    }
+                    remaining = notFull.awaitNanos(remaining);
+                    ensureRunning();
+                }
+            }
+            lane.tasks.addLast(new Task(task, laneId, System.nanoTime(), submitter, origin));
+            notEmpty.signal();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while enqueuing plot task.", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureRunning() {
+        if (!running.get()) {
+            throw new IllegalStateException("Plot worker " + name + " is not running.");
+        }
+    }
+
+    /**
+     * Moves up to {@code batchSize} tasks into {@code batch} in dispatch order, waiting until at least one is queued.
+     *
+     * @return false once the worker was stopped and every lane is drained
+     */
+    private boolean takeBatch(List<Task> batch) throws InterruptedException {
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                int i = lane.id.ordinal();
+                lane.totalRunNanos += batchRunNanos[i];
+                lane.maxRunNanos = Math.max(lane.maxRunNanos, batchMaxRunNanos[i]);
+                batchRunNanos[i] = 0;
+                batchMaxRunNanos[i] = 0;
+            }
+            while (true) {
+                long now = System.nanoTime();
+                Lane lane;
+                while (batch.size() < batchSize && (lane = nextLane(now)) != null) {
+                    Task entry = lane.tasks.pollFirst();
+                    long wait = now - entry.enqueuedAt;
+                    lane.dispatched++;
+                    lane.totalWaitNanos += wait;
+                    lane.maxWaitNanos = Math.max(lane.maxWaitNanos, wait);
+                    batch.add(entry);
+                }
+                if (!batch.isEmpty()) {
+                    notFull.signalAll();
+                    return true;
+                }
+                if (!running.get()) {
+                    return false;
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lane nextLane(long now) {
+        Lane first = null;
+        for (Lane lane : lanes) {
+            Task head = lane.tasks.peekFirst();
+            if (head == null) {
+                continue;
+            }
+            if (first == null) {
+                first = lane;
+                if (starvationTurn) {
+                    break;
+                }
+            } else if (now - head.enqueuedAt >= STARVATION_NANOS) {
+                starvationTurn = true;
+                return lane;
+            }
+        }
+        starvationTurn = false;
+        return first;
+    }
+
+    private void runLoop() {
+        List<Task> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        while (true) {
+            try {
+                if (!takeBatch(batch)) {
+                    break;
+                }
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            // Tasks run back to back, so each one starts when the previous one ended: one clock read per task.
+            long clock = System.nanoTime();
+            for (Task task : batch) {
+                long ended = run(task, clock);
+                int i = task.lane.ordinal();
+                batchRunNanos[i] += ended - clock;
+                batchMaxRunNanos[i] = Math.max(batchMaxRunNanos[i], ended - clock);
+                clock = ended;
+            }
+            batch.clear();
+            // Deferred work may defer more; keep going until nothing is left.
+            while (!batchEnd.isEmpty()) {
+                List<Runnable> deferred = new ArrayList<>(batchEnd.values());
+                batchEnd.clear();
+                for (Runnable action : deferred) {
+                    clock = run(new Task(action, null, clock, name, null), clock);
+                }
+            }
+            current.setRelease(null);
+        }
+    }
+
+    /**
+     * Publishes the task as the worker's current one, runs it and returns the time it ended.
+     */
+    private long run(Task task, long startedAt) {
+        task.startedAt = startedAt;
+        current.setRelease(task);
+        try {
+            task.action.run();
+        } catch (Throwable ex) {
+            logger.error("Plot task failed on {}.", name, ex);
+        }
+        return System.nanoTime();
+    }
+}
@@ -4,17 +4,60 @@ import me.daoge.allayplots.config.PlotWorldConfig;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The plots of one world, owned by that world's worker.
+ * <p>
+ * Reads on the world itself see the worker's latest writes, even halfway through an operation. Every other thread
+ * should go through {@link #snapshot()}, which only ever shows completed batches of writes.
+ * <p>
+ * Settings-only changes (trusted, denied, flags) may also be applied from any thread with
+ * {@link #compareAndSetSettings(PlotId, long, Plot)}. The worker's own writes are compare-and-set retries on top of the
+ * current value, so such a change is never lost to a structural write racing it.
+ * <p>
+ * Every write is also recorded in the world's change journal, which keeps the latest change of every plot until a save
+ * drains it from any thread with {@link #drainChanges()}; a drain sees the same completed batches as
+ * {@link #snapshot()}.
+ */
 public final class PlotWorld {
+    /**
+     * Sentinel returned by {@link #getPlotKeyAt(int, int)} for road positions.
+     */
+    public static final long ROAD = Long.MIN_VALUE;
+
+    // Merge mask bit set on a cell when it is the north-west corner of a fully merged 2x2 block.
+    static final int MERGED_INTERSECTION = 1 << 4;
+    private static final int MERGED_DIRECTIONS = 0xF;
+    // Past this many chunks losing their resolved keys at once, the next snapshot starts with an empty cache.
+    private static final int STALE_CHUNK_LIMIT = 256;
+
     private final PlotWorldConfig config;
-    private final Map<PlotId, Plot> plots = new ConcurrentHashMap<>();
-    private final Map<PlotId, Plot> plotsView = Collections.unmodifiableMap(plots);
+    private final PlotTable plots = new PlotTable();
+    private volatile PlotWorldSnapshot snapshot;
+    private final Runnable publishTask = this::publish;
+    private volatile Consumer<Runnable> publishScheduler = Runnable::run;
+    private volatile Executor writerExecutor = Runnable::run;
+    private final FreePlotAllocator freePlots = new FreePlotAllocator(this::isFreeCell, MAX_AUTO_CLAIM_RADIUS);
+    // Merge components behind the cached groups; only touched by the writer.
+    private final MergeForest mergeForest = new MergeForest();
+
+    // Player -> plots listing them as trusted / denied; written by the world's worker, readable from any thread.
+    private final Map<UUID, Set<PlotId>> trustedIndex = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<PlotId>> deniedIndex = new ConcurrentHashMap<>();
 
-    private final Set<PlotId> dirtyPlots = new HashSet<>();
-    private final Set<PlotId> deletedPlots = new HashSet<>();
+    private final PlotJournal journal;
 
     public PlotWorld(PlotWorldConfig config) {
         this.config = config;
+        this.journal = new PlotJournal(config.worldName());
+        this.snapshot = PlotWorldSnapshot.empty(config);
     }
 
     public PlotWorldConfig getConfig() {
@@ -22,102 +65,316 @@ public final class PlotWorld {
     }
 
     public Map<PlotId, Plot> getPlots() {
-        return plotsView;
+        return plots.asMap();
+    }
+
+    /**
+     * Returns the latest published snapshot of this world. Cheap enough to take once per event.
+     */
+    public PlotWorldSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Decides when pending writes get published: the scheduler receives the publish task after every write and
+     * may run it right away (the default) or later, e.g. once the worker's current batch is done.
+     */
+    void setPublishScheduler(Consumer<Runnable> scheduler) {
+        this.publishScheduler = scheduler;
+    }
+
+    /**
+     * Sets where the bookkeeping of settings changes made off the worker runs; it must end up on the world's
+     * worker, and the executor throws {@link RejectedExecutionException} rather than run it anywhere else. Runs
+     * inline by default, for a world no worker owns.
+     */
+    void setWriterExecutor(Executor executor) {
+        this.writerExecutor = executor;
+    }
+
+    private void schedulePublish() {
+        publishScheduler.accept(publishTask);
+    }
+
+    /**
+     * Folds the cells written since the last publication into a new snapshot and commits the journaled changes.
+     * Writer thread only.
+     */
+    void publish() {
+        journal.commit();
+        long[] touched = plots.drainTouched();
+        if (touched.length == 0) return;
+
+        PlotWorldSnapshot current = snapshot;
+        CellTrie<PlotWorldSnapshot.Cell> cells = current.cells();
+        Set<Long> staleChunks = new HashSet<>();
+        for (long key : touched) {
+            PlotWorldSnapshot.Cell before = cells.get(key);
+            Plot plot = plots.get(key);
+            int mask = plots.getMask(key);
+            PlotMergeGroup group = plots.getGroup(key);
+            if (before != null && before.plot() == plot && before.mask() == mask && before.group() == group) {
+                continue;
+            }
+            cells = cells.with(key, plot != null ? new PlotWorldSnapshot.Cell(plot, mask, group) : null);
+            int beforeMask = before != null ? before.mask() : 0;
+            if (beforeMask != mask && staleChunks.size() <= STALE_CHUNK_LIMIT) {
+                addCellChunks(key, staleChunks);
+            }
+        }
+        LongPredicate stale = staleChunks.size() > STALE_CHUNK_LIMIT ? chunk -> true : staleChunks::contains;
+        snapshot = current.next(cells, stale);
+    }
+
+    // Merge masks only affect how positions inside their own cell resolve, so only chunks overlapping it go stale.
+    private void addCellChunks(long key, Set<Long> chunks) {
+        int totalSize = config.totalSize();
+        int minX = PlotId.unpackX(key) * totalSize;
+        int minZ = PlotId.unpackZ(key) * totalSize;
+        for (int chunkX = minX >> 4; chunkX <= (minX + totalSize - 1) >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= (minZ + totalSize - 1) >> 4; chunkZ++) {
+                chunks.add(PlotId.pack(chunkX, chunkZ));
+            }
+        }
     }
 
     void putPlots(Map<PlotId, Plot> plots) {
-        this.plots.putAll(plots);
+        for (Map.Entry<PlotId, Plot> entry : plots.entrySet()) {
+            Plot previous = this.plots.put(entry.getKey().key(), entry.getValue());
+            updateMemberIndexes(entry.getKey(), previous, entry.getValue());
+        }
+        freePlots.reset();
+        rebuildMergeMasks();
+        rebuildMergeGroups();
+        schedulePublish();
     }
 
+    /**
+     * Stores the plot as is, replacing whatever the cell holds. Use {@link #updatePlot(PlotId, UnaryOperator)} to
+     * build on the current value instead.
+     */
     void putPlot(PlotId id, Plot plot) {
         if (plot == null) {
             removePlot(id);
             return;
         }
-        plots.put(id, plot);
-        markDirty(id);
+        write(id, current -> plot);
+        schedulePublish();
     }
 
-    private void markDirty(PlotId id) {
-        deletedPlots.remove(id);
-        dirtyPlots.add(id);
+    /**
+     * Applies the updater to the stored plot and stores the result, retrying with the fresh value if a settings
+     * change from another thread got in between. Absent plots are left alone.
+     *
+     * @return the plot stored afterwards, or null if there is none
+     */
+    Plot updatePlot(PlotId id, UnaryOperator<Plot> updater) {
+        write(id, current -> current != null ? updater.apply(current) : null);
+        schedulePublish();
+        return plots.get(id.key());
     }
 
-    private void markDeleted(PlotId id) {
-        dirtyPlots.remove(id);
-        deletedPlots.add(id);
+    /**
+     * Swaps in a plot that differs from the stored one only in its settings, provided the stored one still has
+     * the expected {@link Plot#getVersion() version}. Safe from any thread; indexes, the change journal and the next
+     * snapshot catch up on the world's worker.
+     *
+     * @return false if the plot is gone or changed since the caller read it
+     * @throws IllegalArgumentException   if {@code updated} changes more than trusted, denied and flags
+     * @throws RejectedExecutionException if the bookkeeping cannot be handed to the worker; the plot is left as it was
+     */
+    public boolean compareAndSetSettings(PlotId id, long expectedVersion, Plot updated) {
+        Plot current = plots.get(id.key());
+        if (current == null || current.getVersion() != expectedVersion) {
+            return false;
+        }
+        if (!current.hasSameStructure(updated)) {
+            throw new IllegalArgumentException("Only trusted, denied and flags may change without the plot worker.");
+        }
+        if (!plots.replace(id.key(), current, updated)) {
+            return false;
+        }
+        try {
+            writerExecutor.execute(() -> {
+                updateMemberIndexes(id, current, updated);
+                plots.touch(id.key());
+                recordChange(id);
+                schedulePublish();
+            });
+        } catch (RejectedExecutionException ex) {
+            plots.replace(id.key(), updated, current);
+            throw ex;
+        }
+        return true;
     }
 
-    public Set<PlotId> getDirtyPlots() {
-        return Collections.unmodifiableSet(dirtyPlots);
+    /**
+     * Compare-and-set loop behind every write of the worker. The updater may run several times and must not have
+     * side effects; returning the current value (or null) leaves the cell untouched.
+     *
+     * @return whether anything was written
+     */
+    private boolean write(PlotId id, UnaryOperator<Plot> updater) {
+        long key = id.key();
+        while (true) {
+            Plot current = plots.get(key);
+            Plot updated = updater.apply(current);
+            if (updated == null || updated == current) {
+                return false;
+            }
+            int previousMask = plots.getMask(key);
+            if (current == null) {
+                // Only the worker inserts, so an empty cell cannot change under us.
+                plots.put(key, updated);
+            } else if (plots.replace(key, current, updated)) {
+                plots.touch(key);
+            } else {
+                continue;
+            }
+            updateMemberIndexes(id, current, updated);
+            updateFreePlots(key, current, updated);
+            refreshMergeMasks(id.x(), id.z(), previousMask);
+            recordChange(id);
+            return true;
+        }
     }
 
-    public Set<PlotId> getDeletedPlots() {
-        return Collections.unmodifiableSet(deletedPlots);
+    private void updateMemberIndexes(PlotId id, Plot previous, Plot current) {
+        Set<UUID> oldTrusted = previous != null ? previous.getTrusted() : Set.of();
+        Set<UUID> newTrusted = current != null ? current.getTrusted() : Set.of();
+        updateMemberIndex(trustedIndex, id, oldTrusted, newTrusted, Plot::getTrusted);
+
+        Set<UUID> oldDenied = previous != null ? previous.getDenied() : Set.of();
+        Set<UUID> newDenied = current != null ? current.getDenied() : Set.of();
+        updateMemberIndex(deniedIndex, id, oldDenied, newDenied, Plot::getDenied);
     }
 
-    public boolean hasChanges() {
-        return !dirtyPlots.isEmpty() || !deletedPlots.isEmpty();
+    /**
+     * Re-indexes every player that differs between the two member sets. Membership is taken from the plot stored
+     * now rather than from {@code after}, so settings changes whose bookkeeping reaches the worker out of order
+     * still leave the index matching the table.
+     */
+    private void updateMemberIndex(Map<UUID, Set<PlotId>> index, PlotId id, Set<UUID> before, Set<UUID> after,
+                                   Function<Plot, Set<UUID>> members) {
+        // Plot shares its member sets between copies, so most writes skip the diff entirely.
+        if (before == after) return;
+        Plot stored = plots.get(id.key());
+        Set<UUID> current = stored != null ? members.apply(stored) : Set.of();
+        for (UUID player : before) {
+            if (!after.contains(player)) reindex(index, id, player, current.contains(player));
+        }
+        for (UUID player : after) {
+            if (!before.contains(player)) reindex(index, id, player, current.contains(player));
+        }
     }
 
-    public void clearChanges() {
-        dirtyPlots.clear();
-        deletedPlots.clear();
+    private static void reindex(Map<UUID, Set<PlotId>> index, PlotId id, UUID player, boolean member) {
+        if (member) {
+            index.computeIfAbsent(player, key -> ConcurrentHashMap.newKeySet()).add(id);
+        } else {
+            index.computeIfPresent(player, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
     }
 
     /**
-     * Returns the plot id for the given block position.
-     * - Inside plot area -> id of that plot.
-     * - On merged road strip / merged 2x2 intersection -> id of the merge root plot (current cell).
-     * - Otherwise -> null (road).
+     * Returns a snapshot of the plots in this world that list the player as trusted.
      */
-    public PlotId getPlotIdAt(int x, int z) {
-        int plotSize = config.plotSize();
-        int totalSize = config.totalSize();
-
-        int idX = toCellIndex(x, totalSize);
-        int idZ = toCellIndex(z, totalSize);
+    public Set<PlotId> getTrustedPlots(UUID player) {
+        Set<PlotId> ids = trustedIndex.get(player);
+        return ids != null ? Set.copyOf(ids) : Set.of();
+    }
 
-        int difX = toCellOffset(x, totalSize);
-        int difZ = toCellOffset(z, totalSize);
+    /**
+     * Returns a snapshot of the plots in this world that list the player as denied.
+     */
+    public Set<PlotId> getDeniedPlots(UUID player) {
+        Set<PlotId> ids = deniedIndex.get(player);
+        return ids != null ? Set.copyOf(ids) : Set.of();
+    }
 
-        boolean inPlotX = difX > 0 && difX <= plotSize;
-        boolean inPlotZ = difZ > 0 && difZ <= plotSize;
+    /**
+     * Records the plot as stored now, or its removal, in the change journal.
+     */
+    private void recordChange(PlotId id) {
+        journal.append(id, plots.get(id.key()));
+    }
 
-        PlotId current = new PlotId(idX, idZ);
+    /**
+     * Removes and returns the changes committed since the last drain, the latest one of every plot. Safe from any
+     * thread.
+     */
+    List<PlotChange> drainChanges() {
+        return journal.drain();
+    }
 
-        // Inside plot
-        if (inPlotX && inPlotZ) return current;
+    /**
+     * Puts back drained changes that failed to save, so the next drain returns them again.
+     */
+    void requeueChanges(List<PlotChange> changes) {
+        journal.requeue(changes);
+    }
 
-        // On horizontal road strip (between north/south plots): allow if merged south
-        if (inPlotX && isMerged(current, PlotMergeDirection.SOUTH)) return current;
+    /**
+     * Returns how many changes were journaled and not drained yet, counting repeated changes of a plot.
+     */
+    public int pendingChanges() {
+        return journal.size();
+    }
 
-        // On vertical road strip (between west/east plots): allow if merged east
-        if (inPlotZ && isMerged(current, PlotMergeDirection.EAST)) return current;
+    /**
+     * Returns how many distinct plots have journaled changes that were not drained yet.
+     */
+    public int dirtyPlotCount() {
+        return journal.dirtyPlots();
+    }
 
-        // On intersection: allow only if it's a fully merged 2x2 block
-        PlotId east = new PlotId(idX + 1, idZ);
-        PlotId south = new PlotId(idX, idZ + 1);
+    /**
+     * Returns the plot id for the given block position.
+     * - Inside plot area -> id of that plot.
+     * - On merged road strip / merged 2x2 intersection -> id of the merge root plot (current cell).
+     * - Otherwise -> null (road).
+     */
+    public PlotId getPlotIdAt(int x, int z) {
+        long key = getPlotKeyAt(x, z);
+        return key == ROAD ? null : PlotId.fromKey(key);
+    }
 
-        boolean eastNorth = isMerged(current, PlotMergeDirection.EAST);
-        boolean eastSouth = isMerged(south, PlotMergeDirection.EAST);
-        boolean southWest = isMerged(current, PlotMergeDirection.SOUTH);
-        boolean southEast = isMerged(east, PlotMergeDirection.SOUTH);
+    /**
+     * Allocation-free variant of {@link #getPlotIdAt(int, int)} for hot paths.
+     * Returns the packed cell key (see {@link PlotId#pack(int, int)}) or {@link #ROAD}.
+     * Resolved against the latest published snapshot, from a per-chunk cache that only the chunks of changed merges
+     * drop.
+     */
+    public long getPlotKeyAt(int x, int z) {
+        return snapshot.getPlotKeyAt(x, z);
+    }
 
-        return (eastNorth && eastSouth && southWest && southEast) ? current : null;
+    /**
+     * Bulk variant of {@link #getPlotKeyAt(int, int)}: resolves the first {@code count} positions of {@code xs}/{@code zs}
+     * into {@code out}. Positions sorted or clustered by chunk resolve fastest.
+     */
+    public void getPlotKeysAt(int[] xs, int[] zs, int count, long[] out) {
+        snapshot.getPlotKeysAt(xs, zs, count, out);
     }
 
-    private static int toCellIndex(int coordinate, int totalSize) {
+    static int toCellIndex(int coordinate, int totalSize) {
         // Mirrors Nukkit behavior to keep alignment stable for negative coordinates
         return coordinate >= 0 ? coordinate / totalSize : ((coordinate + 1) / totalSize) - 1;
     }
 
-    private static int toCellOffset(int coordinate, int totalSize) {
+    static int toCellOffset(int coordinate, int totalSize) {
         int raw = (coordinate + 1) % totalSize;
         return coordinate >= 0 ? raw : totalSize + raw;
     }
 
     public PlotBounds getPlotBounds(PlotId id) {
+        return plotBounds(config, id);
+    }
+
+    static PlotBounds plotBounds(PlotWorldConfig config, PlotId id) {
         int totalSize = config.totalSize();
         int originX = id.x() * totalSize;
         int originZ = id.z() * totalSize;
@@ -127,70 +384,69 @@ public final class PlotWorld {
     }
 
     public PlotBounds getMergedPlotBounds(PlotId id) {
-        Set<PlotId> group = getMergeGroup(id);
-        if (group.isEmpty()) return getPlotBounds(id);
-
-        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
-        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
-
-        for (PlotId plotId : group) {
-            minX = Math.min(minX, plotId.x());
-            maxX = Math.max(maxX, plotId.x());
-            minZ = Math.min(minZ, plotId.z());
-            maxZ = Math.max(maxZ, plotId.z());
-        }
+        PlotMergeGroup group = plots.getGroup(id.key());
+        return group != null ? group.bounds() : getPlotBounds(id);
+    }
 
-        int totalSize = config.totalSize();
-        int minBlockX = minX * totalSize;
-        int minBlockZ = minZ * totalSize;
-        int maxBlockX = maxX * totalSize + config.plotSize() - 1;
-        int maxBlockZ = maxZ * totalSize + config.plotSize() - 1;
-        return new PlotBounds(minBlockX, maxBlockX, minBlockZ, maxBlockZ);
+    /**
+     * Visits every plot of the latest {@link #snapshot() snapshot} whose area intersects the block box; see
+     * {@link PlotWorldSnapshot#forEachPlotIn}. Safe from any thread, but writes of a batch still running are not seen.
+     */
+    public void forEachPlotIn(int minX, int minZ, int maxX, int maxZ, BiConsumer<Plot, PlotMergeGroup> action) {
+        snapshot.forEachPlotIn(minX, minZ, maxX, maxZ, action);
     }
 
     public Plot getPlot(PlotId id) {
-        return plots.get(id);
+        return plots.get(id.key());
     }
 
-    public Plot claimPlot(PlotId id, UUID owner, String ownerName) {
-        Plot result = plots.compute(id, (key, existing) -> {
-            Plot base = existing == null ? new Plot(config.worldName(), key) : existing;
-            return base.withOwner(owner, ownerName);
-        });
-        markDirty(id);
-        return result;
+    public Plot getPlot(long key) {
+        return plots.get(key);
     }
 
-    public void removePlot(PlotId id) {
-        if (plots.remove(id) != null) {
-            markDeleted(id);
-        }
+    public Plot claimPlot(PlotId id, UUID owner, String ownerName) {
+        write(id, existing -> (existing == null ? new Plot(config.worldName(), id) : existing)
+                .withOwner(owner, ownerName));
+        schedulePublish();
+        return plots.get(id.key());
     }
 
-    public int countOwnedPlots(UUID owner) {
-        int count = 0;
-        for (Plot plot : plots.values()) {
-            if (plot.isOwner(owner)) count++;
+    public void removePlot(PlotId id) {
+        int previousMask = plots.getMask(id.key());
+        Plot removed = plots.remove(id.key());
+        if (removed != null) {
+            updateMemberIndexes(id, removed, null);
+            updateFreePlots(id.key(), removed, null);
+            refreshMergeMasks(id.x(), id.z(), previousMask);
+            recordChange(id);
+            schedulePublish();
         }
-        return count;
     }
 
     private static final int MAX_AUTO_CLAIM_RADIUS = 10000;
 
+    /**
+     * Returns the unclaimed cell nearest to the origin, walking rings outwards up to {@code MAX_AUTO_CLAIM_RADIUS}.
+     */
     public PlotId findNextFreePlotId() {
-        for (int radius = 0; radius <= MAX_AUTO_CLAIM_RADIUS; radius++) {
-            for (int x = -radius; x <= radius; x++) {
-                for (int z = -radius; z <= radius; z++) {
-                    boolean onBorder = (x == radius || x == -radius) || (z == radius || z == -radius);
-                    if (!onBorder) continue;
-
-                    PlotId id = new PlotId(x, z);
-                    Plot plot = plots.get(id);
-                    if (plot == null || !plot.isClaimed()) return id;
-                }
-            }
+        long key = freePlots.next();
+        return key == ROAD ? null : PlotId.fromKey(key);
+    }
+
+    private boolean isFreeCell(long key) {
+        Plot plot = plots.get(key);
+        return plot == null || !plot.isClaimed();
+    }
+
+    private void updateFreePlots(long key, Plot previous, Plot current) {
+        boolean wasClaimed = previous != null && previous.isClaimed();
+        boolean isClaimed = current != null && current.isClaimed();
+        if (wasClaimed == isClaimed) return;
+        if (isClaimed) {
+            freePlots.claimed(key);
+        } else {
+            freePlots.released(key);
         }
-        return null;
     }
 
     public PlotId getAdjacentPlotId(PlotId id, PlotMergeDirection direction) {
@@ -198,120 +454,268 @@ public final class PlotWorld {
     }
 
     public boolean isMerged(PlotId id, PlotMergeDirection direction) {
-        Plot plot = plots.get(id);
+        return (plots.getMask(id.key()) & direction.bit()) != 0;
+    }
+
+    /**
+     * Validates a merge from the stored plots: both sides claimed, flagged towards each other and owned by the same
+     * player. The result is symmetric, so it also answers the neighbor's opposite direction.
+     */
+    private boolean computeMerged(int x, int z, PlotMergeDirection direction) {
+        Plot plot = plots.get(PlotId.pack(x, z));
         if (plot == null || !plot.isClaimed() || !plot.isMerged(direction)) return false;
 
-        PlotId neighborId = getAdjacentPlotId(id, direction);
-        Plot neighbor = plots.get(neighborId);
+        Plot neighbor = plots.get(PlotId.pack(x + direction.dx(), z + direction.dz()));
         if (neighbor == null || !neighbor.isClaimed() || !neighbor.isMerged(direction.opposite())) return false;
 
         return Objects.equals(plot.getOwner(), neighbor.getOwner());
     }
 
+    /**
+     * Recomputes the merge masks affected by a write to cell (x, z): the cell itself, the facing bits of its
+     * four neighbors and the intersection bits of every cell whose 2x2 block includes one of those.
+     * When the cell's merge directions changed, the merge groups around it are rebuilt as well.
+     */
+    private void refreshMergeMasks(int x, int z, int previousMask) {
+        long key = PlotId.pack(x, z);
+        int mask = plots.getMask(key) & MERGED_INTERSECTION;
+        for (PlotMergeDirection dir : PlotMergeDirection.values()) {
+            boolean merged = computeMerged(x, z, dir);
+            if (merged) mask |= dir.bit();
+
+            long neighborKey = PlotId.pack(x + dir.dx(), z + dir.dz());
+            int neighborMask = plots.getMask(neighborKey);
+            int facing = dir.opposite().bit();
+            int updated = merged ? neighborMask | facing : neighborMask & ~facing;
+            updateMask(neighborKey, neighborMask, updated);
+        }
+        updateMask(key, plots.getMask(key), mask);
+        if ((mask & MERGED_DIRECTIONS) != (previousMask & MERGED_DIRECTIONS)) {
+            refreshMergeGroups(x, z, previousMask, mask);
+        }
+
+        for (int cx = x - 2; cx <= x + 1; cx++) {
+            for (int cz = z - 2; cz <= z + 1; cz++) {
+                refreshIntersection(cx, cz);
+            }
+        }
+    }
+
+    private void refreshIntersection(int x, int z) {
+        long key = PlotId.pack(x, z);
+        int mask = plots.getMask(key);
+        int eastSouth = PlotMergeDirection.EAST.bit() | PlotMergeDirection.SOUTH.bit();
+        boolean merged = (mask & eastSouth) == eastSouth
+                         && (plots.getMask(PlotId.pack(x, z + 1)) & PlotMergeDirection.EAST.bit()) != 0
+                         && (plots.getMask(PlotId.pack(x + 1, z)) & PlotMergeDirection.SOUTH.bit()) != 0;
+        int updated = merged ? mask | MERGED_INTERSECTION : mask & ~MERGED_INTERSECTION;
+        updateMask(key, mask, updated);
+    }
+
+    private void updateMask(long key, int current, int updated) {
+        if (updated == current || plots.get(key) == null) return;
+        plots.setMask(key, updated);
+    }
+
+    private void rebuildMergeMasks() {
+        plots.forEach(plot -> {
+            PlotId id = plot.getId();
+            int mask = 0;
+            for (PlotMergeDirection dir : PlotMergeDirection.values()) {
+                if (computeMerged(id.x(), id.z(), dir)) mask |= dir.bit();
+            }
+            plots.setMask(id.key(), mask);
+        });
+        plots.forEach(plot -> refreshIntersection(plot.getId().x(), plot.getId().z()));
+    }
+
     public boolean setMerged(PlotId id, PlotMergeDirection direction, boolean merged) {
-        Plot plot = plots.get(id);
+        Plot plot = plots.get(id.key());
         if (plot == null) return false;
 
         PlotId neighborId = getAdjacentPlotId(id, direction);
-        Plot neighbor = plots.get(neighborId);
+        Plot neighbor = plots.get(neighborId.key());
         if (neighbor == null) return false;
 
         if (merged) {
-            plot = plot.withMergedDirectionAdded(direction);
-            neighbor = neighbor.withMergedDirectionAdded(direction.opposite());
+            write(id, current -> current.withMergedDirectionAdded(direction));
+            write(neighborId, current -> current.withMergedDirectionAdded(direction.opposite()));
         } else {
-            plot = plot.withMergedDirectionRemoved(direction);
-            neighbor = neighbor.withMergedDirectionRemoved(direction.opposite());
+            write(id, current -> current.withMergedDirectionRemoved(direction));
+            write(neighborId, current -> current.withMergedDirectionRemoved(direction.opposite()));
         }
-        plots.put(id, plot);
-        plots.put(neighborId, neighbor);
-        markDirty(id);
-        markDirty(neighborId);
+        schedulePublish();
         return true;
     }
 
     public boolean clearMergedConnections(PlotId id) {
-        Plot plot = plots.get(id);
         boolean changed = false;
         for (PlotMergeDirection dir : PlotMergeDirection.values()) {
             PlotId neighborId = getAdjacentPlotId(id, dir);
-            Plot neighbor = plots.get(neighborId);
-            if (neighbor != null) {
-                Plot updated = neighbor.withMergedDirectionRemoved(dir.opposite());
-                if (updated != neighbor) {
-                    plots.put(neighborId, updated);
-                    markDirty(neighborId);
-                    changed = true;
-                }
-            }
-            if (plot != null) {
-                Plot updated = plot.withMergedDirectionRemoved(dir);
-                if (updated != plot) {
-                    plot = updated;
-                    changed = true;
-                }
+            boolean cleared = write(neighborId, current -> current != null
+                    ? current.withMergedDirectionRemoved(dir.opposite())
+                    : null);
+            if (cleared) {
+                changed = true;
             }
         }
-        if (plot != null) {
-            plots.put(id, plot);
-            if (changed) {
-                markDirty(id);
-            }
+        if (write(id, current -> current != null ? current.withMergedDirectionsCleared() : null)) {
+            changed = true;
         }
+        schedulePublish();
         return changed;
     }
 
     public Set<PlotId> getMergeGroup(PlotId id) {
-        Plot plot = plots.get(id);
-        if (plot == null) return Set.of();
+        long key = id.key();
+        if (plots.get(key) == null) return Set.of();
 
-        Set<PlotId> visited = new HashSet<>();
-        ArrayDeque<PlotId> queue = new ArrayDeque<>();
-        queue.add(id);
-
-        while (!queue.isEmpty()) {
-            PlotId current = queue.removeFirst();
-            if (!visited.add(current)) continue;
+        PlotMergeGroup group = plots.getGroup(key);
+        return group != null ? group.members() : Set.of(id);
+    }
 
-            Plot currentPlot = plots.get(current);
-            if (currentPlot == null) continue;
+    public PlotId getMergeRoot(PlotId id) {
+        PlotMergeGroup group = plots.getGroup(id.key());
+        return group != null ? group.root() : id;
+    }
 
-            for (PlotMergeDirection dir : currentPlot.getMergedDirections()) {
-                if (!isMerged(current, dir)) continue;
+    /**
+     * Returns the cached merge group containing the plot, or null when the plot is unmerged or absent.
+     */
+    public PlotMergeGroup getMergeGroupInfo(PlotId id) {
+        return plots.getGroup(id.key());
+    }
 
-                PlotId neighborId = getAdjacentPlotId(current, dir);
-                if (!visited.contains(neighborId)) queue.add(neighborId);
+    /**
+     * Updates the merge groups after the merge directions of cell (x, z) changed. New merges are unions of the
+     * components on either side; a lost merge may split the cell's component, which is then re-flooded.
+     */
+    private void refreshMergeGroups(int x, int z, int previousMask, int mask) {
+        long key = PlotId.pack(x, z);
+        if ((previousMask & ~mask & MERGED_DIRECTIONS) != 0) {
+            // The flood also follows merges gained in the same write, so nothing is left to join afterwards.
+            splitMergeGroup(key);
+            return;
+        }
+        boolean joined = false;
+        for (PlotMergeDirection dir : PlotMergeDirection.values()) {
+            if ((mask & ~previousMask & dir.bit()) != 0
+                && mergeForest.union(key, PlotId.pack(x + dir.dx(), z + dir.dz())) >= 0) {
+                joined = true;
             }
         }
-
-        return visited;
+        if (joined) {
+            cacheMergeGroup(mergeForest.find(key));
+        }
     }
 
-    public PlotId getMergeRoot(PlotId id) {
-        Set<PlotId> group = getMergeGroup(id);
-        PlotId root = null;
-
-        for (PlotId candidate : group) {
-            if (root == null
-                || candidate.x() < root.x()
-                || (candidate.x() == root.x() && candidate.z() < root.z())) {
-                root = candidate;
+    /**
+     * Drops the component of the cell from the forest and floods its former members over the current merge masks,
+     * caching a group for every piece it falls apart into.
+     */
+    private void splitMergeGroup(long key) {
+        int root = mergeForest.find(key);
+        if (root < 0) return;
+        long[] members = mergeForest.members(root);
+        for (long member : members) {
+            mergeForest.remove(member);
+        }
+
+        long[] stack = new long[members.length];
+        // One member of every piece flooded; pieces can still join through merges gained in the same write.
+        long[] seeds = new long[members.length];
+        int seedCount = 0;
+        for (long member : members) {
+            if (mergeForest.contains(member) || plots.get(member) == null) continue;
+            if ((plots.getMask(member) & MERGED_DIRECTIONS) == 0) {
+                plots.setGroup(member, null);
+                continue;
+            }
+            int depth = 0;
+            stack[depth++] = member;
+            while (depth > 0) {
+                long current = stack[--depth];
+                int mask = plots.getMask(current);
+                int cx = PlotId.unpackX(current);
+                int cz = PlotId.unpackZ(current);
+                for (PlotMergeDirection dir : PlotMergeDirection.values()) {
+                    if ((mask & dir.bit()) == 0) continue;
+                    long neighbor = PlotId.pack(cx + dir.dx(), cz + dir.dz());
+                    // Cells still in the forest belong to a component joined in this write; linking one links it all.
+                    boolean unvisited = !mergeForest.contains(neighbor);
+                    mergeForest.union(current, neighbor);
+                    if (unvisited) {
+                        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                        stack[depth++] = neighbor;
+                    }
+                }
+            }
+            seeds[seedCount++] = member;
+        }
+        int[] roots = new int[seedCount];
+        for (int i = 0; i < seedCount; i++) {
+            roots[i] = mergeForest.find(seeds[i]);
+            boolean cached = false;
+            for (int j = 0; j < i && !cached; j++) {
+                cached = roots[j] == roots[i];
             }
+            if (!cached) cacheMergeGroup(roots[i]);
         }
+    }
 
-        return root != null ? root : id;
+    private void rebuildMergeGroups() {
+        mergeForest.clear();
+        plots.forEach(plot -> {
+            PlotId id = plot.getId();
+            int mask = plots.getMask(id.key());
+            if ((mask & MERGED_DIRECTIONS) == 0) {
+                plots.setGroup(id.key(), null);
+                return;
+            }
+            // Each merge is flagged on both cells, so linking towards east and south covers all of them once.
+            if ((mask & PlotMergeDirection.EAST.bit()) != 0) {
+                mergeForest.union(id.key(), PlotId.pack(id.x() + 1, id.z()));
+            }
+            if ((mask & PlotMergeDirection.SOUTH.bit()) != 0) {
+                mergeForest.union(id.key(), PlotId.pack(id.x(), id.z() + 1));
+            }
+        });
+        mergeForest.forEachRoot(this::cacheMergeGroup);
+    }
+
+    /**
+     * Builds the group of a forest component and caches it on every member.
+     */
+    private void cacheMergeGroup(int root) {
+        long[] members = mergeForest.members(root);
+        Set<PlotId> ids = new HashSet<>(members.length * 2);
+        for (long member : members) {
+            ids.add(PlotId.fromKey(member));
+        }
+        int totalSize = config.totalSize();
+        PlotBounds bounds = new PlotBounds(
+                mergeForest.minX(root) * totalSize,
+                mergeForest.maxX(root) * totalSize + config.plotSize() - 1,
+                mergeForest.minZ(root) * totalSize,
+                mergeForest.maxZ(root) * totalSize + config.plotSize() - 1
+        );
+        PlotId first = PlotId.fromKey(mergeForest.firstKey(root));
+        PlotMergeGroup group = new PlotMergeGroup(first, Collections.unmodifiableSet(ids), bounds);
+        for (long member : members) {
+            plots.setGroup(member, group);
+        }
     }
 
     public boolean normalizeMerges() {
         boolean changed = false;
-        for (Map.Entry<PlotId, Plot> entry : plots.entrySet()) {
+        for (Map.Entry<PlotId, Plot> entry : plots.asMap().entrySet()) {
             PlotId id = entry.getKey();
             Plot plot = entry.getValue();
-            Plot updated = plot;
+            Set<PlotMergeDirection> broken = EnumSet.noneOf(PlotMergeDirection.class);
 
-            for (PlotMergeDirection dir : Set.copyOf(plot.getMergedDirections())) {
+            for (PlotMergeDirection dir : plot.getMergedDirections()) {
                 PlotId neighborId = getAdjacentPlotId(id, dir);
-                Plot neighbor = plots.get(neighborId);
+                Plot neighbor = plots.get(neighborId.key());
 
                 boolean ok = neighbor != null
                              && plot.isClaimed()
@@ -319,28 +723,29 @@ public final class PlotWorld {
                              && Objects.equals(plot.getOwner(), neighbor.getOwner());
 
                 if (!ok) {
-                    updated = updated.withMergedDirectionRemoved(dir);
-                    if (neighbor != null) {
-                        Plot updatedNeighbor = neighbor.withMergedDirectionRemoved(dir.opposite());
-                        if (updatedNeighbor != neighbor) {
-                            plots.put(neighborId, updatedNeighbor);
-                            markDirty(neighborId);
-                            changed = true;
-                        }
+                    broken.add(dir);
+                    if (neighbor != null
+                        && write(neighborId, current -> current.withMergedDirectionRemoved(dir.opposite()))) {
+                        changed = true;
                     }
                     continue;
                 }
 
                 if (!neighbor.isMerged(dir.opposite())) {
-                    updated = updated.withMergedDirectionRemoved(dir);
+                    broken.add(dir);
                 }
             }
-            if (updated != plot) {
-                plots.put(id, updated);
-                markDirty(id);
+            if (!broken.isEmpty() && write(id, current -> {
+                Plot updated = current;
+                for (PlotMergeDirection dir : broken) {
+                    updated = updated.withMergedDirectionRemoved(dir);
+                }
+                return updated;
+            })) {
                 changed = true;
             }
         }
+        schedulePublish();
         return changed;
     }
 }
@@ -0,0 +1,262 @@
+package me.daoge.allayplots.plot;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies block edits to plot worlds, away from the plot workers.
+ * <p>
+ * Plot state changes commit on the world's worker right away; the blocks that go with them (a road rebuilt after a
+ * merge, ...) are submitted here as {@link Job jobs}. A job first loads its chunks without blocking anyone. It is then
+ * picked up by {@link #tick()}, which the plugin calls once per server tick: the job is planned against the plot state
+ * of that moment and its blocks are placed, at most {@code blocksPerTick} per tick across all jobs, so a large edit is
+ * spread over several ticks instead of stalling one. The future returned by {@link #submit(Job)} completes once every
+ * block of the job has been placed.
+ */
+final class PlotWorldEditor {
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    /**
+     * One block edit. Jobs with equal {@link #key() keys} that are still waiting to be planned are merged into one.
+     */
+    interface Job {
+        String worldName();
+
+        Object key();
+
+        /**
+         * Starts loading the chunks the job touches; the returned future completes once they are loaded.
+         */
+        CompletableFuture<?> loadChunks();
+
+        /**
+         * Whether the chunks are still loaded. Called on the tick right before planning.
+         */
+        boolean chunksLoaded();
+
+        /**
+         * Works out which blocks to place from the current plot state. Called on the tick.
+         */
+        Plan plan();
+    }
+
+    /**
+     * The blocks of a planned job, placed in index order.
+     */
+    interface Plan {
+        int size();
+
+        /**
+         * Places blocks {@code from} (inclusive) to {@code to} (exclusive).
+         */
+        void apply(int from, int to);
+    }
+
+    private final class Pending {
+        private final Job job;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private int loadAttempts;
+        // Only touched by the ticking thread.
+        private Plan plan;
+        private int next;
+
+        private Pending(Job job) {
+            this.job = job;
+        }
+    }
+
+    private final Logger logger;
+    private final int maxQueuedJobs;
+    private final int blocksPerTick;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Map<String, AtomicInteger> queuedByWorld = new ConcurrentHashMap<>();
+    // Jobs not planned yet, by key; a job submitted again before then shares the pending one.
+    private final Map<Object, Pending> unplanned = new ConcurrentHashMap<>();
+    // Jobs whose chunks have been loaded, waiting for the next tick.
+    private final Queue<Pending> loaded = new ConcurrentLinkedQueue<>();
+    // Jobs being applied; only touched by the ticking thread.
+    private final ArrayDeque<Pending> applying = new ArrayDeque<>();
+
+    PlotWorldEditor(Logger logger, int maxQueuedJobs, int blocksPerTick) {
+        this.logger = logger;
+        this.maxQueuedJobs = Math.max(1, maxQueuedJobs);
+        this.blocksPerTick = Math.max(1, blocksPerTick);
+    }
+
+    /**
+     * Queues the job, or joins an equal one that has not been planned yet. The returned future fails with
+     * {@link RejectedExecutionException} if the job's world already has the maximum number of jobs queued, and with
+     * {@link IllegalStateException} once the editor was shut down.
+     */
+    CompletableFuture<Void> submit(Job job) {
+        if (!running.get()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Plot world editor is shut down."));
+        }
+        Pending[] created = new Pending[1];
+        Pending pending;
+        try {
+            pending = unplanned.computeIfAbsent(job.key(), key -> {
+                AtomicInteger queued = queuedByWorld.computeIfAbsent(job.worldName(), name -> new AtomicInteger());
+                if (queued.incrementAndGet() > maxQueuedJobs) {
+                    queued.decrementAndGet();
+                    throw new RejectedExecutionException(
+                            "Plot world " + job.worldName() + " has too many world edits queued.");
+                }
+                created[0] = new Pending(job);
+                return created[0];
+            });
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        if (created[0] != null) {
+            load(pending);
+        }
+        return pending.done;
+    }
+
+    /**
+     * Plans and applies loaded jobs within this tick's block budget. Must always be called from the same thread.
+     */
+    void tick() {
+        Pending pending;
+        while ((pending = loaded.poll()) != null) {
+            applying.addLast(pending);
+        }
+
+        int budget = blocksPerTick;
+        while (budget > 0 && (pending = applying.peekFirst()) != null) {
+            if (pending.plan == null && !plan(pending)) {
+                applying.pollFirst();
+                continue;
+            }
+            int to = (int) Math.min(pending.plan.size(), (long) pending.next + budget);
+            try {
+                pending.plan.apply(pending.next, to);
+            } catch (Throwable ex) {
+                logger.error("Failed to apply a world edit in {}.", pending.job.worldName(), ex);
+                applying.pollFirst();
+                finish(pending, ex);
+                continue;
+            }
+            budget -= to - pending.next;
+            pending.next = to;
+            if (to == pending.plan.size()) {
+                applying.pollFirst();
+                finish(pending, null);
+            }
+        }
+    }
+
+    /**
+     * Returns how many jobs are queued for the world, loading or waiting to be applied.
+     */
+    int queuedJobs(String worldName) {
+        AtomicInteger queued = queuedByWorld.get(worldName);
+        return queued != null ? queued.get() : 0;
+    }
+
+    /**
+     * Stops accepting jobs. Jobs already planned are finished on the calling thread, which must be the ticking one;
+     * the rest fail with {@link IllegalStateException}.
+     */
+    void shutdown() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        IllegalStateException cancelled = new IllegalStateException("Plot world editor is shut down.");
+        Pending pending;
+        while ((pending = applying.pollFirst()) != null) {
+            if (pending.plan == null) {
+                finish(pending, cancelled);
+                continue;
+            }
+            try {
+                pending.plan.apply(pending.next, pending.plan.size());
+                finish(pending, null);
+            } catch (Throwable ex) {
+                finish(pending, ex);
+            }
+        }
+        for (Pending unplannedJob : unplanned.values()) {
+            finish(unplannedJob, cancelled);
+        }
+        while ((pending = loaded.poll()) != null) {
+            finish(pending, cancelled);
+        }
+    }
+
+    private void load(Pending pending) {
+        pending.loadAttempts++;
+        CompletableFuture<?> chunks;
+        try {
+            chunks = pending.job.loadChunks();
+        } catch (Throwable ex) {
+            finish(pending, ex);
+            return;
+        }
+        chunks.whenComplete((ignored, error) -> {
+            if (error != null) {
+                finish(pending, error);
+                return;
+            }
+            loaded.add(pending);
+            // Shut down in the meantime; nothing will tick it anymore.
+            if (!running.get() && loaded.remove(pending)) {
+                finish(pending, new IllegalStateException("Plot world editor is shut down."));
+            }
+        });
+    }
+
+    /**
+     * Plans the job, sending it back to loading if its chunks were unloaded in the meantime.
+     *
+     * @return whether the job is ready to be applied
+     */
+    private boolean plan(Pending pending) {
+        if (!pending.job.chunksLoaded()) {
+            if (pending.loadAttempts >= MAX_LOAD_ATTEMPTS) {
+                finish(pending, new IllegalStateException("Chunks of a world edit in "
+                        + pending.job.worldName() + " keep getting unloaded."));
+            } else {
+                load(pending);
+            }
+            return false;
+        }
+        // From here on a new submission needs a plan of its own.
+        unplanned.remove(pending.job.key(), pending);
+        try {
+            pending.plan = pending.job.plan();
+        } catch (Throwable ex) {
+            logger.error("Failed to plan a world edit in {}.", pending.job.worldName(), ex);
+            finish(pending, ex);
+            return false;
+        }
+        return true;
+    }
+
+    private void finish(Pending pending, Throwable error) {
+        if (!pending.finished.compareAndSet(false, true)) {
+            return;
+        }
+        unplanned.remove(pending.job.key(), pending);
+        AtomicInteger queued = queuedByWorld.get(pending.job.worldName());
+        if (queued != null) {
+            queued.decrementAndGet();
+        }
+        if (error == null) {
+            pending.done.complete(null);
+        } else {
+            pending.done.completeExceptionally(error);
+        }
+    }
+}
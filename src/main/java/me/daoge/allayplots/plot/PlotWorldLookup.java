@@ -0,0 +1,63 @@
+package me.daoge.allayplots.plot;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Caches which plot world a key (a dimension) belongs to, by the key's identity, so event threads find their world
+ * without hashing a name or taking a lock.
+ * <p>
+ * Keys that are not part of a plot world are cached too and come back as null straight away. The map is copied on
+ * write and published through a volatile field; writes only happen once per key. A reloaded world comes back with new
+ * keys, which simply miss and are resolved again; every miss also drops the keys {@code loaded} no longer accepts.
+ */
+final class PlotWorldLookup<K> {
+    private final Function<K, PlotWorld> resolver;
+    private final Predicate<K> loaded;
+    private volatile Map<K, Optional<PlotWorld>> cache = new IdentityHashMap<>();
+
+    /**
+     * @param resolver finds the plot world of a key, or null if it has none
+     * @param loaded   whether a cached key still belongs to a loaded world
+     */
+    PlotWorldLookup(Function<K, PlotWorld> resolver, Predicate<K> loaded) {
+        this.resolver = resolver;
+        this.loaded = loaded;
+    }
+
+    PlotWorld get(K key) {
+        Optional<PlotWorld> cached = cache.get(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        return resolve(key);
+    }
+
+    /**
+     * Forgets every key, e.g. after the plot worlds were reloaded.
+     */
+    synchronized void clear() {
+        cache = new IdentityHashMap<>();
+    }
+
+    private synchronized PlotWorld resolve(K key) {
+        Optional<PlotWorld> cached = cache.get(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        PlotWorld plotWorld = resolver.apply(key);
+        Map<K, Optional<PlotWorld>> updated = new IdentityHashMap<>();
+        for (Map.Entry<K, Optional<PlotWorld>> entry : cache.entrySet()) {
+            // Misses are rare (once per key), so use them to drop keys of unloaded worlds.
+            if (loaded.test(entry.getKey())) {
+                updated.put(entry.getKey(), entry.getValue());
+            }
+        }
+        updated.put(key, Optional.ofNullable(plotWorld));
+        cache = updated;
+        return plotWorld;
+    }
+}
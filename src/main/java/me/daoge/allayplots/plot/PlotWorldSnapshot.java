@@ -0,0 +1,231 @@
+package me.daoge.allayplots.plot;
+
+import me.daoge.allayplots.config.PlotWorldConfig;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Immutable view of a plot world as of one published version.
+ * <p>
+ * The world's worker publishes a new snapshot once a batch of writes is complete, sharing every untouched part of
+ * the previous one. {@link PlotWorld#snapshot()} hands it out with a single volatile read, and everything read
+ * through it reflects the same moment: a merge that rewrites two plots is either fully visible or not at all, and
+ * merge groups always match the plots they were built from.
+ */
+public final class PlotWorldSnapshot {
+    /**
+     * What the snapshot knows about one stored cell.
+     */
+    record Cell(Plot plot, int mask, PlotMergeGroup group) {
+    }
+
+    private final PlotWorldConfig config;
+    private final long version;
+    private final CellTrie<Cell> cells;
+    private final PlotChunkCache chunkCache;
+
+    private PlotWorldSnapshot(PlotWorldConfig config, long version, CellTrie<Cell> cells, PlotChunkCache previous,
+                              LongPredicate staleChunks) {
+        this.config = config;
+        this.version = version;
+        this.cells = cells;
+        this.chunkCache = previous == null
+                ? new PlotChunkCache(this::resolvePlotKeyAt)
+                : previous.derive(this::resolvePlotKeyAt, staleChunks);
+    }
+
+    static PlotWorldSnapshot empty(PlotWorldConfig config) {
+        return new PlotWorldSnapshot(config, 0, CellTrie.empty(), null, null);
+    }
+
+    /**
+     * Returns the successor holding {@code cells}, carrying over the resolved chunks {@code staleChunks} rejects.
+     */
+    PlotWorldSnapshot next(CellTrie<Cell> cells, LongPredicate staleChunks) {
+        return new PlotWorldSnapshot(config, version + 1, cells, chunkCache, staleChunks);
+    }
+
+    CellTrie<Cell> cells() {
+        return cells;
+    }
+
+    /**
+     * Returns the number of publications before this one; a newer snapshot of the same world has a higher version.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    public Plot getPlot(PlotId id) {
+        return getPlot(id.key());
+    }
+
+    public Plot getPlot(long key) {
+        Cell cell = cells.get(key);
+        return cell != null ? cell.plot() : null;
+    }
+
+    /**
+     * Visits every plot of the snapshot, in no particular order.
+     */
+    public void forEach(Consumer<Plot> action) {
+        cells.forEach((key, cell) -> action.accept(cell.plot()));
+    }
+
+    /**
+     * See {@link PlotWorld#getPlotIdAt(int, int)}.
+     */
+    public PlotId getPlotIdAt(int x, int z) {
+        long key = getPlotKeyAt(x, z);
+        return key == PlotWorld.ROAD ? null : PlotId.fromKey(key);
+    }
+
+    /**
+     * See {@link PlotWorld#getPlotKeyAt(int, int)}.
+     */
+    public long getPlotKeyAt(int x, int z) {
+        return chunkCache.get(x, z);
+    }
+
+    /**
+     * See {@link PlotWorld#getPlotKeysAt(int[], int[], int, long[])}.
+     */
+    public void getPlotKeysAt(int[] xs, int[] zs, int count, long[] out) {
+        if (count < 0 || xs.length < count || zs.length < count || out.length < count) {
+            throw new IllegalArgumentException("Arrays shorter than count " + count);
+        }
+        chunkCache.getAll(xs, zs, count, out);
+    }
+
+    public boolean isMerged(PlotId id, PlotMergeDirection direction) {
+        return (mask(id.key()) & direction.bit()) != 0;
+    }
+
+    public Set<PlotId> getMergeGroup(PlotId id) {
+        Cell cell = cells.get(id.key());
+        if (cell == null) return Set.of();
+        return cell.group() != null ? cell.group().members() : Set.of(id);
+    }
+
+    public PlotId getMergeRoot(PlotId id) {
+        PlotMergeGroup group = getMergeGroupInfo(id);
+        return group != null ? group.root() : id;
+    }
+
+    /**
+     * Returns the merge group containing the plot, or null when the plot is unmerged or absent.
+     */
+    public PlotMergeGroup getMergeGroupInfo(PlotId id) {
+        Cell cell = cells.get(id.key());
+        return cell != null ? cell.group() : null;
+    }
+
+    public PlotBounds getMergedPlotBounds(PlotId id) {
+        PlotMergeGroup group = getMergeGroupInfo(id);
+        return group != null ? group.bounds() : PlotWorld.plotBounds(config, id);
+    }
+
+    /**
+     * Visits every plot whose area intersects the block box (bounds inclusive), together with its merge group or
+     * null when unmerged. Road strips and intersections owned by a merge count as part of the plot, as in
+     * {@link #getPlotKeyAt(int, int)}. Only the cells covered by the box are probed, unless the snapshot holds fewer
+     * plots than that, in which case its plots are scanned instead.
+     */
+    public void forEachPlotIn(int minX, int minZ, int maxX, int maxZ, BiConsumer<Plot, PlotMergeGroup> action) {
+        if (minX > maxX || minZ > maxZ) return;
+        int totalSize = config.totalSize();
+        int minCellX = PlotWorld.toCellIndex(minX, totalSize);
+        int maxCellX = PlotWorld.toCellIndex(maxX, totalSize);
+        int minCellZ = PlotWorld.toCellIndex(minZ, totalSize);
+        int maxCellZ = PlotWorld.toCellIndex(maxZ, totalSize);
+
+        long cellCount = ((long) maxCellX - minCellX + 1) * ((long) maxCellZ - minCellZ + 1);
+        if (cellCount > cells.size()) {
+            forEach(plot -> {
+                PlotId id = plot.getId();
+                if (id.x() < minCellX || id.x() > maxCellX || id.z() < minCellZ || id.z() > maxCellZ) return;
+                visitIfIntersects(id.key(), cells.get(id.key()), minX, minZ, maxX, maxZ, action);
+            });
+            return;
+        }
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                long key = PlotId.pack(cellX, cellZ);
+                Cell cell = cells.get(key);
+                if (cell != null) {
+                    visitIfIntersects(key, cell, minX, minZ, maxX, maxZ, action);
+                }
+            }
+        }
+    }
+
+    private void visitIfIntersects(long key, Cell cell, int minX, int minZ, int maxX, int maxZ,
+                                   BiConsumer<Plot, PlotMergeGroup> action) {
+        int totalSize = config.totalSize();
+        int plotSize = config.plotSize();
+        int originX = PlotId.unpackX(key) * totalSize;
+        int originZ = PlotId.unpackZ(key) * totalSize;
+        int mask = cell.mask();
+        // The plot area grows over the road to the east/south when merged that way; the corner needs the full 2x2.
+        int reachX = (mask & PlotMergeDirection.EAST.bit()) != 0 ? totalSize : plotSize;
+        int reachZ = (mask & PlotMergeDirection.SOUTH.bit()) != 0 ? totalSize : plotSize;
+
+        boolean hits = overlaps(originX, originX + plotSize - 1, minX, maxX)
+                       && overlaps(originZ, originZ + reachZ - 1, minZ, maxZ)
+                       || overlaps(originX, originX + reachX - 1, minX, maxX)
+                          && overlaps(originZ, originZ + plotSize - 1, minZ, maxZ)
+                       || (mask & PlotWorld.MERGED_INTERSECTION) != 0
+                          && overlaps(originX, originX + totalSize - 1, minX, maxX)
+                          && overlaps(originZ, originZ + totalSize - 1, minZ, maxZ);
+        if (hits) {
+            action.accept(cell.plot(), cell.group());
+        }
+    }
+
+    private static boolean overlaps(int min, int max, int otherMin, int otherMax) {
+        return min <= otherMax && max >= otherMin;
+    }
+
+    private int mask(long key) {
+        Cell cell = cells.get(key);
+        return cell != null ? cell.mask() : 0;
+    }
+
+    private long resolvePlotKeyAt(int x, int z) {
+        int plotSize = config.plotSize();
+        int totalSize = config.totalSize();
+
+        int idX = PlotWorld.toCellIndex(x, totalSize);
+        int idZ = PlotWorld.toCellIndex(z, totalSize);
+
+        int difX = PlotWorld.toCellOffset(x, totalSize);
+        int difZ = PlotWorld.toCellOffset(z, totalSize);
+
+        boolean inPlotX = difX > 0 && difX <= plotSize;
+        boolean inPlotZ = difZ > 0 && difZ <= plotSize;
+
+        long key = PlotId.pack(idX, idZ);
+
+        // Inside plot
+        if (inPlotX && inPlotZ) return key;
+
+        int mask = mask(key);
+
+        // On horizontal road strip (between north/south plots): allow if merged south
+        if (inPlotX) return (mask & PlotMergeDirection.SOUTH.bit()) != 0 ? key : PlotWorld.ROAD;
+
+        // On vertical road strip (between west/east plots): allow if merged east
+        if (inPlotZ) return (mask & PlotMergeDirection.EAST.bit()) != 0 ? key : PlotWorld.ROAD;
+
+        // On intersection: allow only if it's a fully merged 2x2 block
+        return (mask & PlotWorld.MERGED_INTERSECTION) != 0 ? key : PlotWorld.ROAD;
+    }
+}
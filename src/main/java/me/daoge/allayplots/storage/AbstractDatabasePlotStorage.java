@@ -10,11 +10,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.*;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.UnaryOperator;
-
+import java.util.stream.Stream;
+
+/**
+ * Plot storage in a relational database.
+ * <p>
+ * One connection is opened on first use and kept until {@link #close()}, together with the statements prepared on
+ * it, so a small incremental save costs neither a connection setup nor a statement parse per plot. The schema is
+ * created when that connection is opened. All methods touching the connection are synchronized.
+ * <p>
+ * A failed load or write is rethrown as {@link IllegalStateException}, a write after rolling it back, so callers can
+ * keep the changes and retry; the connection is dropped then and reopened on the next call.
+ */
 public abstract class AbstractDatabasePlotStorage implements PlotStorage {
     private static final String CREATE_PLOTS_TABLE_SQL = """
             CREATE TABLE IF NOT EXISTS plots (
@@ -64,9 +76,26 @@ public abstract class AbstractDatabasePlotStorage implements PlotStorage {
                 PRIMARY KEY (world_name, plot_x, plot_z, direction)
             )
             """;
+    private static final String INSERT_PLOT_SQL =
+            "INSERT INTO plots (world_name, plot_x, plot_z, owner, owner_name, home) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TRUSTED_SQL =
+            "INSERT INTO plot_trusted (world_name, plot_x, plot_z, player_uuid) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_DENIED_SQL =
+            "INSERT INTO plot_denied (world_name, plot_x, plot_z, player_uuid) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_FLAG_SQL =
+            "INSERT INTO plot_flags (world_name, plot_x, plot_z, flag_key, flag_value) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_MERGED_SQL =
+            "INSERT INTO plot_merged (world_name, plot_x, plot_z, direction) VALUES (?, ?, ?, ?)";
+    // Child tables first, so a plot row is never left without its data halfway through.
+    private static final List<String> DELETE_PLOT_SQL = Stream.of(
+                    "plot_flags", "plot_merged", "plot_denied", "plot_trusted", "plots")
+            .map(table -> "DELETE FROM " + table + " WHERE world_name = ? AND plot_x = ? AND plot_z = ?")
+            .toList();
 
     protected final Path dataFolder;
     protected final Logger logger;
+    private Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
 
     protected AbstractDatabasePlotStorage(Path dataFolder, Logger logger) {
         this.dataFolder = dataFolder;
@@ -82,10 +111,10 @@ public abstract class AbstractDatabasePlotStorage implements PlotStorage {
     protected abstract String getJdbcUrl();
 
     @Override
-    public Map<String, Map<PlotId, Plot>> load() {
+    public synchronized Map<String, Map<PlotId, Plot>> load() {
         Map<String, Map<PlotId, Plot>> result = new HashMap<>();
-        try (Connection connection = openConnection()) {
-            initSchema(connection);
+        try {
+            Connection connection = connection();
             loadPlots(connection, result);
             loadAccessList(connection, result, "plot_trusted", true);
             loadAccessList(connection, result, "plot_denied", false);
@@ -93,37 +122,114 @@ public abstract class AbstractDatabasePlotStorage implements PlotStorage {
             loadMerged(connection, result);
             pruneDefaults(result);
         } catch (SQLException ex) {
-            logger.error("Failed to load plot data from {} storage.", getDatabaseName(), ex);
+            resetConnection();
+            // Carrying on with no plots would let the next save overwrite the stored ones.
+            throw new IllegalStateException("Failed to load plot data from " + getDatabaseName() + " storage.", ex);
         }
         return result;
     }
 
     @Override
-    public void save(Map<String, Map<PlotId, Plot>> worlds) {
-        try (Connection connection = openConnection()) {
+    public synchronized void save(Map<String, Map<PlotId, Plot>> worlds) {
+        try {
+            Connection connection = connection();
+            inTransaction(connection, () -> {
+                clearTables(connection);
+                insertPlots(worlds);
+                insertAccessLists(worlds, true);
+                insertAccessLists(worlds, false);
+                insertFlags(worlds);
+                insertMerged(worlds);
+            });
+        } catch (SQLException ex) {
+            resetConnection();
+            throw new IllegalStateException("Failed to save plot data to " + getDatabaseName() + " storage.", ex);
+        }
+    }
+
+    protected Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(getJdbcUrl());
+    }
+
+    /**
+     * Closes the connection and its statements; the next call opens a new one.
+     */
+    @Override
+    public synchronized void close() {
+        resetConnection();
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            statements.clear();
+            connection = openConnection();
             initSchema(connection);
-            connection.setAutoCommit(false);
+        }
+        return connection;
+    }
+
+    /**
+     * Returns the statement for the SQL, prepared on the current connection the first time it is needed.
+     */
+    private PreparedStatement statement(String sql) throws SQLException {
+        Connection current = connection();
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt == null) {
+            stmt = current.prepareStatement(sql);
+            statements.put(sql, stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Runs the work in one transaction on the connection and commits it. On failure the transaction is rolled back
+     * and the connection dropped; auto-commit is switched back on either way, and if that fails too, the failure is
+     * added to the work's as suppressed rather than replacing it.
+     */
+    private void inTransaction(Connection connection, Transaction work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException ex) {
+            rollback(connection, ex);
             try {
-                clearTables(connection);
-                insertPlots(connection, worlds);
-                insertAccessLists(connection, worlds, true);
-                insertAccessLists(connection, worlds, false);
-                insertFlags(connection, worlds);
-                insertMerged(connection, worlds);
-                connection.commit();
-            } catch (SQLException ex) {
-                connection.rollback();
-                logger.error("Failed to save plot data to {} storage.", getDatabaseName(), ex);
-            } finally {
                 connection.setAutoCommit(true);
+            } catch (SQLException restoreFailure) {
+                ex.addSuppressed(restoreFailure);
             }
+            resetConnection();
+            throw ex;
+        }
+        // Nothing failed before, so this failure is the one to report; the caller drops the connection for it.
+        connection.setAutoCommit(true);
+    }
+
+    private void rollback(Connection connection, Exception failure) {
+        try {
+            connection.rollback();
         } catch (SQLException ex) {
-            logger.error("Failed to open {} storage connection.", getDatabaseName(), ex);
+            failure.addSuppressed(ex);
         }
     }
 
-    protected Connection openConnection() throws SQLException {
-        return DriverManager.getConnection(getJdbcUrl());
+    private void resetConnection() {
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // The connection is closed right after anyway.
+            }
+        }
+        statements.clear();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                logger.warn("Failed to close {} storage connection.", getDatabaseName(), ex);
+            }
+            connection = null;
+        }
     }
 
     private void loadDriver() {
@@ -281,106 +387,114 @@ public abstract class AbstractDatabasePlotStorage implements PlotStorage {
         result.entrySet().removeIf(entry -> entry.getValue().isEmpty());
     }
 
-    private void insertPlots(Connection connection, Map<String, Map<PlotId, Plot>> worlds) throws SQLException {
-        String sql = "INSERT INTO plots (world_name, plot_x, plot_z, owner, owner_name, home) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
-                String worldName = entry.getKey();
-                for (Plot plot : entry.getValue().values()) {
-                    if (plot.isDefault()) {
-                        continue;
-                    }
-                    stmt.setString(1, worldName);
-                    stmt.setInt(2, plot.getId().x());
-                    stmt.setInt(3, plot.getId().z());
-                    if (plot.getOwner() != null) {
-                        stmt.setString(4, plot.getOwner().toString());
-                    } else {
-                        stmt.setNull(4, Types.VARCHAR);
-                    }
-                    String ownerName = plot.getOwnerName();
-                    if (ownerName != null && !ownerName.isBlank()) {
-                        stmt.setString(5, ownerName);
-                    } else {
-                        stmt.setNull(5, Types.VARCHAR);
-                    }
-                    stmt.setInt(6, plot.isHome() ? 1 : 0);
-                    stmt.addBatch();
+    private void insertPlots(Map<String, Map<PlotId, Plot>> worlds) throws SQLException {
+        PreparedStatement stmt = statement(INSERT_PLOT_SQL);
+        for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
+            String worldName = entry.getKey();
+            for (Plot plot : entry.getValue().values()) {
+                if (plot.isDefault()) {
+                    continue;
                 }
+                bindPlot(stmt, worldName, plot);
+                stmt.addBatch();
             }
-            stmt.executeBatch();
         }
+        stmt.executeBatch();
     }
 
-    private void insertAccessLists(Connection connection, Map<String, Map<PlotId, Plot>> worlds, boolean trusted) throws SQLException {
-        String table = trusted ? "plot_trusted" : "plot_denied";
-        String sql = "INSERT INTO " + table + " (world_name, plot_x, plot_z, player_uuid) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
-                String worldName = entry.getKey();
-                for (Plot plot : entry.getValue().values()) {
-                    if (plot.isDefault()) {
-                        continue;
-                    }
-                    for (UUID uuid : trusted ? plot.getTrusted() : plot.getDenied()) {
-                        stmt.setString(1, worldName);
-                        stmt.setInt(2, plot.getId().x());
-                        stmt.setInt(3, plot.getId().z());
-                        stmt.setString(4, uuid.toString());
-                        stmt.addBatch();
-                    }
+    private void insertAccessLists(Map<String, Map<PlotId, Plot>> worlds, boolean trusted) throws SQLException {
+        PreparedStatement stmt = statement(trusted ? INSERT_TRUSTED_SQL : INSERT_DENIED_SQL);
+        for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
+            String worldName = entry.getKey();
+            for (Plot plot : entry.getValue().values()) {
+                if (plot.isDefault()) {
+                    continue;
                 }
+                addAccessList(stmt, worldName, plot, trusted);
             }
-            stmt.executeBatch();
         }
+        stmt.executeBatch();
     }
 
-    private void insertFlags(Connection connection, Map<String, Map<PlotId, Plot>> worlds) throws SQLException {
-        String sql = "INSERT INTO plot_flags (world_name, plot_x, plot_z, flag_key, flag_value) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
-                String worldName = entry.getKey();
-                for (Plot plot : entry.getValue().values()) {
-                    if (plot.isDefault() || plot.getFlags().isEmpty()) {
-                        continue;
-                    }
-                    for (Map.Entry<String, String> flagEntry : plot.getFlags().entrySet()) {
-                        String value = flagEntry.getValue();
-                        if (value == null || value.isBlank()) {
-                            continue;
-                        }
-                        stmt.setString(1, worldName);
-                        stmt.setInt(2, plot.getId().x());
-                        stmt.setInt(3, plot.getId().z());
-                        stmt.setString(4, flagEntry.getKey());
-                        stmt.setString(5, value);
-                        stmt.addBatch();
-                    }
+    private void insertFlags(Map<String, Map<PlotId, Plot>> worlds) throws SQLException {
+        PreparedStatement stmt = statement(INSERT_FLAG_SQL);
+        for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
+            String worldName = entry.getKey();
+            for (Plot plot : entry.getValue().values()) {
+                if (plot.isDefault()) {
+                    continue;
                 }
+                addFlags(stmt, worldName, plot);
             }
-            stmt.executeBatch();
         }
+        stmt.executeBatch();
     }
 
-    private void insertMerged(Connection connection, Map<String, Map<PlotId, Plot>> worlds) throws SQLException {
-        String sql = "INSERT INTO plot_merged (world_name, plot_x, plot_z, direction) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
-                String worldName = entry.getKey();
-                for (Plot plot : entry.getValue().values()) {
-                    if (plot.isDefault() || plot.getMergedDirections().isEmpty()) {
-                        continue;
-                    }
-                    for (PlotMergeDirection direction : plot.getMergedDirections()) {
-                        stmt.setString(1, worldName);
-                        stmt.setInt(2, plot.getId().x());
-                        stmt.setInt(3, plot.getId().z());
-                        stmt.setString(4, direction.getLowerCaseName());
-                        stmt.addBatch();
-                    }
+    private void insertMerged(Map<String, Map<PlotId, Plot>> worlds) throws SQLException {
+        PreparedStatement stmt = statement(INSERT_MERGED_SQL);
+        for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
+            String worldName = entry.getKey();
+            for (Plot plot : entry.getValue().values()) {
+                if (plot.isDefault()) {
+                    continue;
                 }
+                addMerged(stmt, worldName, plot);
             }
-            stmt.executeBatch();
+        }
+        stmt.executeBatch();
+    }
+
+    private void bindPlot(PreparedStatement stmt, String worldName, Plot plot) throws SQLException {
+        stmt.setString(1, worldName);
+        stmt.setInt(2, plot.getId().x());
+        stmt.setInt(3, plot.getId().z());
+        if (plot.getOwner() != null) {
+            stmt.setString(4, plot.getOwner().toString());
+        } else {
+            stmt.setNull(4, Types.VARCHAR);
+        }
+        String ownerName = plot.getOwnerName();
+        if (ownerName != null && !ownerName.isBlank()) {
+            stmt.setString(5, ownerName);
+        } else {
+            stmt.setNull(5, Types.VARCHAR);
+        }
+        stmt.setInt(6, plot.isHome() ? 1 : 0);
+    }
+
+    private void addAccessList(PreparedStatement stmt, String worldName, Plot plot, boolean trusted)
+            throws SQLException {
+        for (UUID uuid : trusted ? plot.getTrusted() : plot.getDenied()) {
+            stmt.setString(1, worldName);
+            stmt.setInt(2, plot.getId().x());
+            stmt.setInt(3, plot.getId().z());
+            stmt.setString(4, uuid.toString());
+            stmt.addBatch();
+        }
+    }
+
+    private void addFlags(PreparedStatement stmt, String worldName, Plot plot) throws SQLException {
+        for (Map.Entry<String, String> flagEntry : plot.getFlags().entrySet()) {
+            String value = flagEntry.getValue();
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            stmt.setString(1, worldName);
+            stmt.setInt(2, plot.getId().x());
+            stmt.setInt(3, plot.getId().z());
+            stmt.setString(4, flagEntry.getKey());
+            stmt.setString(5, value);
+            stmt.addBatch();
+        }
+    }
+
+    private void addMerged(PreparedStatement stmt, String worldName, Plot plot) throws SQLException {
+        for (PlotMergeDirection direction : plot.getMergedDirections()) {
+            stmt.setString(1, worldName);
+            stmt.setInt(2, plot.getId().x());
+            stmt.setInt(3, plot.getId().z());
+            stmt.setString(4, direction.getLowerCaseName());
+            stmt.addBatch();
         }
     }
 
@@ -390,22 +504,20 @@ public abstract class AbstractDatabasePlotStorage implements PlotStorage {
     }
 
     @Override
-    public void saveIncremental(
+    public synchronized void saveIncremental(
             Map<String, Map<PlotId, Plot>> dirtyPlots,
             Map<String, Set<PlotId>> deletedPlots
     ) {
         if (dirtyPlots.isEmpty() && deletedPlots.isEmpty()) {
             return;
         }
-        try (Connection connection = openConnection()) {
-            initSchema(connection);
-            connection.setAutoCommit(false);
-            try {
+        try {
+            inTransaction(connection(), () -> {
                 // Delete removed plots
                 for (Map.Entry<String, Set<PlotId>> entry : deletedPlots.entrySet()) {
                     String worldName = entry.getKey();
                     for (PlotId id : entry.getValue()) {
-                        deletePlotData(connection, worldName, id);
+                        deletePlotData(worldName, id);
                     }
                 }
                 // Upsert dirty plots
@@ -413,133 +525,67 @@ public abstract class AbstractDatabasePlotStorage implements PlotStorage {
                     String worldName = entry.getKey();
                     for (Plot plot : entry.getValue().values()) {
                         if (plot.isDefault()) {
-                            deletePlotData(connection, worldName, plot.getId());
+                            deletePlotData(worldName, plot.getId());
                         } else {
-                            upsertPlot(connection, worldName, plot);
+                            upsertPlot(worldName, plot);
                         }
                     }
                 }
-                connection.commit();
-            } catch (SQLException ex) {
-                connection.rollback();
-                logger.error("Failed to incrementally save plot data to {} storage.", getDatabaseName(), ex);
-            } finally {
-                connection.setAutoCommit(true);
-            }
+            });
         } catch (SQLException ex) {
-            logger.error("Failed to open {} storage connection.", getDatabaseName(), ex);
+            resetConnection();
+            throw new IllegalStateException(
+                    "Failed to incrementally save plot data to " + getDatabaseName() + " storage.", ex);
         }
     }
 
-    private void deletePlotData(Connection connection, String worldName, PlotId id) throws SQLException {
-        int x = id.x();
-        int z = id.z();
-        deleteFrom(connection, "plot_flags", worldName, x, z);
-        deleteFrom(connection, "plot_merged", worldName, x, z);
-        deleteFrom(connection, "plot_denied", worldName, x, z);
-        deleteFrom(connection, "plot_trusted", worldName, x, z);
-        deleteFrom(connection, "plots", worldName, x, z);
-    }
-
-    private void deleteFrom(Connection connection, String table, String worldName, int x, int z) throws SQLException {
-        String sql = "DELETE FROM " + table + " WHERE world_name = ? AND plot_x = ? AND plot_z = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+    private void deletePlotData(String worldName, PlotId id) throws SQLException {
+        for (String sql : DELETE_PLOT_SQL) {
+            PreparedStatement stmt = statement(sql);
             stmt.setString(1, worldName);
-            stmt.setInt(2, x);
-            stmt.setInt(3, z);
+            stmt.setInt(2, id.x());
+            stmt.setInt(3, id.z());
             stmt.executeUpdate();
         }
     }
 
-    private void upsertPlot(Connection connection, String worldName, Plot plot) throws SQLException {
-        int x = plot.getId().x();
-        int z = plot.getId().z();
+    /**
+     * Replaces the stored data of the plot: the old rows are deleted, then the plot is inserted afresh.
+     */
+    private void upsertPlot(String worldName, Plot plot) throws SQLException {
+        deletePlotData(worldName, plot.getId());
 
-        // Delete existing data for this plot first, then insert fresh
-        deletePlotData(connection, worldName, plot.getId());
+        PreparedStatement stmt = statement(INSERT_PLOT_SQL);
+        bindPlot(stmt, worldName, plot);
+        stmt.executeUpdate();
 
-        // Insert main plot record
-        String sql = "INSERT INTO plots (world_name, plot_x, plot_z, owner, owner_name, home) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, worldName);
-            stmt.setInt(2, x);
-            stmt.setInt(3, z);
-            if (plot.getOwner() != null) {
-                stmt.setString(4, plot.getOwner().toString());
-            } else {
-                stmt.setNull(4, Types.VARCHAR);
-            }
-            String ownerName = plot.getOwnerName();
-            if (ownerName != null && !ownerName.isBlank()) {
-                stmt.setString(5, ownerName);
-            } else {
-                stmt.setNull(5, Types.VARCHAR);
-            }
-            stmt.setInt(6, plot.isHome() ? 1 : 0);
-            stmt.executeUpdate();
-        }
-
-        // Insert trusted
         if (!plot.getTrusted().isEmpty()) {
-            String trustedSql = "INSERT INTO plot_trusted (world_name, plot_x, plot_z, player_uuid) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(trustedSql)) {
-                for (UUID uuid : plot.getTrusted()) {
-                    stmt.setString(1, worldName);
-                    stmt.setInt(2, x);
-                    stmt.setInt(3, z);
-                    stmt.setString(4, uuid.toString());
-                    stmt.addBatch();
-                }
-                stmt.executeBatch();
-            }
+            executeBatch(INSERT_TRUSTED_SQL, batch -> addAccessList(batch, worldName, plot, true));
         }
-
-        // Insert denied
         if (!plot.getDenied().isEmpty()) {
-            String deniedSql = "INSERT INTO plot_denied (world_name, plot_x, plot_z, player_uuid) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(deniedSql)) {
-                for (UUID uuid : plot.getDenied()) {
-                    stmt.setString(1, worldName);
-                    stmt.setInt(2, x);
-                    stmt.setInt(3, z);
-                    stmt.setString(4, uuid.toString());
-                    stmt.addBatch();
-                }
-                stmt.executeBatch();
-            }
+            executeBatch(INSERT_DENIED_SQL, batch -> addAccessList(batch, worldName, plot, false));
         }
-
-        // Insert flags
         if (!plot.getFlags().isEmpty()) {
-            String flagsSql = "INSERT INTO plot_flags (world_name, plot_x, plot_z, flag_key, flag_value) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(flagsSql)) {
-                for (Map.Entry<String, String> flagEntry : plot.getFlags().entrySet()) {
-                    String value = flagEntry.getValue();
-                    if (value == null || value.isBlank()) continue;
-                    stmt.setString(1, worldName);
-                    stmt.setInt(2, x);
-                    stmt.setInt(3, z);
-                    stmt.setString(4, flagEntry.getKey());
-                    stmt.setString(5, value);
-                    stmt.addBatch();
-                }
-                stmt.executeBatch();
-            }
+            executeBatch(INSERT_FLAG_SQL, batch -> addFlags(batch, worldName, plot));
         }
-
-        // Insert merged directions
         if (!plot.getMergedDirections().isEmpty()) {
-            String mergedSql = "INSERT INTO plot_merged (world_name, plot_x, plot_z, direction) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(mergedSql)) {
-                for (PlotMergeDirection direction : plot.getMergedDirections()) {
-                    stmt.setString(1, worldName);
-                    stmt.setInt(2, x);
-                    stmt.setInt(3, z);
-                    stmt.setString(4, direction.getLowerCaseName());
-                    stmt.addBatch();
-                }
-                stmt.executeBatch();
-            }
+            executeBatch(INSERT_MERGED_SQL, batch -> addMerged(batch, worldName, plot));
         }
     }
+
+    private void executeBatch(String sql, BatchFiller filler) throws SQLException {
+        PreparedStatement stmt = statement(sql);
+        filler.fill(stmt);
+        stmt.executeBatch();
+    }
+
+    @FunctionalInterface
+    private interface BatchFiller {
+        void fill(PreparedStatement stmt) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Transaction {
+        void run() throws SQLException;
+    }
 }
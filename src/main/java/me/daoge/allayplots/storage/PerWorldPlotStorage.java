@@ -0,0 +1,269 @@
+package me.daoge.allayplots.storage;
+
+import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
+import me.daoge.allayplots.plot.PlotId;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every world in a storage of its own, in a folder named after the world, so worlds are saved independently of
+ * each other: a world's large rewrite never holds up the others, and calls for different worlds may run at the same
+ * time. Calls spanning several worlds process them in parallel. This storage owns the limit on parallel writes: at
+ * most {@code maxParallelWorlds} worlds are processed at once, counted over all calls, including those callers make
+ * for single worlds from threads of their own.
+ * <p>
+ * Worlds without a folder yet are imported from the previous shared storage, if one is given, on the first
+ * {@link #load()}. A world is written to a hidden staging folder first and only moved into place once it loads back
+ * complete, so a failed import never leaves a folder that would hide the world's plots on later starts.
+ */
+public final class PerWorldPlotStorage implements PlotStorage {
+    private static final String STAGING_PREFIX = ".import-";
+
+    private final Path root;
+    private final Set<String> worldNames;
+    private final Function<Path, PlotStorage> factory;
+    // Cleared once imported; only touched by load().
+    private PlotStorage legacy;
+    private final Logger logger;
+    private final Semaphore slots;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("AllayPlots-WorldStorage-", 0).factory());
+    private final Map<String, PlotStorage> storages = new ConcurrentHashMap<>();
+
+    /**
+     * @param root              folder holding one folder per world
+     * @param worldNames        worlds to load even if they have no folder yet
+     * @param factory           creates the storage of one world from its folder
+     * @param legacy            shared storage to import worlds from, or null
+     * @param maxParallelWorlds most worlds processed at once over all calls
+     */
+    public PerWorldPlotStorage(Path root, Collection<String> worldNames, Function<Path, PlotStorage> factory,
+                               PlotStorage legacy, Logger logger, int maxParallelWorlds) {
+        this.root = root;
+        this.worldNames = Set.copyOf(worldNames);
+        this.factory = factory;
+        this.legacy = legacy;
+        this.logger = logger;
+        this.slots = new Semaphore(Math.max(1, maxParallelWorlds));
+    }
+
+    @Override
+    public Map<String, Map<PlotId, Plot>> load() {
+        importLegacy();
+        Set<String> names = new TreeSet<>(worldNames);
+        names.addAll(existingWorlds());
+        Map<String, Map<PlotId, Plot>> result = new ConcurrentHashMap<>();
+        forEachWorld(names, worldName -> {
+            Map<PlotId, Plot> plots = storage(worldName).load().get(worldName);
+            if (plots != null && !plots.isEmpty()) {
+                result.put(worldName, plots);
+            }
+        });
+        return new HashMap<>(result);
+    }
+
+    @Override
+    public void save(Map<String, Map<PlotId, Plot>> worlds) {
+        forEachWorld(worlds.keySet(), worldName -> storage(worldName).save(Map.of(worldName, worlds.get(worldName))));
+    }
+
+    @Override
+    public void saveIncremental(Map<String, Map<PlotId, Plot>> dirtyPlots, Map<String, Set<PlotId>> deletedPlots) {
+        Set<String> names = new HashSet<>(dirtyPlots.keySet());
+        names.addAll(deletedPlots.keySet());
+        forEachWorld(names, worldName -> storage(worldName).saveIncremental(
+                dirtyPlots.containsKey(worldName) ? Map.of(worldName, dirtyPlots.get(worldName)) : Map.of(),
+                deletedPlots.containsKey(worldName) ? Map.of(worldName, deletedPlots.get(worldName)) : Map.of()
+        ));
+    }
+
+    /**
+     * Hands every world its own changes, in their original order.
+     */
+    @Override
+    public void saveChanges(List<PlotChange> changes) {
+        Map<String, List<PlotChange>> byWorld = new HashMap<>();
+        for (PlotChange change : changes) {
+            byWorld.computeIfAbsent(change.worldName(), name -> new ArrayList<>()).add(change);
+        }
+        forEachWorld(byWorld.keySet(), worldName -> storage(worldName).saveChanges(byWorld.get(worldName)));
+    }
+
+    @Override
+    public boolean supportsIncrementalSave() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (PlotStorage storage : storages.values()) {
+            try {
+                storage.close();
+            } catch (RuntimeException ex) {
+                logger.error("Failed to close a plot world storage.", ex);
+            }
+        }
+        executor.shutdown();
+    }
+
+    private PlotStorage storage(String worldName) {
+        return storages.computeIfAbsent(worldName, name -> {
+            Path folder = root.resolve(name);
+            try {
+                Files.createDirectories(folder);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to create the storage folder of plot world " + name + ".", ex);
+            }
+            return factory.apply(folder);
+        });
+    }
+
+    private Set<String> existingWorlds() {
+        if (!Files.isDirectory(root)) {
+            return Set.of();
+        }
+        try (Stream<Path> folders = Files.list(root)) {
+            Set<String> names = new HashSet<>();
+            folders.filter(Files::isDirectory)
+                    .map(folder -> folder.getFileName().toString())
+                    .filter(name -> !name.startsWith("."))
+                    .forEach(names::add);
+            return names;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to list plot world storages in " + root + ".", ex);
+        }
+    }
+
+    /**
+     * Copies every world of the shared storage that has no folder of its own yet into a new per-world storage.
+     *
+     * @throws IllegalStateException if a world could not be imported; the worlds imported before it are kept
+     */
+    private void importLegacy() {
+        if (legacy == null) {
+            return;
+        }
+        try {
+            Set<String> existing = existingWorlds();
+            Map<String, Map<PlotId, Plot>> shared = legacy.load();
+            for (Map.Entry<String, Map<PlotId, Plot>> entry : shared.entrySet()) {
+                if (!existing.contains(entry.getKey())) {
+                    importWorld(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            legacy.close();
+            legacy = null;
+        }
+    }
+
+    private void importWorld(String worldName, Map<PlotId, Plot> plots) {
+        Path staging = root.resolve(STAGING_PREFIX + worldName);
+        Path target = root.resolve(worldName);
+        long expected = plots.values().stream().filter(plot -> !plot.isDefault()).count();
+        try {
+            deleteRecursively(staging);
+            Files.createDirectories(staging);
+            PlotStorage staged = factory.apply(staging);
+            try {
+                staged.save(Map.of(worldName, plots));
+                int written = staged.load().getOrDefault(worldName, Map.of()).size();
+                if (written != expected) {
+                    throw new IllegalStateException("Only " + written + " of " + expected + " plots were written.");
+                }
+            } finally {
+                staged.close();
+            }
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException ex) {
+            try {
+                deleteRecursively(staging);
+            } catch (IOException cleanup) {
+                ex.addSuppressed(cleanup);
+            }
+            throw new IllegalStateException("Failed to import plot world " + worldName
+                    + " from the shared storage; it is left there and retried on the next start.", ex);
+        }
+        logger.info("Moved {} plots of world {} from the shared storage into {}.", expected, worldName, target);
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        if (!Files.exists(folder)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Runs the action for every world, in parallel up to the limit, and waits for all of them. The first failure is
+     * rethrown once every world is done.
+     */
+    private void forEachWorld(Collection<String> worldNames, Consumer<String> action) {
+        if (worldNames.isEmpty()) {
+            return;
+        }
+        if (worldNames.size() == 1) {
+            runWithSlot(worldNames.iterator().next(), action);
+            return;
+        }
+        List<Future<Void>> futures = new ArrayList<>(worldNames.size());
+        for (String worldName : worldNames) {
+            Callable<Void> task = () -> {
+                runWithSlot(worldName, action);
+                return null;
+            };
+            futures.add(executor.submit(task));
+        }
+        RuntimeException failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                RuntimeException cause = ex.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException(ex.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for plot world storages.", ex);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void runWithSlot(String worldName, Consumer<String> action) {
+        slots.acquireUninterruptibly();
+        try {
+            action.accept(worldName);
+        } finally {
+            slots.release();
+        }
+    }
+}
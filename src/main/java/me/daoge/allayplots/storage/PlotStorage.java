@@ -1,13 +1,27 @@
 package me.daoge.allayplots.storage;
 
 import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
 import me.daoge.allayplots.plot.PlotId;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Where plots are kept between restarts. Every save either writes all it was given or throws, so a caller can keep
+ * the changes of a failed save and hand them over again.
+ */
 public interface PlotStorage {
     Map<String, Map<PlotId, Plot>> load();
 
+    /**
+     * Replaces every stored plot with the given ones.
+     *
+     * @throws RuntimeException if the plots could not be written
+     */
     void save(Map<String, Map<PlotId, Plot>> worlds);
 
     /**
@@ -15,6 +29,7 @@ public interface PlotStorage {
      *
      * @param dirtyPlots  map of world name to plots that were modified (upsert)
      * @param deletedPlots map of world name to plot IDs that were deleted
+     * @throws RuntimeException if the changes could not be written
      */
     default void saveIncremental(
             Map<String, Map<PlotId, Plot>> dirtyPlots,
@@ -26,10 +41,46 @@ public interface PlotStorage {
         save(dirtyPlots);
     }
 
+    /**
+     * Saves a stream of journaled changes, oldest first within each world. A change without a plot removes it.
+     * <p>
+     * The default keeps the last change of every plot and hands the result to
+     * {@link #saveIncremental(Map, Map)}; storages without incremental saves must override this.
+     *
+     * @param changes the changes in the order they were made
+     * @throws RuntimeException if the changes could not be written
+     */
+    default void saveChanges(List<PlotChange> changes) {
+        Map<String, Map<PlotId, Plot>> dirtyPlots = new HashMap<>();
+        Map<String, Set<PlotId>> deletedPlots = new HashMap<>();
+        for (PlotChange change : changes) {
+            if (change.isRemoval()) {
+                Map<PlotId, Plot> dirty = dirtyPlots.get(change.worldName());
+                if (dirty != null) {
+                    dirty.remove(change.id());
+                }
+                deletedPlots.computeIfAbsent(change.worldName(), name -> new HashSet<>()).add(change.id());
+            } else {
+                Set<PlotId> deleted = deletedPlots.get(change.worldName());
+                if (deleted != null) {
+                    deleted.remove(change.id());
+                }
+                dirtyPlots.computeIfAbsent(change.worldName(), name -> new HashMap<>()).put(change.id(), change.plot());
+            }
+        }
+        saveIncremental(dirtyPlots, deletedPlots);
+    }
+
     /**
      * Returns true if this storage supports efficient incremental saves.
      */
     default boolean supportsIncrementalSave() {
         return false;
     }
+
+    /**
+     * Releases whatever the storage holds open. Called once on shutdown, after the last save.
+     */
+    default void close() {
+    }
 }
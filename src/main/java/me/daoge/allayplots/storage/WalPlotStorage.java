@@ -0,0 +1,532 @@
+package me.daoge.allayplots.storage;
+
+import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
+import me.daoge.allayplots.plot.PlotId;
+import me.daoge.allayplots.plot.PlotMergeDirection;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log in front of another {@link PlotStorage}.
+ * <p>
+ * {@link #saveChanges(List)} appends the changes as compact binary records to the current log segment and syncs the
+ * segment once per call, so every change drained by one save shares a single fsync and costs the same whatever the
+ * wrapped storage is. A background checkpoint hands the logged changes to the wrapped storage and deletes the
+ * segments it covered, once the log grows past a size or a fixed interval elapsed. {@link #load()} replays whatever
+ * segments are left, e.g. after a crash, on top of what the wrapped storage loads.
+ * <p>
+ * A segment starts with a magic number and a format version; each record is framed by its length and a CRC32C of its
+ * payload. Replay stops at the first torn or corrupt record of a segment. The log directory is synced after every
+ * segment it gains or loses, so neither a fresh segment nor a deleted one comes back differently after a crash.
+ */
+public final class WalPlotStorage implements PlotStorage {
+    private static final int MAGIC = 0x41504C57;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final boolean WINDOWS =
+            System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private final PlotStorage delegate;
+    private final Path directory;
+    private final Logger logger;
+    private final long checkpointIntervalMillis;
+    private final long checkpointBytes;
+    // Held for a whole checkpoint so two never hand changes to the wrapped storage out of order.
+    private final Object checkpointLock = new Object();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean(false);
+    private ScheduledExecutorService scheduler;
+
+    // Guarded by this.
+    private FileChannel segment;
+    private long segmentNumber;
+    private long segmentBytes;
+    // Changes logged since the last checkpoint, in log order.
+    private List<PlotChange> pending = new ArrayList<>();
+
+    /**
+     * @param checkpointIntervalMillis how often logged changes are checkpointed (0 only checkpoints by size)
+     * @param checkpointBytes          log size that triggers a checkpoint early
+     */
+    public WalPlotStorage(PlotStorage delegate, Path dataFolder, Logger logger,
+                          long checkpointIntervalMillis, long checkpointBytes) {
+        this.delegate = delegate;
+        this.directory = dataFolder.resolve("wal");
+        this.logger = logger;
+        this.checkpointIntervalMillis = Math.max(0, checkpointIntervalMillis);
+        this.checkpointBytes = Math.max(1, checkpointBytes);
+    }
+
+    @Override
+    public Map<String, Map<PlotId, Plot>> load() {
+        synchronized (checkpointLock) {
+            synchronized (this) {
+                closeSegment();
+                Map<String, Map<PlotId, Plot>> worlds = new HashMap<>();
+                delegate.load().forEach((worldName, plots) -> worlds.put(worldName, new HashMap<>(plots)));
+
+                List<PlotChange> replayed = new ArrayList<>();
+                List<Path> segments = listSegments();
+                for (Path path : segments) {
+                    readSegment(path, replayed);
+                }
+                for (PlotChange change : replayed) {
+                    Map<PlotId, Plot> plots = worlds.computeIfAbsent(change.worldName(), name -> new HashMap<>());
+                    if (change.isRemoval() || change.plot().isDefault()) {
+                        plots.remove(change.id());
+                    } else {
+                        plots.put(change.id(), change.plot());
+                    }
+                }
+                worlds.values().removeIf(Map::isEmpty);
+                // Every logged change stays pending until a checkpoint writes it through, replayed ones included.
+                pending = replayed;
+                segmentNumber = segments.isEmpty() ? 0 : segmentNumber(segments.getLast());
+                if (!replayed.isEmpty()) {
+                    logger.info("Replayed {} plot changes from the write-ahead log.", replayed.size());
+                }
+                startCheckpoints();
+                return worlds;
+            }
+        }
+    }
+
+    /**
+     * Saves the plots straight to the wrapped storage and drops the log, which they supersede. If the wrapped storage
+     * fails, the log is kept as it was.
+     */
+    @Override
+    public void save(Map<String, Map<PlotId, Plot>> worlds) {
+        synchronized (checkpointLock) {
+            List<PlotChange> superseded;
+            List<Path> sealed;
+            synchronized (this) {
+                superseded = pending;
+                pending = new ArrayList<>();
+                sealed = sealSegments();
+            }
+            try {
+                delegate.save(worlds);
+            } catch (RuntimeException ex) {
+                restorePending(superseded);
+                throw ex;
+            }
+            deleteSegments(sealed);
+        }
+    }
+
+    @Override
+    public void saveIncremental(Map<String, Map<PlotId, Plot>> dirtyPlots, Map<String, Set<PlotId>> deletedPlots) {
+        List<PlotChange> changes = new ArrayList<>();
+        deletedPlots.forEach((worldName, ids) -> {
+            for (PlotId id : ids) {
+                changes.add(new PlotChange(changes.size(), worldName, id, null));
+            }
+        });
+        dirtyPlots.forEach((worldName, plots) -> {
+            for (Plot plot : plots.values()) {
+                changes.add(new PlotChange(changes.size(), worldName, plot.getId(), plot));
+            }
+        });
+        saveChanges(changes);
+    }
+
+    /**
+     * Appends the changes to the log and syncs it before returning.
+     *
+     * @throws UncheckedIOException if the log could not be written; none of the changes count as saved then
+     */
+    @Override
+    public void saveChanges(List<PlotChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        ByteBuffer records = encode(changes);
+        boolean full;
+        synchronized (this) {
+            try {
+                if (segment == null) {
+                    openSegment();
+                }
+                while (records.hasRemaining()) {
+                    segmentBytes += segment.write(records);
+                }
+                segment.force(false);
+            } catch (IOException ex) {
+                // The segment may end in a torn record now; later records go to a fresh one.
+                closeSegment();
+                throw new UncheckedIOException("Failed to append to the plot write-ahead log.", ex);
+            }
+            pending.addAll(changes);
+            full = segmentBytes >= checkpointBytes;
+        }
+        if (full) {
+            requestCheckpoint();
+        }
+    }
+
+    @Override
+    public boolean supportsIncrementalSave() {
+        return true;
+    }
+
+    /**
+     * Checkpoints what is still logged, then closes the wrapped storage.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+        try {
+            checkpoint();
+        } catch (RuntimeException ex) {
+            logger.error("Failed to checkpoint the plot write-ahead log; it will be replayed on the next start.", ex);
+        }
+        synchronized (this) {
+            closeSegment();
+        }
+        delegate.close();
+    }
+
+    /**
+     * Writes the changes logged so far through to the wrapped storage and deletes the segments holding them. Changes
+     * logged meanwhile go to a new segment and wait for the next checkpoint.
+     */
+    void checkpoint() {
+        synchronized (checkpointLock) {
+            List<PlotChange> batch;
+            List<Path> sealed;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                sealed = sealSegments();
+            }
+            try {
+                delegate.saveChanges(batch);
+            } catch (RuntimeException ex) {
+                restorePending(batch);
+                throw ex;
+            }
+            // Only now are the changes known to be in the wrapped storage.
+            deleteSegments(sealed);
+        }
+    }
+
+    /**
+     * Puts changes that failed to reach the wrapped storage back ahead of those logged since; their segments stay.
+     */
+    private synchronized void restorePending(List<PlotChange> changes) {
+        changes.addAll(pending);
+        pending = changes;
+    }
+
+    /**
+     * Returns how many changes are logged but not checkpointed yet.
+     */
+    synchronized int pendingChanges() {
+        return pending.size();
+    }
+
+    private synchronized void startCheckpoints() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("AllayPlots-WalCheckpoint").daemon().factory());
+        if (checkpointIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::runCheckpoint,
+                    checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void requestCheckpoint() {
+        if (scheduler != null && checkpointQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                checkpointQueued.set(false);
+                runCheckpoint();
+            });
+        }
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (Throwable ex) {
+            logger.error("Failed to checkpoint the plot write-ahead log.", ex);
+        }
+    }
+
+    /**
+     * Closes the current segment so the next append starts a new one, and returns every segment written so far.
+     */
+    private List<Path> sealSegments() {
+        closeSegment();
+        return listSegments();
+    }
+
+    private void deleteSegments(List<Path> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        for (Path path : segments) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                logger.warn("Failed to delete write-ahead log segment {}.", path, ex);
+            }
+        }
+        try {
+            syncDirectory(directory);
+        } catch (IOException ex) {
+            // Segments that come back are replayed over the wrapped storage, in order, so nothing is lost.
+            logger.warn("Failed to sync the write-ahead log directory {}.", directory, ex);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            syncDirectory(directory.getParent());
+        }
+        segmentNumber++;
+        Path path = directory.resolve(String.format(Locale.ROOT, "%016d%s", segmentNumber, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            // The records' fsync only covers the file; the entry naming it must be durable before any is acknowledged.
+            syncDirectory(directory);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        segment = channel;
+        segmentBytes = 8;
+    }
+
+    /**
+     * Flushes the directory's entries to disk. Windows cannot open a directory for that and needs no such sync, as
+     * NTFS journals its metadata.
+     */
+    private static void syncDirectory(Path dir) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException ex) {
+            logger.warn("Failed to close write-ahead log segment.", ex);
+        }
+        segment = null;
+        segmentBytes = 0;
+    }
+
+    private List<Path> listSegments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .filter(path -> segmentNumber(path) >= 0)
+                    .sorted(Comparator.comparingLong(WalPlotStorage::segmentNumber))
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to list write-ahead log segments in " + directory + ".", ex);
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private void readSegment(Path path, List<PlotChange> into) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Skipping write-ahead log segment {} with an unknown format.", path);
+                return;
+            }
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ex) {
+                    return;
+                }
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    logger.warn("Write-ahead log segment {} ends in a corrupt record; ignoring the rest.", path);
+                    return;
+                }
+                byte[] payload = in.readNBytes(length);
+                crc.reset();
+                crc.update(payload);
+                if (payload.length < length || (int) crc.getValue() != checksum) {
+                    logger.warn("Write-ahead log segment {} ends in a torn record; ignoring the rest.", path);
+                    return;
+                }
+                into.add(decode(payload, into.size()));
+            }
+        } catch (EOFException ex) {
+            logger.warn("Write-ahead log segment {} ends in a torn record; ignoring the rest.", path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read write-ahead log segment " + path + ".", ex);
+        }
+    }
+
+    private static ByteBuffer encode(List<PlotChange> changes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(changes.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        CRC32C crc = new CRC32C();
+        try {
+            for (PlotChange change : changes) {
+                record.reset();
+                writePayload(recordOut, change);
+                byte[] payload = record.toByteArray();
+                crc.reset();
+                crc.update(payload);
+                out.writeInt(payload.length);
+                out.writeInt((int) crc.getValue());
+                out.write(payload);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void writePayload(DataOutputStream out, PlotChange change) throws IOException {
+        Plot plot = change.plot();
+        out.writeByte(plot == null ? OP_REMOVE : OP_PUT);
+        out.writeUTF(change.worldName());
+        out.writeInt(change.id().x());
+        out.writeInt(change.id().z());
+        if (plot == null) {
+            return;
+        }
+        UUID owner = plot.getOwner();
+        out.writeBoolean(owner != null);
+        if (owner != null) {
+            writeUuid(out, owner);
+            String ownerName = plot.getOwnerName();
+            out.writeUTF(ownerName != null ? ownerName : "");
+            out.writeBoolean(plot.isHome());
+        }
+        writeUuids(out, plot.getTrusted());
+        writeUuids(out, plot.getDenied());
+        out.writeShort(plot.getFlags().size());
+        for (Map.Entry<String, String> flag : plot.getFlags().entrySet()) {
+            out.writeUTF(flag.getKey());
+            out.writeUTF(flag.getValue());
+        }
+        int merged = 0;
+        for (PlotMergeDirection direction : plot.getMergedDirections()) {
+            merged |= 1 << direction.ordinal();
+        }
+        out.writeByte(merged);
+    }
+
+    private static PlotChange decode(byte[] payload, long sequence) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String worldName = in.readUTF();
+        PlotId id = new PlotId(in.readInt(), in.readInt());
+        if (op == OP_REMOVE) {
+            return new PlotChange(sequence, worldName, id, null);
+        }
+        if (op != OP_PUT) {
+            throw new IOException("Unknown write-ahead log operation " + op + ".");
+        }
+        Plot plot = new Plot(worldName, id);
+        if (in.readBoolean()) {
+            UUID owner = readUuid(in);
+            String ownerName = in.readUTF();
+            plot = plot.withOwner(owner, ownerName.isEmpty() ? null : ownerName);
+            if (in.readBoolean()) {
+                plot = plot.withHome(true);
+            }
+        }
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            plot = plot.withTrustedAdded(readUuid(in));
+        }
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            plot = plot.withDeniedAdded(readUuid(in));
+        }
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            plot = plot.withFlagRaw(in.readUTF(), in.readUTF());
+        }
+        int merged = in.readUnsignedByte();
+        for (PlotMergeDirection direction : PlotMergeDirection.values()) {
+            if ((merged & 1 << direction.ordinal()) != 0) {
+                plot = plot.withMergedDirectionAdded(direction);
+            }
+        }
+        return new PlotChange(sequence, worldName, id, plot);
+    }
+
+    private static void writeUuids(DataOutputStream out, Set<UUID> uuids) throws IOException {
+        out.writeShort(uuids.size());
+        for (UUID uuid : uuids) {
+            writeUuid(out, uuid);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
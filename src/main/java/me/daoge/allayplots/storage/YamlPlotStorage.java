@@ -1,18 +1,26 @@
 package me.daoge.allayplots.storage;
 
 import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
 import me.daoge.allayplots.plot.PlotId;
 import me.daoge.allayplots.plot.PlotMergeDirection;
 import org.allaymc.api.utils.config.Config;
 import org.allaymc.api.utils.config.ConfigSection;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 public final class YamlPlotStorage implements PlotStorage {
     private final Path file;
     private final Logger logger;
+    // The plots as last loaded or saved; journaled changes are applied here before the file is rewritten.
+    private final Map<String, Map<PlotId, Plot>> stored = new HashMap<>();
 
     public YamlPlotStorage(Path dataFolder, Logger logger) {
         this.file = dataFolder.resolve("plots.yml");
@@ -20,7 +28,7 @@ public final class YamlPlotStorage implements PlotStorage {
     }
 
     @Override
-    public Map<String, Map<PlotId, Plot>> load() {
+    public synchronized Map<String, Map<PlotId, Plot>> load() {
         ConfigSection defaults = new ConfigSection();
         defaults.set("worlds", new ConfigSection());
 
@@ -102,11 +110,38 @@ public final class YamlPlotStorage implements PlotStorage {
             }
         }
 
+        stored.clear();
+        result.forEach((worldName, plots) -> stored.put(worldName, new HashMap<>(plots)));
         return result;
     }
 
     @Override
-    public void save(Map<String, Map<PlotId, Plot>> worlds) {
+    public synchronized void save(Map<String, Map<PlotId, Plot>> worlds) {
+        stored.clear();
+        worlds.forEach((worldName, plots) -> stored.put(worldName, new HashMap<>(plots)));
+        write(stored);
+    }
+
+    /**
+     * Applies the changes to the plots last loaded or saved and rewrites the file from those.
+     */
+    @Override
+    public synchronized void saveChanges(List<PlotChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (PlotChange change : changes) {
+            Map<PlotId, Plot> plots = stored.computeIfAbsent(change.worldName(), name -> new HashMap<>());
+            if (change.isRemoval() || change.plot().isDefault()) {
+                plots.remove(change.id());
+            } else {
+                plots.put(change.id(), change.plot());
+            }
+        }
+        write(stored);
+    }
+
+    private void write(Map<String, Map<PlotId, Plot>> worlds) {
         ConfigSection root = new ConfigSection();
         ConfigSection worldsSection = new ConfigSection();
         for (Map.Entry<String, Map<PlotId, Plot>> entry : worlds.entrySet()) {
@@ -161,9 +196,23 @@ public final class YamlPlotStorage implements PlotStorage {
         }
 
         root.set("worlds", worldsSection);
-        Config config = new Config(file.toFile(), Config.YAML);
-        config.setAll(root);
-        config.save();
+        // Config swallows write errors, so write a temporary file, check it arrived and only then replace the plots.
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.deleteIfExists(temp);
+            Config config = new Config(temp.toFile(), Config.YAML);
+            config.setAll(root);
+            if (!config.save() || !Files.isRegularFile(temp)) {
+                throw new IOException("Could not write " + temp + ".");
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to save plot data to " + file + ".", ex);
+        }
     }
 
     private List<String> toStringList(Set<UUID> uuids) {
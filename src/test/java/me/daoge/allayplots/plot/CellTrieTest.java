@@ -0,0 +1,117 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CellTrie")
+class CellTrieTest {
+
+    @Nested
+    @DisplayName("Basic Operations")
+    class BasicOperations {
+
+        @Test
+        @DisplayName("empty trie holds nothing")
+        void empty_holdsNothing() {
+            CellTrie<String> trie = CellTrie.empty();
+
+            assertThat(trie.size()).isZero();
+            assertThat(trie.get(PlotId.pack(0, 0))).isNull();
+            assertThat(trie.without(PlotId.pack(0, 0))).isSameAs(trie);
+        }
+
+        @Test
+        @DisplayName("with stores and replaces values")
+        void with_storesAndReplaces() {
+            long key = PlotId.pack(3, -7);
+            CellTrie<String> first = CellTrie.<String>empty().with(key, "a");
+            CellTrie<String> second = first.with(key, "b");
+
+            assertThat(first.get(key)).isEqualTo("a");
+            assertThat(second.get(key)).isEqualTo("b");
+            assertThat(second.size()).isEqualTo(1);
+            assertThat(second.with(key, "b")).isSameAs(second);
+        }
+
+        @Test
+        @DisplayName("without removes only from the new version")
+        void without_keepsOldVersion() {
+            long a = PlotId.pack(0, 0);
+            long b = PlotId.pack(0, 1);
+            CellTrie<String> full = CellTrie.<String>empty().with(a, "a").with(b, "b");
+            CellTrie<String> removed = full.without(a);
+
+            assertThat(full.get(a)).isEqualTo("a");
+            assertThat(full.size()).isEqualTo(2);
+            assertThat(removed.get(a)).isNull();
+            assertThat(removed.get(b)).isEqualTo("b");
+            assertThat(removed.size()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Randomized")
+    class Randomized {
+
+        @Test
+        @DisplayName("matches a HashMap under random writes and keeps every version intact")
+        void matchesHashMap() {
+            Random random = new Random(17);
+            Map<Long, Integer> expected = new HashMap<>();
+            CellTrie<Integer> trie = CellTrie.empty();
+            CellTrie<Integer> checkpoint = trie;
+            Map<Long, Integer> checkpointExpected = Map.of();
+
+            for (int i = 0; i < 20_000; i++) {
+                long key = PlotId.pack(random.nextInt(64) - 32, random.nextInt(64) - 32);
+                if (random.nextInt(3) == 0) {
+                    expected.remove(key);
+                    trie = trie.without(key);
+                } else {
+                    expected.put(key, i);
+                    trie = trie.with(key, i);
+                }
+                if (i == 10_000) {
+                    checkpoint = trie;
+                    checkpointExpected = Map.copyOf(expected);
+                }
+            }
+
+            assertThat(trie.size()).isEqualTo(expected.size());
+            Map<Long, Integer> visited = new HashMap<>();
+            trie.forEach(visited::put);
+            assertThat(visited).isEqualTo(expected);
+
+            assertThat(checkpoint.size()).isEqualTo(checkpointExpected.size());
+            for (Map.Entry<Long, Integer> entry : checkpointExpected.entrySet()) {
+                assertThat(checkpoint.get(entry.getKey())).isEqualTo(entry.getValue());
+            }
+        }
+
+        @Test
+        @DisplayName("removing every key leaves an empty trie")
+        void removeAll_empties() {
+            CellTrie<Integer> trie = CellTrie.empty();
+            for (int x = -20; x < 20; x++) {
+                for (int z = -20; z < 20; z++) {
+                    trie = trie.with(PlotId.pack(x, z), x * 100 + z);
+                }
+            }
+            for (int x = -20; x < 20; x++) {
+                for (int z = -20; z < 20; z++) {
+                    trie = trie.without(PlotId.pack(x, z));
+                }
+            }
+
+            assertThat(trie.size()).isZero();
+            assertThat(trie.get(PlotId.pack(0, 0))).isNull();
+        }
+    }
+}
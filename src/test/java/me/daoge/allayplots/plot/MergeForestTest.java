@@ -0,0 +1,80 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MergeForest")
+class MergeForestTest {
+
+    private MergeForest forest;
+
+    @BeforeEach
+    void setUp() {
+        forest = new MergeForest();
+    }
+
+    @Test
+    @DisplayName("union joins components and tracks members, extent and first cell")
+    void union_joinsComponents() {
+        assertThat(forest.union(PlotId.pack(2, 0), PlotId.pack(3, 0))).isNotNegative();
+        assertThat(forest.union(PlotId.pack(0, 1), PlotId.pack(0, 0))).isNotNegative();
+        int root = forest.union(PlotId.pack(2, 0), PlotId.pack(0, 0));
+
+        assertThat(forest.union(PlotId.pack(3, 0), PlotId.pack(0, 1))).isEqualTo(-1);
+        assertThat(forest.find(PlotId.pack(0, 1))).isEqualTo(root);
+        assertThat(forest.members(root)).containsExactlyInAnyOrder(
+                PlotId.pack(0, 0), PlotId.pack(0, 1), PlotId.pack(2, 0), PlotId.pack(3, 0));
+        assertThat(forest.firstKey(root)).isEqualTo(PlotId.pack(0, 0));
+        assertThat(forest.minX(root)).isZero();
+        assertThat(forest.maxX(root)).isEqualTo(3);
+        assertThat(forest.minZ(root)).isZero();
+        assertThat(forest.maxZ(root)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("removed keys are gone and their nodes are reused")
+    void remove_forgetsKeys() {
+        int root = forest.union(PlotId.pack(0, 0), PlotId.pack(1, 0));
+        for (long member : forest.members(root)) {
+            forest.remove(member);
+        }
+
+        assertThat(forest.contains(PlotId.pack(0, 0))).isFalse();
+        assertThat(forest.find(PlotId.pack(1, 0))).isEqualTo(-1);
+
+        int fresh = forest.union(PlotId.pack(1, 0), PlotId.pack(1, 1));
+        assertThat(forest.members(fresh)).containsExactlyInAnyOrder(PlotId.pack(1, 0), PlotId.pack(1, 1));
+        List<Integer> roots = new ArrayList<>();
+        forest.forEachRoot(roots::add);
+        assertThat(roots).containsExactly(fresh);
+    }
+
+    @Test
+    @DisplayName("keeps every key across growth and churn of removals")
+    void growthAndChurn() {
+        for (int round = 0; round < 20; round++) {
+            for (int x = 0; x < 100; x++) {
+                forest.union(PlotId.pack(x, round), PlotId.pack(x + 1, round));
+            }
+            int root = forest.find(PlotId.pack(0, round));
+            assertThat(forest.members(root)).hasSize(101);
+            if (round % 2 == 0) {
+                for (long member : forest.members(root)) {
+                    forest.remove(member);
+                }
+            }
+        }
+
+        List<Integer> roots = new ArrayList<>();
+        forest.forEachRoot(roots::add);
+        assertThat(roots).hasSize(10);
+        assertThat(forest.find(PlotId.pack(50, 19))).isEqualTo(forest.find(PlotId.pack(0, 19)));
+        assertThat(forest.contains(PlotId.pack(50, 18))).isFalse();
+    }
+}
@@ -0,0 +1,115 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PlotAutoSaver")
+class PlotAutoSaverTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlotAutoSaverTest.class);
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final PlotAutoSaver saver = new PlotAutoSaver(LOGGER, new PlotAutoSaver.Limits(
+            100, 10, 5, 4, 50, 200, 100, 5, 20, false));
+    private long now;
+
+    private PlotSaveTrigger tick(int dirtyPlots, int journaled) {
+        now += TICK;
+        return saver.tick(now, dirtyPlots, journaled);
+    }
+
+    /**
+     * Ticks until a save triggers and returns how many ticks that took, or -1 if none did within the limit.
+     */
+    private int ticksUntilSave(int dirtyPlots, int journaled, int limit) {
+        for (int i = 1; i <= limit; i++) {
+            if (tick(dirtyPlots, journaled) != null) return i;
+        }
+        return -1;
+    }
+
+    @Nested
+    @DisplayName("Intervals")
+    class Intervals {
+
+        @Test
+        @DisplayName("never saves without pending changes")
+        void idleServer_neverSaves() {
+            assertThat(ticksUntilSave(0, 0, 1000)).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("saves once the oldest change waited for the interval")
+        void savesAfterInterval() {
+            assertThat(ticksUntilSave(10, 10, 1000)).isEqualTo(100);
+            assertThat(saver.stats().triggers()).containsEntry(PlotSaveTrigger.INTERVAL, 1L);
+        }
+
+        @Test
+        @DisplayName("stretches the interval for a few changes")
+        void stretchesWhenIdle() {
+            assertThat(ticksUntilSave(1, 1, 1000)).isEqualTo(400);
+            assertThat(saver.stats().triggers()).containsEntry(PlotSaveTrigger.IDLE_INTERVAL, 1L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Thresholds")
+    class Thresholds {
+
+        @Test
+        @DisplayName("saves early once enough plots are dirty")
+        void savesOnDirtyPlots() {
+            assertThat(tick(50, 60)).isEqualTo(PlotSaveTrigger.DIRTY_PLOTS);
+        }
+
+        @Test
+        @DisplayName("saves early once enough changes are journaled")
+        void savesOnJournalSize() {
+            assertThat(tick(1, 200)).isEqualTo(PlotSaveTrigger.JOURNAL_SIZE);
+        }
+
+        @Test
+        @DisplayName("early saves respect the minimum interval")
+        void respectsMinInterval() {
+            tick(50, 60);
+
+            assertThat(ticksUntilSave(50, 60, 100)).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Slow Ticks")
+    class SlowTicks {
+
+        @Test
+        @DisplayName("holds a due save back after a slow tick")
+        void holdsBackAfterSpike() {
+            tick(0, 0);
+            now += TimeUnit.MILLISECONDS.toNanos(500);
+
+            assertThat(tick(50, 60)).isNull();
+            assertThat(ticksUntilSave(50, 60, 100)).isEqualTo(5);
+            assertThat(saver.stats().deferredSaves()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("saves anyway once the maximum deferral passed")
+        void savesAfterMaxDeferral() {
+            tick(0, 0);
+            int saved = -1;
+            for (int i = 1; i <= 100 && saved < 0; i++) {
+                now += TimeUnit.MILLISECONDS.toNanos(200);
+                if (saver.tick(now, 50, 60) != null) saved = i;
+            }
+
+            assertThat(saved).isEqualTo(21);
+        }
+    }
+}
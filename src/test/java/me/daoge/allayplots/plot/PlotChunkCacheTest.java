@@ -0,0 +1,109 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PlotChunkCache")
+class PlotChunkCacheTest {
+
+    /**
+     * Resolves every column to a key of its own and counts the calls.
+     */
+    private static final class CountingResolver implements PlotChunkCache.KeyResolver {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public long resolve(int x, int z) {
+            calls.incrementAndGet();
+            return PlotId.pack(x, z);
+        }
+    }
+
+    @Nested
+    @DisplayName("Miss Path")
+    class MissPath {
+
+        @Test
+        @DisplayName("a miss resolves only the column read")
+        void miss_resolvesOneColumn() {
+            CountingResolver resolver = new CountingResolver();
+            PlotChunkCache cache = new PlotChunkCache(resolver);
+
+            assertThat(cache.get(5, -3)).isEqualTo(PlotId.pack(5, -3));
+            assertThat(resolver.calls).hasValue(1);
+
+            assertThat(cache.get(5, -3)).isEqualTo(PlotId.pack(5, -3));
+            assertThat(cache.get(6, -3)).isEqualTo(PlotId.pack(6, -3));
+            assertThat(resolver.calls).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("getAll resolves each distinct column once")
+        void getAll_resolvesDistinctColumns() {
+            CountingResolver resolver = new CountingResolver();
+            PlotChunkCache cache = new PlotChunkCache(resolver);
+            int[] xs = {0, 1, 0, 17, 1, 17};
+            int[] zs = {0, 0, 0, 2, 0, 2};
+            long[] out = new long[xs.length];
+
+            cache.getAll(xs, zs, xs.length, out);
+
+            for (int i = 0; i < xs.length; i++) {
+                assertThat(out[i]).isEqualTo(PlotId.pack(xs[i], zs[i]));
+            }
+            assertThat(resolver.calls).hasValue(3);
+        }
+
+        @Test
+        @DisplayName("stores road and negative keys like any other")
+        void roadAndNegativeKeys() {
+            PlotChunkCache cache = new PlotChunkCache((x, z) -> x < 0 ? PlotWorld.ROAD : PlotId.pack(-1, -1));
+
+            assertThat(cache.get(-1, 0)).isEqualTo(PlotWorld.ROAD);
+            assertThat(cache.get(-1, 0)).isEqualTo(PlotWorld.ROAD);
+            assertThat(cache.get(0, 0)).isEqualTo(PlotId.pack(-1, -1));
+            assertThat(cache.get(0, 0)).isEqualTo(PlotId.pack(-1, -1));
+        }
+
+        @Test
+        @DisplayName("a chunk sharing the slot replaces the cached one")
+        void collidingChunk_isResolvedAfresh() {
+            CountingResolver resolver = new CountingResolver();
+            PlotChunkCache cache = new PlotChunkCache(resolver);
+
+            // More chunks than slots, so some of them evict others.
+            for (int chunk = 0; chunk < 1024; chunk++) {
+                assertThat(cache.get(chunk << 4, 0)).isEqualTo(PlotId.pack(chunk << 4, 0));
+            }
+            for (int chunk = 0; chunk < 1024; chunk++) {
+                assertThat(cache.get(chunk << 4, 0)).isEqualTo(PlotId.pack(chunk << 4, 0));
+            }
+            assertThat(resolver.calls.get()).isBetween(1025, 2048);
+        }
+    }
+
+    @Nested
+    @DisplayName("Derive")
+    class Derive {
+
+        @Test
+        @DisplayName("keeps resolved columns of untouched chunks and drops stale ones")
+        void derive_keepsUntouchedChunks() {
+            PlotChunkCache first = new PlotChunkCache((x, z) -> 1L);
+            first.get(0, 0);
+            first.get(16, 0);
+
+            long staleChunk = PlotId.pack(1, 0);
+            PlotChunkCache derived = first.derive((x, z) -> 2L, chunkKey -> chunkKey == staleChunk);
+
+            assertThat(derived.get(0, 0)).isEqualTo(1L);
+            assertThat(derived.get(16, 0)).isEqualTo(2L);
+            assertThat(first.get(16, 0)).isEqualTo(1L);
+        }
+    }
+}
@@ -158,4 +158,29 @@ class PlotIdTest {
             assertThat(id1).isNotEqualTo(id2);
         }
     }
+
+    @Nested
+    @DisplayName("Packed Keys")
+    class PackedKeys {
+
+        @Test
+        @DisplayName("round-trips positive and negative coordinates")
+        void roundTrips() {
+            for (PlotId id : new PlotId[]{new PlotId(0, 0), new PlotId(5, -10), new PlotId(-3, 7),
+                    new PlotId(Integer.MAX_VALUE, Integer.MIN_VALUE)}) {
+                long key = id.key();
+
+                assertThat(PlotId.unpackX(key)).isEqualTo(id.x());
+                assertThat(PlotId.unpackZ(key)).isEqualTo(id.z());
+                assertThat(PlotId.fromKey(key)).isEqualTo(id);
+            }
+        }
+
+        @Test
+        @DisplayName("distinct ids produce distinct keys")
+        void distinctKeys() {
+            assertThat(PlotId.pack(1, -1)).isNotEqualTo(PlotId.pack(-1, 1));
+            assertThat(PlotId.pack(0, -1)).isNotEqualTo(PlotId.pack(-1, -1));
+        }
+    }
 }
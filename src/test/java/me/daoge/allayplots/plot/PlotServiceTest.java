@@ -0,0 +1,491 @@
+package me.daoge.allayplots.plot;
+
+import me.daoge.allayplots.config.PluginConfig;
+import me.daoge.allayplots.storage.H2PlotStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PlotService")
+class PlotServiceTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlotServiceTest.class);
+
+    @TempDir
+    Path dataFolder;
+
+    private H2PlotStorage storage;
+    private PlotService service;
+    private PlotWorld world;
+
+    @BeforeEach
+    void setUp() {
+        storage = new H2PlotStorage(dataFolder, LOGGER);
+        service = new PlotService(new PluginConfig(), storage, LOGGER);
+        service.start();
+        service.load();
+        world = service.getPlotWorld("plotworld");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        storage.close();
+    }
+
+    /**
+     * Waits until the world's worker published a snapshot matching the condition; writes made on the worker are
+     * published, and their changes committed to the journal, once its batch ends.
+     */
+    private void awaitSnapshot(Predicate<PlotWorldSnapshot> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.test(world.snapshot())) {
+            assertThat(System.nanoTime()).as("snapshot published in time").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private void executeSql(String sql) throws SQLException {
+        String url = "jdbc:h2:" + dataFolder.resolve("plots").toAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private Set<PlotId> ownedIds(UUID owner) {
+        Set<PlotId> ids = new HashSet<>();
+        for (PlotService.PlotLocation loc : service.getOwnedPlots(owner)) {
+            assertThat(loc.world()).isSameAs(world);
+            ids.add(loc.id());
+        }
+        return ids;
+    }
+
+    @Nested
+    @DisplayName("Owner Index")
+    class OwnerIndex {
+
+        private final UUID owner = UUID.randomUUID();
+        private final PlotId west = new PlotId(0, 0);
+        private final PlotId east = new PlotId(1, 0);
+
+        @Test
+        @DisplayName("tracks claims and deletes")
+        void claimAndDelete() {
+            service.claimPlot(world, west, owner, "Owner", 0);
+            service.claimPlot(world, east, owner, "Owner", 0);
+
+            assertThat(ownedIds(owner)).containsExactlyInAnyOrder(west, east);
+            assertThat(service.countOwnedPlots(world, owner)).isEqualTo(2);
+            assertThat(service.findHomePlot(owner).id()).isIn(west, east);
+
+            PlotId home = service.findHomePlot(owner).id();
+            PlotId other = home.equals(west) ? east : west;
+            assertThat(service.deletePlot(world, home, owner, false)).isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+
+            assertThat(ownedIds(owner)).containsExactly(other);
+            assertThat(service.countOwnedPlots(world, owner)).isEqualTo(1);
+            assertThat(service.findHomePlot(owner).id()).isEqualTo(other);
+
+            service.deletePlot(world, other, owner, false);
+
+            assertThat(service.getOwnedPlots(owner)).isEmpty();
+            assertThat(service.countOwnedPlots(world, owner)).isZero();
+            assertThat(service.findHomePlot(owner)).isNull();
+        }
+
+        @Test
+        @DisplayName("flags the first claim as home and only that one")
+        void firstClaimFlaggedHome() throws Exception {
+            service.claimPlot(world, west, owner, "Owner", 0);
+            service.claimPlot(world, east, owner, "Owner", 0);
+
+            awaitSnapshot(snapshot -> snapshot.getPlot(east) != null && snapshot.getPlot(west).isHome());
+            assertThat(world.snapshot().getPlot(east).isHome()).isFalse();
+            assertThat(service.findHomePlot(owner).id()).isEqualTo(west);
+        }
+
+        @Test
+        @DisplayName("enforces the plot limit from the index")
+        void limitFromIndex() {
+            service.claimPlot(world, west, owner, "Owner", 1);
+
+            assertThat(service.claimPlot(world, east, owner, "Owner", 1))
+                    .isEqualTo(PlotService.ClaimResult.TOO_MANY);
+            service.deletePlot(world, west, owner, false);
+            assertThat(service.claimPlot(world, east, owner, "Owner", 1))
+                    .isEqualTo(PlotService.ClaimResult.SUCCESS);
+        }
+
+        @Test
+        @DisplayName("keeps merged plots indexed until each one is deleted")
+        void mergeAndDelete() {
+            service.claimPlot(world, west, owner, "Owner", 0);
+            service.claimPlot(world, east, owner, "Owner", 0);
+            assertThat(service.mergePlots(world, west, PlotMergeDirection.EAST, owner, false))
+                    .isEqualTo(PlotService.MergeResult.SUCCESS);
+
+            assertThat(ownedIds(owner)).containsExactlyInAnyOrder(west, east);
+
+            service.deletePlot(world, west, owner, false);
+
+            assertThat(ownedIds(owner)).containsExactly(east);
+            assertThat(service.countOwnedPlots(world, owner)).isEqualTo(1);
+            assertThat(service.findHomePlot(owner).id()).isEqualTo(east);
+        }
+
+        @Test
+        @DisplayName("moves a plot to its new owner")
+        void ownerChange() {
+            UUID buyer = UUID.randomUUID();
+            service.claimPlot(world, west, owner, "Owner", 0);
+
+            assertThat(service.setPlotOwner(world, west, owner, false, buyer, "Buyer"))
+                    .isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+
+            assertThat(service.getOwnedPlots(owner)).isEmpty();
+            assertThat(service.findHomePlot(owner)).isNull();
+            assertThat(ownedIds(buyer)).containsExactly(west);
+            assertThat(service.findHomePlot(buyer).id()).isEqualTo(west);
+        }
+
+        @Test
+        @DisplayName("is rebuilt the same on load")
+        void rebuiltOnLoad() throws Exception {
+            service.claimPlot(world, west, owner, "Owner", 0);
+            service.claimPlot(world, east, owner, "Owner", 0);
+            awaitSnapshot(snapshot -> snapshot.getPlot(east) != null);
+            service.save();
+
+            service.load();
+            world = service.getPlotWorld("plotworld");
+
+            assertThat(ownedIds(owner)).containsExactlyInAnyOrder(west, east);
+            assertThat(service.countOwnedPlots(world, owner)).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Auto Claim")
+    class AutoClaim {
+
+        @Test
+        @DisplayName("concurrent callers get different plots")
+        void concurrentCallers_getDistinctPlots() throws Exception {
+            int callers = 8;
+            CountDownLatch start = new CountDownLatch(1);
+            List<PlotService.ClaimOutcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                UUID owner = UUID.randomUUID();
+                threads.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    outcomes.add(service.claimNextFreePlot(world, owner, "Owner", 0));
+                }));
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertThat(outcomes).hasSize(callers)
+                    .allSatisfy(outcome -> assertThat(outcome.result()).isEqualTo(PlotService.ClaimResult.SUCCESS));
+            assertThat(outcomes.stream().map(PlotService.ClaimOutcome::id).distinct()).hasSize(callers);
+        }
+
+        @Test
+        @DisplayName("a burst of async requests gets different plots")
+        void asyncBurst_getsDistinctPlots() {
+            List<CompletableFuture<PlotService.ClaimOutcome>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(service.claimNextFreePlotAsync(world, UUID.randomUUID(), "Owner", 0));
+            }
+
+            Set<PlotId> ids = new HashSet<>();
+            for (CompletableFuture<PlotService.ClaimOutcome> future : futures) {
+                PlotService.ClaimOutcome outcome = future.join();
+                assertThat(outcome.result()).isEqualTo(PlotService.ClaimResult.SUCCESS);
+                assertThat(world.getPlot(outcome.id()).getOwner()).isNotNull();
+                ids.add(outcome.id());
+            }
+            assertThat(ids).hasSize(50);
+        }
+
+        @Test
+        @DisplayName("concurrent requests of one player respect the plot limit")
+        void samePlayer_respectsLimit() {
+            UUID owner = UUID.randomUUID();
+            CompletableFuture<PlotService.ClaimOutcome> first = service.claimNextFreePlotAsync(world, owner, "Owner", 1);
+            CompletableFuture<PlotService.ClaimOutcome> second = service.claimNextFreePlotAsync(world, owner, "Owner", 1);
+
+            assertThat(List.of(first.join().result(), second.join().result()))
+                    .containsExactlyInAnyOrder(PlotService.ClaimResult.SUCCESS, PlotService.ClaimResult.TOO_MANY);
+            assertThat(service.countOwnedPlots(world, owner)).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Async Mutations")
+    class AsyncMutations {
+
+        private final UUID owner = UUID.randomUUID();
+        private final PlotId west = new PlotId(0, 0);
+        private final PlotId east = new PlotId(1, 0);
+
+        @Test
+        @DisplayName("run on the world's worker")
+        void runOnWorker() {
+            service.claimPlotAsync(world, west, owner, "Owner", 0).join();
+            List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+            service.updateMergeGroupOwnedAsync(world, west, owner, false, plot -> {
+                threads.add(Thread.currentThread().getName());
+                return plot;
+            }).join();
+
+            assertThat(threads).isNotEmpty().containsOnly("AllayPlots-PlotService-plotworld");
+        }
+
+        @Test
+        @DisplayName("give the same results as the blocking calls")
+        void fullLifecycle() {
+            UUID buyer = UUID.randomUUID();
+
+            assertThat(service.claimPlotAsync(world, west, owner, "Owner", 0).join())
+                    .isEqualTo(PlotService.ClaimResult.SUCCESS);
+            assertThat(service.claimPlotAsync(world, west, buyer, "Buyer", 0).join())
+                    .isEqualTo(PlotService.ClaimResult.ALREADY_CLAIMED);
+            service.claimPlotAsync(world, east, owner, "Owner", 0).join();
+
+            assertThat(service.mergePlotsAsync(world, west, PlotMergeDirection.EAST, owner, false).join())
+                    .isEqualTo(PlotService.MergeResult.SUCCESS);
+            assertThat(world.isMerged(west, PlotMergeDirection.EAST)).isTrue();
+            assertThat(service.unmergePlotsAsync(world, west, PlotMergeDirection.EAST, buyer, false).join())
+                    .isEqualTo(PlotService.UnmergeResult.NOT_OWNER);
+            assertThat(service.unmergePlotsAsync(world, west, PlotMergeDirection.EAST, owner, false).join())
+                    .isEqualTo(PlotService.UnmergeResult.SUCCESS);
+            assertThat(world.isMerged(west, PlotMergeDirection.EAST)).isFalse();
+
+            assertThat(service.setHomePlotAsync(owner, world, east).join())
+                    .isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+            assertThat(service.findHomePlot(owner).id()).isEqualTo(east);
+
+            assertThat(service.setPlotOwnerAsync(world, east, owner, false, buyer, "Buyer").join())
+                    .isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+            assertThat(world.getPlot(east).getOwner()).isEqualTo(buyer);
+
+            assertThat(service.deletePlotAsync(world, west, buyer, false).join())
+                    .isEqualTo(PlotService.OwnerActionResult.NOT_OWNER);
+            assertThat(service.deletePlotAsync(world, west, owner, false).join())
+                    .isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+            assertThat(world.getPlot(west)).isNull();
+            assertThat(service.getOwnedPlots(owner)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("remove memberships across plots")
+        void removeMemberships() {
+            UUID friend = UUID.randomUUID();
+            service.claimPlotAsync(world, west, owner, "Owner", 0).join();
+            service.claimPlotAsync(world, east, owner, "Owner", 0).join();
+            service.updateMergeGroupOwnedAsync(world, west, owner, false, plot -> plot.withTrustedAdded(friend)).join();
+            service.updateMergeGroupOwnedAsync(world, east, owner, false, plot -> plot.withDeniedAdded(friend)).join();
+
+            assertThat(service.removeMembershipsAsync(friend).join()).isEqualTo(2);
+
+            assertThat(world.getPlot(west).getTrusted()).doesNotContain(friend);
+            assertThat(world.getPlot(east).getDenied()).doesNotContain(friend);
+            assertThat(service.removeMembershipsAsync(friend).join()).isZero();
+        }
+
+        @Test
+        @DisplayName("are refused once the service is stopped")
+        void refusedWhenStopped() {
+            service.shutdown();
+
+            assertThatThrownBy(() -> service.claimPlotAsync(world, west, owner, "Owner", 0))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> service.claimNextFreePlotAsync(world, owner, "Owner", 0))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> service.deletePlotAsync(world, west, owner, false))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(world.getPlot(west)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Task Lanes")
+    class TaskLanes {
+
+        private long dispatched(PlotTaskLane lane) {
+            return service.getQueueStats().stream()
+                    .filter(stats -> stats.lane() == lane)
+                    .mapToLong(PlotQueueStats::dispatched)
+                    .sum();
+        }
+
+        @Test
+        @DisplayName("run background follow-ups in the maintenance lane")
+        void followUpsUseMaintenance() throws Exception {
+            UUID owner = UUID.randomUUID();
+            PlotId id = new PlotId(0, 0);
+            service.claimPlot(world, id, owner, "Owner", 0);
+            long before = dispatched(PlotTaskLane.MAINTENANCE);
+
+            service.updatePlotSettings(world, id, owner, false, plot -> plot.withTrustedAdded(UUID.randomUUID()));
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (dispatched(PlotTaskLane.MAINTENANCE) == before) {
+                assertThat(System.nanoTime()).as("bookkeeping dispatched in time").isLessThan(deadline);
+                Thread.sleep(1);
+            }
+        }
+
+        @Test
+        @DisplayName("run membership cleanups in the maintenance lane")
+        void cleanupUsesMaintenance() {
+            long interactive = dispatched(PlotTaskLane.INTERACTIVE);
+            long maintenance = dispatched(PlotTaskLane.MAINTENANCE);
+
+            service.removeMemberships(UUID.randomUUID());
+
+            assertThat(dispatched(PlotTaskLane.MAINTENANCE)).isGreaterThan(maintenance);
+            assertThat(dispatched(PlotTaskLane.INTERACTIVE)).isEqualTo(interactive);
+        }
+    }
+
+    @Nested
+    @DisplayName("Settings")
+    class Settings {
+
+        @Test
+        @DisplayName("updates every plot of the merge group")
+        void updatesMergeGroup() throws Exception {
+            UUID owner = UUID.randomUUID();
+            UUID friend = UUID.randomUUID();
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+            service.claimPlot(world, west, owner, "Owner", 0);
+            service.claimPlot(world, east, owner, "Owner", 0);
+            assertThat(service.mergePlots(world, west, PlotMergeDirection.EAST, owner, false))
+                    .isEqualTo(PlotService.MergeResult.SUCCESS);
+            awaitSnapshot(snapshot -> snapshot.getMergeGroup(west).size() == 2);
+
+            assertThat(service.updatePlotSettings(world, east, owner, false, plot -> plot.withTrustedAdded(friend)))
+                    .isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+
+            assertThat(world.getPlot(west).getTrusted()).contains(friend);
+            assertThat(world.getPlot(east).getTrusted()).contains(friend);
+        }
+
+        @Test
+        @DisplayName("updates a claim not published yet")
+        void updatesUnpublishedClaim() {
+            UUID owner = UUID.randomUUID();
+            UUID friend = UUID.randomUUID();
+            PlotId id = new PlotId(2, 2);
+            service.claimPlot(world, id, owner, "Owner", 0);
+
+            assertThat(service.updatePlotSettings(world, id, owner, false, plot -> plot.withTrustedAdded(friend)))
+                    .isEqualTo(PlotService.OwnerActionResult.SUCCESS);
+
+            assertThat(world.getPlot(id).getTrusted()).contains(friend);
+        }
+
+        @Test
+        @DisplayName("changes racing shutdown are either saved in full or refused")
+        void racingShutdown() throws Exception {
+            UUID owner = UUID.randomUUID();
+            PlotId id = new PlotId(0, 0);
+            service.claimPlot(world, id, owner, "Owner", 0);
+            List<UUID> added = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch started = new CountDownLatch(1);
+            Thread writer = Thread.ofPlatform().start(() -> {
+                try {
+                    while (true) {
+                        UUID friend = UUID.randomUUID();
+                        service.updatePlotSettings(world, id, owner, false, plot -> plot.withTrustedAdded(friend));
+                        added.add(friend);
+                        started.countDown();
+                    }
+                } catch (IllegalStateException stopped) {
+                    // Refused once the service stopped.
+                }
+            });
+            started.await();
+
+            service.shutdown();
+            writer.join();
+
+            Set<UUID> trusted = world.getPlot(id).getTrusted();
+            assertThat(trusted).containsExactlyInAnyOrderElementsOf(added);
+            for (UUID friend : added) {
+                assertThat(world.getTrustedPlots(friend)).containsExactly(id);
+            }
+            assertThat(world.pendingChanges()).isZero();
+            Map<String, Map<PlotId, Plot>> stored = new H2PlotStorage(dataFolder, LOGGER).load();
+            assertThat(stored.get("plotworld").get(id).getTrusted()).isEqualTo(trusted);
+        }
+
+        @Test
+        @DisplayName("refuses once the service is stopped")
+        void refusesWhenStopped() {
+            UUID owner = UUID.randomUUID();
+            PlotId id = new PlotId(0, 0);
+            service.claimPlot(world, id, owner, "Owner", 0);
+            service.shutdown();
+
+            assertThatThrownBy(() -> service.updatePlotSettings(
+                    world, id, owner, false, plot -> plot.withTrustedAdded(UUID.randomUUID())))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(world.getPlot(id).getTrusted()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Saving")
+    class Saving {
+
+        @Test
+        @DisplayName("keeps the changes of a failed save for the next one")
+        void failedSaveKeepsChanges() throws Exception {
+            PlotId id = new PlotId(0, 0);
+            UUID owner = UUID.randomUUID();
+            assertThat(service.claimPlot(world, id, owner, "Owner", 0)).isEqualTo(PlotService.ClaimResult.SUCCESS);
+            awaitSnapshot(snapshot -> snapshot.getPlot(id) != null);
+            executeSql("DROP TABLE plots");
+
+            assertThatThrownBy(service::save).isInstanceOf(IllegalStateException.class);
+            assertThat(world.pendingChanges()).isPositive();
+
+            service.save();
+
+            assertThat(world.pendingChanges()).isZero();
+            Map<String, Map<PlotId, Plot>> stored = new H2PlotStorage(dataFolder, LOGGER).load();
+            assertThat(stored.get("plotworld").get(id).getOwner()).isEqualTo(owner);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PlotTable")
+class PlotTableTest {
+
+    private PlotTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new PlotTable();
+    }
+
+    private static Plot plot(int x, int z) {
+        return new Plot("testworld", new PlotId(x, z)).withOwner(UUID.randomUUID(), "Player");
+    }
+
+    @Nested
+    @DisplayName("Basic Operations")
+    class BasicOperations {
+
+        @Test
+        @DisplayName("get returns null for missing key")
+        void get_missing_returnsNull() {
+            assertThat(table.get(PlotId.pack(1, 2))).isNull();
+            assertThat(table.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("put stores and replaces values")
+        void put_storesAndReplaces() {
+            Plot first = plot(1, 2);
+            Plot second = plot(1, 2);
+
+            assertThat(table.put(PlotId.pack(1, 2), first)).isNull();
+            assertThat(table.put(PlotId.pack(1, 2), second)).isSameAs(first);
+
+            assertThat(table.get(PlotId.pack(1, 2))).isSameAs(second);
+            assertThat(table.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("remove clears value and allows re-insert")
+        void remove_allowsReinsert() {
+            Plot plot = plot(-4, 9);
+            table.put(PlotId.pack(-4, 9), plot);
+
+            assertThat(table.remove(PlotId.pack(-4, 9))).isSameAs(plot);
+            assertThat(table.remove(PlotId.pack(-4, 9))).isNull();
+            assertThat(table.get(PlotId.pack(-4, 9))).isNull();
+            assertThat(table.size()).isZero();
+
+            table.put(PlotId.pack(-4, 9), plot);
+            assertThat(table.get(PlotId.pack(-4, 9))).isSameAs(plot);
+            assertThat(table.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("handles the reserved empty-slot key")
+        void reservedKey() {
+            long key = PlotId.pack(Integer.MIN_VALUE, 0);
+            Plot plot = plot(Integer.MIN_VALUE, 0);
+
+            table.put(key, plot);
+
+            assertThat(table.get(key)).isSameAs(plot);
+            assertThat(table.asMap().values()).containsExactly(plot);
+            assertThat(table.remove(key)).isSameAs(plot);
+            assertThat(table.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("put rejects null values")
+        void put_null_throws() {
+            assertThatThrownBy(() -> table.put(PlotId.pack(0, 0), null))
+                    .isInstanceOf(NullPointerException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Growth")
+    class Growth {
+
+        @Test
+        @DisplayName("keeps every entry across rehashes")
+        void keepsEntriesAcrossRehash() {
+            List<Plot> plots = new ArrayList<>();
+            for (int x = -40; x < 40; x++) {
+                for (int z = -40; z < 40; z++) {
+                    Plot plot = plot(x, z);
+                    plots.add(plot);
+                    table.put(PlotId.pack(x, z), plot);
+                }
+            }
+
+            assertThat(table.size()).isEqualTo(plots.size());
+            for (Plot plot : plots) {
+                assertThat(table.get(plot.getId().key())).isSameAs(plot);
+            }
+        }
+
+        @Test
+        @DisplayName("churn of removals and inserts does not lose entries")
+        void churn() {
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 100; i++) {
+                    table.put(PlotId.pack(round, i), plot(round, i));
+                }
+                for (int i = 0; i < 100; i++) {
+                    table.remove(PlotId.pack(round, i));
+                }
+            }
+            table.put(PlotId.pack(7, 7), plot(7, 7));
+
+            assertThat(table.size()).isEqualTo(1);
+            assertThat(table.get(PlotId.pack(7, 7))).isNotNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Touched Keys")
+    class TouchedKeys {
+
+        @Test
+        @DisplayName("drains each written key once per batch")
+        void drainsEachKeyOnce() {
+            long key = PlotId.pack(3, 4);
+            table.put(key, plot(3, 4));
+            table.setMask(key, 1);
+            table.setGroup(key, null);
+            table.put(PlotId.pack(Integer.MIN_VALUE, 0), plot(Integer.MIN_VALUE, 0));
+            table.touch(PlotId.pack(Integer.MIN_VALUE, 0));
+
+            assertThat(table.drainTouched()).containsExactlyInAnyOrder(key, PlotId.pack(Integer.MIN_VALUE, 0));
+            assertThat(table.drainTouched()).isEmpty();
+
+            table.remove(key);
+            assertThat(table.drainTouched()).containsExactly(key);
+        }
+
+        @Test
+        @DisplayName("keeps touched keys across rehashes without duplicating them")
+        void keepsKeysAcrossRehash() {
+            List<Long> keys = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                long key = PlotId.pack(i, -i);
+                keys.add(key);
+                table.put(key, plot(i, -i));
+                table.put(PlotId.pack(0, 0), plot(0, 0));
+            }
+
+            assertThat(table.drainTouched())
+                    .hasSize(keys.size())
+                    .contains(keys.stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+
+    @Nested
+    @DisplayName("Replace")
+    class Replace {
+
+        @Test
+        @DisplayName("swaps only the expected value")
+        void replace_onlyExpected() {
+            Plot first = plot(2, 2);
+            Plot second = plot(2, 2);
+            table.put(PlotId.pack(2, 2), first);
+
+            assertThat(table.replace(PlotId.pack(2, 2), second, plot(2, 2))).isFalse();
+            assertThat(table.replace(PlotId.pack(2, 2), first, second)).isTrue();
+            assertThat(table.get(PlotId.pack(2, 2))).isSameAs(second);
+            assertThat(table.replace(PlotId.pack(9, 9), first, second)).isFalse();
+        }
+
+        @Test
+        @DisplayName("replacements from another thread survive concurrent growth")
+        void replace_survivesRehash() throws InterruptedException {
+            long key = PlotId.pack(0, 0);
+            table.put(key, plot(0, 0));
+            int replacements = 20_000;
+
+            Thread replacer = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < replacements; i++) {
+                    while (true) {
+                        Plot current = table.get(key);
+                        if (table.replace(key, current, current.withFlagRaw("counter", Integer.toString(i)))) break;
+                    }
+                }
+            });
+            for (int x = 1; x < 200; x++) {
+                for (int z = 0; z < 50; z++) {
+                    table.put(PlotId.pack(x, z), plot(x, z));
+                }
+            }
+            replacer.join();
+
+            assertThat(table.get(key).getFlagRaw("counter")).isEqualTo(Integer.toString(replacements - 1));
+            assertThat(table.size()).isEqualTo(199 * 50 + 1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Map View")
+    class MapView {
+
+        @Test
+        @DisplayName("exposes live entries keyed by plot id")
+        void exposesEntries() {
+            Plot a = plot(0, 0);
+            Plot b = plot(3, -1);
+            table.put(PlotId.pack(0, 0), a);
+            table.put(PlotId.pack(3, -1), b);
+            table.put(PlotId.pack(5, 5), plot(5, 5));
+            table.remove(PlotId.pack(5, 5));
+
+            var map = table.asMap();
+
+            assertThat(map).hasSize(2);
+            assertThat(map.get(new PlotId(3, -1))).isSameAs(b);
+            assertThat(map.containsKey(new PlotId(5, 5))).isFalse();
+            assertThat(map.keySet()).containsExactlyInAnyOrder(new PlotId(0, 0), new PlotId(3, -1));
+            assertThat(map.values()).containsExactlyInAnyOrder(a, b);
+        }
+
+        @Test
+        @DisplayName("is read-only")
+        void readOnly() {
+            assertThatThrownBy(() -> table.asMap().put(new PlotId(0, 0), plot(0, 0)))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+}
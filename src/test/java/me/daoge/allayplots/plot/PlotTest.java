@@ -10,6 +10,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 @DisplayName("Plot")
 class PlotTest {
 
+    @Test
+    @DisplayName("every change gets a higher version")
+    void version_increasesWithChanges() {
+        Plot plot = new Plot("world", new PlotId(0, 0));
+        Plot claimed = plot.withOwner(UUID.randomUUID(), "P");
+        Plot trusted = claimed.withTrustedAdded(UUID.randomUUID());
+
+        assertThat(claimed.getVersion()).isGreaterThan(plot.getVersion());
+        assertThat(trusted.getVersion()).isGreaterThan(claimed.getVersion());
+        assertThat(trusted.withTrustedAdded(trusted.getTrusted().iterator().next())).isSameAs(trusted);
+    }
+
     @Test
     @DisplayName("getOwnerNameOrUUID returns owner name when set")
     void getOwnerNameOrUUID_withOwnerName_returnsOwnerName() {
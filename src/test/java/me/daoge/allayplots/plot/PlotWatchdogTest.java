@@ -0,0 +1,105 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PlotWatchdog")
+class PlotWatchdogTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlotWatchdogTest.class);
+
+    private PlotWorker worker;
+    private PlotWatchdog watchdog;
+    private CountDownLatch gate;
+
+    @BeforeEach
+    void setUp() {
+        worker = new PlotWorker("PlotWatchdogTest", LOGGER, PlotWorker.Limits.UNBOUNDED);
+        worker.start();
+        watchdog = new PlotWatchdog(LOGGER, 100, List.of(worker));
+        gate = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        worker.stop();
+    }
+
+    private PlotWorker.Task hang() {
+        worker.execute(PlotTaskLane.INTERACTIVE, () -> {
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (worker.currentTask() == null) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+        return worker.currentTask();
+    }
+
+    @Test
+    @DisplayName("leaves tasks below the threshold alone")
+    void check_belowThreshold_reportsNothing() {
+        PlotWorker.Task task = hang();
+
+        assertThat(watchdog.check(task.startedAt() + TimeUnit.MILLISECONDS.toNanos(50))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reports a hanging task once, with the worker's stack")
+    void check_hangingTask_reportedOnce() {
+        PlotWorker.Task task = hang();
+        long later = task.startedAt() + TimeUnit.MILLISECONDS.toNanos(150);
+
+        List<PlotWatchdog.SlowTask> slow = watchdog.check(later);
+
+        assertThat(slow).singleElement().satisfies(report -> {
+            assertThat(report.task()).isSameAs(task);
+            assertThat(report.runningNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+            assertThat(report.stack()).anyMatch(element -> element.getClassName().equals(CountDownLatch.class.getName()));
+        });
+        assertThat(watchdog.check(later + TimeUnit.SECONDS.toNanos(1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reports the next hanging task as well")
+    void check_nextTask_reportedAgain() {
+        PlotWorker.Task first = hang();
+        watchdog.check(first.startedAt() + TimeUnit.SECONDS.toNanos(1));
+        CountDownLatch previous = gate;
+        gate = new CountDownLatch(1);
+        CountDownLatch next = gate;
+        worker.execute(PlotTaskLane.INTERACTIVE, () -> {
+            try {
+                next.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        previous.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (worker.currentTask() == null || worker.currentTask() == first) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+
+        PlotWorker.Task second = worker.currentTask();
+        assertThat(watchdog.check(second.startedAt() + TimeUnit.SECONDS.toNanos(1)))
+                .singleElement()
+                .satisfies(report -> assertThat(report.task()).isSameAs(second));
+    }
+}
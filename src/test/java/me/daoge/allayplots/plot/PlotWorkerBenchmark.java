@@ -0,0 +1,92 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares per-task dispatch against batched dispatch under several producers flooding one worker. Each task does a
+ * little work and asks for a shared follow-up, the way plot mutations ask for a home-flag or road refresh.
+ * <p>
+ * Excluded from the regular test run; use {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("PlotWorker benchmark")
+class PlotWorkerBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlotWorkerBenchmark.class);
+
+    private static final int PRODUCERS = 4;
+    private static final int TASKS_PER_PRODUCER = 250_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    @DisplayName("batched dispatch versus one task per round-trip")
+    void batchedVersusSingle() throws InterruptedException {
+        for (int batchSize : new int[]{1, 16, 64, 256}) {
+            // First round warms up the JIT and is not reported.
+            long best = Long.MAX_VALUE;
+            Result last = null;
+            for (int round = 0; round <= ROUNDS; round++) {
+                last = run(batchSize);
+                if (round > 0) {
+                    best = Math.min(best, last.nanos());
+                }
+            }
+            long tasks = (long) PRODUCERS * TASKS_PER_PRODUCER;
+            LOGGER.info(
+                    "batch-size {}: {} tasks/s, {} follow-ups for {} tasks",
+                    batchSize, tasks * TimeUnit.SECONDS.toNanos(1) / best, last.followUps(), tasks
+            );
+            assertThat(last.followUps()).isPositive().isLessThanOrEqualTo(tasks);
+        }
+    }
+
+    private static Result run(int batchSize) throws InterruptedException {
+        PlotWorker worker = new PlotWorker("PlotWorkerBenchmark", LOGGER, new PlotWorker.Limits(
+                Integer.MAX_VALUE, Integer.MAX_VALUE, 0, batchSize));
+        worker.start();
+        long[] state = new long[1];
+        AtomicLong followUps = new AtomicLong();
+        Runnable followUp = followUps::incrementAndGet;
+        Runnable task = () -> {
+            state[0] = state[0] * 31 + 1;
+            worker.deferToBatchEnd("refresh", followUp);
+        };
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>(PRODUCERS);
+        for (int i = 0; i < PRODUCERS; i++) {
+            producers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int n = 0; n < TASKS_PER_PRODUCER; n++) {
+                    worker.execute(PlotTaskLane.INTERACTIVE, task);
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        worker.stop();
+        return new Result(System.nanoTime() - begin, followUps.get());
+    }
+
+    private record Result(long nanos, long followUps) {
+    }
+}
@@ -0,0 +1,301 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PlotWorker")
+class PlotWorkerTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlotWorkerTest.class);
+
+    private PlotWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new PlotWorker("PlotWorkerTest", LOGGER, PlotWorker.Limits.UNBOUNDED);
+        worker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.stop();
+    }
+
+    // Occupies the worker until the returned latch is released.
+    private static CountDownLatch block(PlotWorker worker) {
+        CountDownLatch gate = new CountDownLatch(1);
+        worker.execute(PlotTaskLane.INTERACTIVE, () -> {
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return gate;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    @Nested
+    @DisplayName("Execution")
+    class Execution {
+
+        @Test
+        @DisplayName("runs tasks in submission order on its own thread")
+        void execute_runsInOrder() {
+            List<Integer> order = new ArrayList<>();
+            List<CompletableFuture<String>> threads = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int index = i;
+                threads.add(worker.supply(PlotTaskLane.INTERACTIVE, () -> {
+                    order.add(index);
+                    return Thread.currentThread().getName();
+                }));
+            }
+
+            assertThat(threads).allSatisfy(thread -> assertThat(thread.join()).isEqualTo("PlotWorkerTest"));
+            assertThat(order).hasSize(100).isSorted();
+        }
+
+        @Test
+        @DisplayName("supply runs inline on the worker itself")
+        void supply_onWorker_runsInline() {
+            boolean inline = worker.supply(
+                    PlotTaskLane.INTERACTIVE,
+                    () -> worker.supply(PlotTaskLane.INTERACTIVE, () -> 1).isDone()
+            ).join();
+
+            assertThat(inline).isTrue();
+            assertThat(worker.isCurrentThread()).isFalse();
+        }
+
+        @Test
+        @DisplayName("a failing task completes its future exceptionally and keeps the worker alive")
+        void supply_failure_keepsRunning() {
+            CompletableFuture<Object> failed = worker.supply(PlotTaskLane.INTERACTIVE, () -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertThat(failed).failsWithin(5, TimeUnit.SECONDS);
+            assertThat(worker.supply(PlotTaskLane.INTERACTIVE, () -> 42).join()).isEqualTo(42);
+        }
+    }
+
+    @Nested
+    @DisplayName("Lanes")
+    class Lanes {
+
+        @Test
+        @DisplayName("serves interactive before maintenance")
+        void lanes_servedByPriority() {
+            CountDownLatch gate = block(worker);
+            List<PlotTaskLane> order = new ArrayList<>();
+            worker.execute(PlotTaskLane.MAINTENANCE, () -> order.add(PlotTaskLane.MAINTENANCE));
+            worker.execute(PlotTaskLane.INTERACTIVE, () -> order.add(PlotTaskLane.INTERACTIVE));
+
+            gate.countDown();
+            worker.supply(PlotTaskLane.MAINTENANCE, () -> null).join();
+
+            assertThat(order).containsExactly(PlotTaskLane.INTERACTIVE, PlotTaskLane.MAINTENANCE);
+        }
+
+        @Test
+        @DisplayName("rejects submissions to a full lane but still accepts follow-ups")
+        void fullLane_rejects() {
+            worker.stop();
+            worker = new PlotWorker("PlotWorkerTest", LOGGER, new PlotWorker.Limits(1, 1, 0, 64));
+            worker.start();
+
+            CountDownLatch gate = block(worker);
+            // The blocking task has been taken off the lane once the worker sits in it; wait for that.
+            await(() -> worker.stats().getFirst().dispatched() == 1);
+            worker.execute(PlotTaskLane.INTERACTIVE, () -> {});
+
+            assertThatThrownBy(() -> worker.execute(PlotTaskLane.INTERACTIVE, () -> {}))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(worker.supply(PlotTaskLane.INTERACTIVE, () -> 1)).isCompletedExceptionally();
+            worker.post(PlotTaskLane.INTERACTIVE, () -> {});
+
+            PlotQueueStats interactive = worker.stats().getFirst();
+            assertThat(interactive.lane()).isEqualTo(PlotTaskLane.INTERACTIVE);
+            assertThat(interactive.depth()).isEqualTo(2);
+            assertThat(interactive.capacity()).isEqualTo(1);
+            assertThat(interactive.rejected()).isEqualTo(2);
+
+            gate.countDown();
+        }
+
+        @Test
+        @DisplayName("stats count dispatched tasks per lane")
+        void stats_countDispatched() {
+            for (int i = 0; i < 5; i++) {
+                worker.supply(PlotTaskLane.MAINTENANCE, () -> null).join();
+            }
+
+            assertThat(worker.stats())
+                    .filteredOn(stats -> stats.lane() == PlotTaskLane.MAINTENANCE)
+                    .singleElement()
+                    .satisfies(stats -> {
+                        assertThat(stats.dispatched()).isEqualTo(5);
+                        assertThat(stats.depth()).isZero();
+                        assertThat(stats.worker()).isEqualTo("PlotWorkerTest");
+                    });
+        }
+    }
+
+    @Nested
+    @DisplayName("Batches")
+    class Batches {
+
+        @Test
+        @DisplayName("runs deferred work once per key after the batch's tasks")
+        void deferred_runsOncePerKeyAfterBatch() {
+            CountDownLatch gate = block(worker);
+            await(() -> worker.stats().getFirst().dispatched() == 1);
+            List<String> log = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                int index = i;
+                worker.execute(PlotTaskLane.INTERACTIVE, () -> {
+                    log.add("task" + index);
+                    worker.deferToBatchEnd("flush", () -> log.add("flush"));
+                });
+            }
+
+            gate.countDown();
+            worker.supply(PlotTaskLane.INTERACTIVE, () -> null).join();
+            worker.supply(PlotTaskLane.INTERACTIVE, () -> null).join();
+
+            assertThat(log).containsExactly("task0", "task1", "task2", "flush");
+        }
+
+        @Test
+        @DisplayName("takes at most batch-size tasks per batch")
+        void batchSize_limitsBatch() {
+            worker.stop();
+            worker = new PlotWorker("PlotWorkerTest", LOGGER, new PlotWorker.Limits(64, 64, 0, 2));
+            worker.start();
+
+            CountDownLatch gate = block(worker);
+            await(() -> worker.stats().getFirst().dispatched() == 1);
+            List<String> log = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                worker.execute(PlotTaskLane.INTERACTIVE, () -> {
+                    log.add("task");
+                    worker.deferToBatchEnd("flush", () -> log.add("flush"));
+                });
+            }
+
+            gate.countDown();
+            worker.stop();
+
+            assertThat(log).containsExactly("task", "task", "flush", "task", "task", "flush");
+        }
+
+        @Test
+        @DisplayName("rejects deferred work from other threads")
+        void deferred_offWorker_throws() {
+            assertThatThrownBy(() -> worker.deferToBatchEnd("flush", () -> {}))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tracing")
+    class Tracing {
+
+        @Test
+        @DisplayName("exposes the running task with its lane, submitter and wait")
+        void currentTask_describesRunningTask() {
+            worker.setOriginTracing(true);
+            CountDownLatch gate = block(worker);
+            await(() -> worker.currentTask() != null);
+
+            PlotWorker.Task task = worker.currentTask();
+            assertThat(task.lane()).isEqualTo(PlotTaskLane.INTERACTIVE);
+            assertThat(task.submitter()).isEqualTo(Thread.currentThread().getName());
+            assertThat(task.origin().getStackTrace())
+                    .anyMatch(element -> element.getMethodName().equals("currentTask_describesRunningTask"));
+            assertThat(task.waitNanos()).isNotNegative();
+
+            gate.countDown();
+            await(() -> worker.currentTask() == null);
+        }
+
+        @Test
+        @DisplayName("skips the submission stack unless origin tracing is on")
+        void currentTask_withoutTracing_hasNoOrigin() {
+            CountDownLatch gate = block(worker);
+            await(() -> worker.currentTask() != null);
+
+            assertThat(worker.currentTask().origin()).isNull();
+            gate.countDown();
+        }
+
+        @Test
+        @DisplayName("stats record how long tasks ran")
+        void stats_recordRunTime() throws InterruptedException {
+            worker.supply(PlotTaskLane.MAINTENANCE, () -> {
+                Thread.sleep(20);
+                return null;
+            }).join();
+            // Run times are folded in when the worker takes its next batch.
+            worker.supply(PlotTaskLane.INTERACTIVE, () -> null).join();
+
+            assertThat(worker.stats())
+                    .filteredOn(stats -> stats.lane() == PlotTaskLane.MAINTENANCE)
+                    .singleElement()
+                    .satisfies(stats -> {
+                        assertThat(stats.maxRunMicros()).isGreaterThanOrEqualTo(20_000);
+                        assertThat(stats.averageRunMicros()).isGreaterThanOrEqualTo(20_000);
+                    });
+        }
+    }
+
+    @Nested
+    @DisplayName("Shutdown")
+    class Shutdown {
+
+        @Test
+        @DisplayName("stop finishes queued tasks first")
+        void stop_drainsQueue() {
+            CountDownLatch gate = block(worker);
+            CompletableFuture<Integer> queued = worker.supply(PlotTaskLane.INTERACTIVE, () -> 7);
+
+            gate.countDown();
+            worker.stop();
+
+            assertThat(queued).isCompletedWithValue(7);
+        }
+
+        @Test
+        @DisplayName("rejects tasks once stopped")
+        void execute_afterStop_throws() {
+            worker.stop();
+
+            assertThat(worker.isRunning()).isFalse();
+            assertThatThrownBy(() -> worker.execute(PlotTaskLane.INTERACTIVE, () -> {}))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
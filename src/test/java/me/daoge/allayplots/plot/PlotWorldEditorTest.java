@@ -0,0 +1,200 @@
+package me.daoge.allayplots.plot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PlotWorldEditor")
+class PlotWorldEditorTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlotWorldEditorTest.class);
+
+    private PlotWorldEditor editor;
+
+    @BeforeEach
+    void setUp() {
+        editor = new PlotWorldEditor(LOGGER, 4, 10);
+    }
+
+    /**
+     * Job whose chunks load when the test says so and whose plan records every placed index.
+     */
+    private static final class FakeJob implements PlotWorldEditor.Job {
+        private final String key;
+        private final int blocks;
+        private final List<Integer> placed = new ArrayList<>();
+        private CompletableFuture<Void> chunks = new CompletableFuture<>();
+        private boolean chunksLoaded = true;
+        private int loads;
+        private int plans;
+
+        private FakeJob(String key, int blocks) {
+            this.key = key;
+            this.blocks = blocks;
+        }
+
+        @Override
+        public String worldName() {
+            return "world";
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+        @Override
+        public CompletableFuture<?> loadChunks() {
+            loads++;
+            return chunks;
+        }
+
+        @Override
+        public boolean chunksLoaded() {
+            return chunksLoaded;
+        }
+
+        @Override
+        public PlotWorldEditor.Plan plan() {
+            plans++;
+            return new PlotWorldEditor.Plan() {
+                @Override
+                public int size() {
+                    return blocks;
+                }
+
+                @Override
+                public void apply(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        placed.add(i);
+                    }
+                }
+            };
+        }
+    }
+
+    @Nested
+    @DisplayName("Applying")
+    class Applying {
+
+        @Test
+        @DisplayName("applies a job on the first tick after its chunks loaded")
+        void appliesAfterChunksLoad() {
+            FakeJob job = new FakeJob("a", 3);
+            CompletableFuture<Void> done = editor.submit(job);
+
+            editor.tick();
+            assertThat(job.plans).isZero();
+            assertThat(done).isNotDone();
+
+            job.chunks.complete(null);
+            editor.tick();
+
+            assertThat(job.placed).containsExactly(0, 1, 2);
+            assertThat(done).isCompleted();
+            assertThat(editor.queuedJobs("world")).isZero();
+        }
+
+        @Test
+        @DisplayName("spreads a large job over several ticks")
+        void spreadsOverTicks() {
+            FakeJob job = new FakeJob("a", 25);
+            job.chunks.complete(null);
+            CompletableFuture<Void> done = editor.submit(job);
+
+            editor.tick();
+            assertThat(job.placed).hasSize(10);
+            editor.tick();
+            assertThat(job.placed).hasSize(20);
+            assertThat(done).isNotDone();
+            editor.tick();
+
+            assertThat(job.placed).hasSize(25);
+            assertThat(job.plans).isEqualTo(1);
+            assertThat(done).isCompleted();
+        }
+
+        @Test
+        @DisplayName("reloads chunks that were unloaded before planning and gives up eventually")
+        void reloadsUnloadedChunks() {
+            FakeJob job = new FakeJob("a", 1);
+            job.chunks.complete(null);
+            job.chunksLoaded = false;
+            CompletableFuture<Void> done = editor.submit(job);
+
+            for (int i = 0; i < 5; i++) {
+                editor.tick();
+            }
+
+            assertThat(job.loads).isEqualTo(3);
+            assertThat(job.plans).isZero();
+            assertThat(done).failsWithin(0, TimeUnit.SECONDS);
+            assertThat(editor.queuedJobs("world")).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Submitting")
+    class Submitting {
+
+        @Test
+        @DisplayName("joins jobs with the same key until the first one is planned")
+        void coalescesUntilPlanned() {
+            FakeJob first = new FakeJob("a", 1);
+            FakeJob second = new FakeJob("a", 1);
+            CompletableFuture<Void> firstDone = editor.submit(first);
+
+            assertThat(editor.submit(second)).isSameAs(firstDone);
+            first.chunks.complete(null);
+            editor.tick();
+
+            FakeJob third = new FakeJob("a", 1);
+            assertThat(editor.submit(third)).isNotSameAs(firstDone);
+            assertThat(second.loads).isZero();
+            assertThat(third.loads).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("rejects jobs beyond the per-world limit")
+        void rejectsBeyondLimit() {
+            for (int i = 0; i < 4; i++) {
+                editor.submit(new FakeJob("job" + i, 1));
+            }
+
+            assertThat(editor.submit(new FakeJob("extra", 1)))
+                    .failsWithin(0, TimeUnit.SECONDS)
+                    .withThrowableOfType(Exception.class)
+                    .withCauseInstanceOf(RejectedExecutionException.class);
+            assertThat(editor.queuedJobs("world")).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("shutdown finishes started jobs and fails the rest")
+        void shutdown_finishesStarted() {
+            FakeJob started = new FakeJob("started", 25);
+            started.chunks.complete(null);
+            FakeJob loading = new FakeJob("loading", 1);
+            CompletableFuture<Void> startedDone = editor.submit(started);
+            CompletableFuture<Void> loadingDone = editor.submit(loading);
+            editor.tick();
+
+            editor.shutdown();
+            loading.chunks.complete(null);
+
+            assertThat(startedDone).isCompleted();
+            assertThat(started.placed).hasSize(25);
+            assertThat(loadingDone).isCompletedExceptionally();
+            assertThat(editor.submit(new FakeJob("late", 1))).isCompletedExceptionally();
+        }
+    }
+}
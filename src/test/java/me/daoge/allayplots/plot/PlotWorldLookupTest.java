@@ -0,0 +1,99 @@
+package me.daoge.allayplots.plot;
+
+import me.daoge.allayplots.config.PlotWorldConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PlotWorldLookup")
+class PlotWorldLookupTest {
+
+    /**
+     * Stands in for a dimension; two of them with the same world name are equal but not identical.
+     */
+    private record Dim(String worldName) {
+    }
+
+    private final Map<String, PlotWorld> worlds = new HashMap<>();
+    private final Set<Dim> unloaded = new HashSet<>();
+    private final AtomicInteger resolves = new AtomicInteger();
+    private PlotWorldLookup<Dim> lookup;
+
+    @BeforeEach
+    void setUp() {
+        PlotWorldConfig config = new PlotWorldConfig();
+        config.worldName("plotworld");
+        worlds.put("plotworld", new PlotWorld(config));
+        lookup = new PlotWorldLookup<>(dim -> {
+            resolves.incrementAndGet();
+            return worlds.get(dim.worldName());
+        }, dim -> !unloaded.contains(dim));
+    }
+
+    @Test
+    @DisplayName("resolves a key once and serves it from the cache afterwards")
+    void cachesResolvedKey() {
+        Dim dim = new Dim("plotworld");
+
+        assertThat(lookup.get(dim)).isSameAs(worlds.get("plotworld"));
+        assertThat(lookup.get(dim)).isSameAs(worlds.get("plotworld"));
+        assertThat(resolves).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("caches keys outside plot worlds as absent")
+    void cachesNonPlotWorld() {
+        Dim dim = new Dim("lobby");
+
+        assertThat(lookup.get(dim)).isNull();
+        assertThat(lookup.get(dim)).isNull();
+        assertThat(resolves).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("matches keys by identity, so a reloaded world is resolved again")
+    void matchesByIdentity() {
+        Dim before = new Dim("plotworld");
+        Dim reloaded = new Dim("plotworld");
+        lookup.get(before);
+
+        assertThat(lookup.get(reloaded)).isSameAs(worlds.get("plotworld"));
+        assertThat(resolves).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("drops keys of unloaded worlds on the next miss")
+    void dropsUnloadedKeys() {
+        Dim old = new Dim("plotworld");
+        lookup.get(old);
+        unloaded.add(old);
+
+        lookup.get(new Dim("lobby"));
+        lookup.get(old);
+
+        assertThat(resolves).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("clear forgets every key")
+    void clearForgetsKeys() {
+        Dim dim = new Dim("plotworld");
+        lookup.get(dim);
+        PlotWorldConfig config = new PlotWorldConfig();
+        config.worldName("plotworld");
+        PlotWorld replaced = new PlotWorld(config);
+        worlds.put("plotworld", replaced);
+
+        lookup.clear();
+
+        assertThat(lookup.get(dim)).isSameAs(replaced);
+    }
+}
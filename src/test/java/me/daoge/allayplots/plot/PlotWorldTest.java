@@ -6,9 +6,18 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("PlotWorld")
 class PlotWorldTest {
@@ -24,151 +33,203 @@ class PlotWorldTest {
     }
 
     @Nested
-    @DisplayName("Change Tracking")
-    class ChangeTracking {
+    @DisplayName("Change Journal")
+    class ChangeJournal {
 
         @Test
         @DisplayName("new PlotWorld has no changes")
         void newPlotWorld_hasNoChanges() {
-            assertThat(plotWorld.hasChanges()).isFalse();
-            assertThat(plotWorld.getDirtyPlots()).isEmpty();
-            assertThat(plotWorld.getDeletedPlots()).isEmpty();
+            assertThat(plotWorld.pendingChanges()).isZero();
+            assertThat(plotWorld.drainChanges()).isEmpty();
         }
 
         @Test
-        @DisplayName("putPlot marks plot as dirty")
-        void putPlot_marksDirty() {
+        @DisplayName("putPlot journals the stored plot")
+        void putPlot_journalsPlot() {
             PlotId id = new PlotId(0, 0);
             Plot plot = new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player");
 
             plotWorld.putPlot(id, plot);
 
-            assertThat(plotWorld.hasChanges()).isTrue();
-            assertThat(plotWorld.getDirtyPlots()).contains(id);
-            assertThat(plotWorld.getDeletedPlots()).isEmpty();
+            List<PlotChange> changes = plotWorld.drainChanges();
+            assertThat(changes).hasSize(1);
+            assertThat(changes.get(0).worldName()).isEqualTo("testworld");
+            assertThat(changes.get(0).id()).isEqualTo(id);
+            assertThat(changes.get(0).plot()).isSameAs(plot);
         }
 
         @Test
-        @DisplayName("removePlot marks plot as deleted")
-        void removePlot_marksDeleted() {
+        @DisplayName("removePlot journals a removal")
+        void removePlot_journalsRemoval() {
             PlotId id = new PlotId(0, 0);
-            Plot plot = new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player");
-            plotWorld.putPlot(id, plot);
-            plotWorld.clearChanges();
+            plotWorld.putPlot(id, new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player"));
+            plotWorld.drainChanges();
 
             plotWorld.removePlot(id);
 
-            assertThat(plotWorld.hasChanges()).isTrue();
-            assertThat(plotWorld.getDeletedPlots()).contains(id);
-            assertThat(plotWorld.getDirtyPlots()).isEmpty();
+            List<PlotChange> changes = plotWorld.drainChanges();
+            assertThat(changes).hasSize(1);
+            assertThat(changes.get(0).isRemoval()).isTrue();
         }
 
         @Test
-        @DisplayName("removePlot on non-existent plot does not mark deleted")
+        @DisplayName("removePlot on non-existent plot journals nothing")
         void removePlot_nonExistent_noChange() {
-            PlotId id = new PlotId(99, 99);
+            plotWorld.removePlot(new PlotId(99, 99));
+
+            assertThat(plotWorld.pendingChanges()).isZero();
+        }
+
+        @Test
+        @DisplayName("putPlot with null journals a removal")
+        void putPlot_withNull_journalsRemoval() {
+            PlotId id = new PlotId(0, 0);
+            plotWorld.putPlot(id, new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player"));
+            plotWorld.drainChanges();
+
+            plotWorld.putPlot(id, null);
+
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::isRemoval).containsExactly(true);
+            assertThat(plotWorld.getPlot(id)).isNull();
+        }
+
+        @Test
+        @DisplayName("keeps only the latest change of a plot")
+        void drain_keepsLatestPerPlot() {
+            PlotId id = new PlotId(0, 0);
+            Plot first = new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player");
+            Plot second = new Plot("testworld", id).withOwner(UUID.randomUUID(), "NewPlayer");
+            plotWorld.putPlot(id, first);
+            plotWorld.removePlot(id);
+            plotWorld.putPlot(id, second);
+
+            List<PlotChange> changes = plotWorld.drainChanges();
 
+            assertThat(changes).extracting(PlotChange::plot).containsExactly(second);
+            assertThat(plotWorld.drainChanges()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("a removal replaces the earlier write of the plot")
+        void drain_keepsRemovalMarker() {
+            PlotId id = new PlotId(0, 0);
+            plotWorld.putPlot(id, new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player"));
             plotWorld.removePlot(id);
 
-            assertThat(plotWorld.hasChanges()).isFalse();
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::isRemoval).containsExactly(true);
+        }
+
+        @Test
+        @DisplayName("repeated changes of one plot keep a single entry")
+        void repeatedChanges_stayBounded() {
+            PlotId id = new PlotId(0, 0);
+            plotWorld.claimPlot(id, UUID.randomUUID(), "Player");
+            for (int i = 0; i < 1000; i++) {
+                int value = i;
+                plotWorld.updatePlot(id, plot -> plot.withFlagRaw("greeting", "hello " + value));
+            }
+
+            assertThat(plotWorld.pendingChanges()).isEqualTo(1001);
+            assertThat(plotWorld.drainChanges()).singleElement()
+                    .satisfies(change -> assertThat(change.plot().getFlags()).containsEntry("greeting", "hello 999"));
         }
 
         @Test
-        @DisplayName("claimPlot marks plot as dirty")
-        void claimPlot_marksDirty() {
+        @DisplayName("changes stay hidden until the writes are published")
+        void drain_onlyPublishedChanges() {
+            List<Runnable> publishes = new ArrayList<>();
+            plotWorld.setPublishScheduler(publishes::add);
             PlotId id = new PlotId(1, 1);
 
             plotWorld.claimPlot(id, UUID.randomUUID(), "Player");
 
-            assertThat(plotWorld.hasChanges()).isTrue();
-            assertThat(plotWorld.getDirtyPlots()).contains(id);
+            assertThat(plotWorld.drainChanges()).isEmpty();
+            assertThat(plotWorld.pendingChanges()).isEqualTo(1);
+            publishes.get(0).run();
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::id).containsExactly(id);
         }
 
         @Test
-        @DisplayName("clearChanges clears all tracking")
-        void clearChanges_clearsAllTracking() {
+        @DisplayName("counts changes and distinct dirty plots until drained")
+        void counts_distinctDirtyPlots() {
             PlotId id1 = new PlotId(0, 0);
             PlotId id2 = new PlotId(1, 1);
-            plotWorld.putPlot(id1, new Plot("testworld", id1).withOwner(UUID.randomUUID(), "P1"));
-            plotWorld.putPlot(id2, new Plot("testworld", id2).withOwner(UUID.randomUUID(), "P2"));
-            plotWorld.clearChanges();
-            plotWorld.removePlot(id2);
+            plotWorld.claimPlot(id1, UUID.randomUUID(), "P1");
+            plotWorld.updatePlot(id1, plot -> plot.withHome(true));
+            plotWorld.claimPlot(id2, UUID.randomUUID(), "P2");
 
-            plotWorld.clearChanges();
+            assertThat(plotWorld.pendingChanges()).isEqualTo(3);
+            assertThat(plotWorld.dirtyPlotCount()).isEqualTo(2);
 
-            assertThat(plotWorld.hasChanges()).isFalse();
-            assertThat(plotWorld.getDirtyPlots()).isEmpty();
-            assertThat(plotWorld.getDeletedPlots()).isEmpty();
+            plotWorld.drainChanges();
+
+            assertThat(plotWorld.pendingChanges()).isZero();
+            assertThat(plotWorld.dirtyPlotCount()).isZero();
         }
 
         @Test
-        @DisplayName("putPlot with null removes plot and marks deleted")
-        void putPlot_withNull_marksDeleted() {
-            PlotId id = new PlotId(0, 0);
-            Plot plot = new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player");
-            plotWorld.putPlot(id, plot);
-            plotWorld.clearChanges();
+        @DisplayName("requeued changes come back ahead of newer ones")
+        void requeue_keepsOrder() {
+            PlotId id1 = new PlotId(0, 0);
+            PlotId id2 = new PlotId(1, 1);
+            plotWorld.claimPlot(id1, UUID.randomUUID(), "P1");
+            List<PlotChange> failed = plotWorld.drainChanges();
+            plotWorld.claimPlot(id2, UUID.randomUUID(), "P2");
 
-            plotWorld.putPlot(id, null);
+            plotWorld.requeueChanges(failed);
 
-            assertThat(plotWorld.hasChanges()).isTrue();
-            assertThat(plotWorld.getDeletedPlots()).contains(id);
-            assertThat(plotWorld.getPlot(id)).isNull();
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::id).containsExactly(id1, id2);
         }
 
         @Test
-        @DisplayName("re-adding deleted plot moves from deleted to dirty")
-        void reAddDeletedPlot_movesToDirty() {
+        @DisplayName("a requeued change does not override a newer one of the same plot")
+        void requeue_keepsNewerChange() {
             PlotId id = new PlotId(0, 0);
-            Plot plot = new Plot("testworld", id).withOwner(UUID.randomUUID(), "Player");
-            plotWorld.putPlot(id, plot);
-            plotWorld.clearChanges();
+            plotWorld.claimPlot(id, UUID.randomUUID(), "P1");
+            List<PlotChange> failed = plotWorld.drainChanges();
             plotWorld.removePlot(id);
 
-            assertThat(plotWorld.getDeletedPlots()).contains(id);
-
-            Plot newPlot = new Plot("testworld", id).withOwner(UUID.randomUUID(), "NewPlayer");
-            plotWorld.putPlot(id, newPlot);
+            plotWorld.requeueChanges(failed);
 
-            assertThat(plotWorld.getDirtyPlots()).contains(id);
-            assertThat(plotWorld.getDeletedPlots()).doesNotContain(id);
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::isRemoval).containsExactly(true);
         }
     }
 
     @Nested
-    @DisplayName("Merge Change Tracking")
-    class MergeChangeTracking {
+    @DisplayName("Merge Change Journal")
+    class MergeChangeJournal {
 
         @Test
-        @DisplayName("setMerged marks both plots as dirty")
-        void setMerged_marksBothDirty() {
+        @DisplayName("setMerged journals both plots")
+        void setMerged_journalsBoth() {
             PlotId id1 = new PlotId(0, 0);
             PlotId id2 = new PlotId(1, 0);
             UUID owner = UUID.randomUUID();
             plotWorld.putPlot(id1, new Plot("testworld", id1).withOwner(owner, "Player"));
             plotWorld.putPlot(id2, new Plot("testworld", id2).withOwner(owner, "Player"));
-            plotWorld.clearChanges();
+            plotWorld.drainChanges();
 
             plotWorld.setMerged(id1, PlotMergeDirection.EAST, true);
 
-            assertThat(plotWorld.hasChanges()).isTrue();
-            assertThat(plotWorld.getDirtyPlots()).contains(id1, id2);
+            List<PlotChange> changes = plotWorld.drainChanges();
+            assertThat(changes).extracting(PlotChange::id).containsExactly(id1, id2);
+            assertThat(changes.get(0).plot().isMerged(PlotMergeDirection.EAST)).isTrue();
         }
 
         @Test
-        @DisplayName("clearMergedConnections marks affected plots as dirty")
-        void clearMergedConnections_marksDirty() {
+        @DisplayName("clearMergedConnections journals affected plots")
+        void clearMergedConnections_journals() {
             PlotId id1 = new PlotId(0, 0);
             PlotId id2 = new PlotId(1, 0);
             UUID owner = UUID.randomUUID();
             plotWorld.putPlot(id1, new Plot("testworld", id1).withOwner(owner, "Player"));
             plotWorld.putPlot(id2, new Plot("testworld", id2).withOwner(owner, "Player"));
             plotWorld.setMerged(id1, PlotMergeDirection.EAST, true);
-            plotWorld.clearChanges();
+            plotWorld.drainChanges();
 
             plotWorld.clearMergedConnections(id1);
 
-            assertThat(plotWorld.hasChanges()).isTrue();
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::id).containsExactlyInAnyOrder(id1, id2);
         }
     }
 
@@ -209,17 +270,6 @@ class PlotWorldTest {
 
             assertThat(free).isNotEqualTo(new PlotId(0, 0));
         }
-
-        @Test
-        @DisplayName("countOwnedPlots returns correct count")
-        void countOwnedPlots_returnsCorrectCount() {
-            UUID owner = UUID.randomUUID();
-            plotWorld.claimPlot(new PlotId(0, 0), owner, "Player");
-            plotWorld.claimPlot(new PlotId(1, 0), owner, "Player");
-            plotWorld.claimPlot(new PlotId(2, 0), UUID.randomUUID(), "Other");
-
-            assertThat(plotWorld.countOwnedPlots(owner)).isEqualTo(2);
-        }
     }
 
     @Nested
@@ -285,6 +335,36 @@ class PlotWorldTest {
         void farNegativePlot() {
             assertThat(plotWorld.getPlotIdAt(-100, -100)).isEqualTo(new PlotId(-3, -3));
         }
+
+        @Test
+        @DisplayName("getPlotKeyAt matches getPlotIdAt")
+        void plotKeyMatchesPlotId() {
+            assertThat(plotWorld.getPlotKeyAt(-100, -100)).isEqualTo(PlotId.pack(-3, -3));
+            assertThat(plotWorld.getPlotKeyAt(50, 17)).isEqualTo(PlotId.pack(1, 0));
+            assertThat(plotWorld.getPlotKeyAt(38, 38)).isEqualTo(PlotWorld.ROAD);
+        }
+
+        @Test
+        @DisplayName("merged road strip and intersection resolve to the current cell")
+        void mergedRoadResolvesToCell() {
+            UUID owner = UUID.randomUUID();
+            plotWorld.claimPlot(new PlotId(0, 0), owner, "P");
+            plotWorld.claimPlot(new PlotId(1, 0), owner, "P");
+            plotWorld.claimPlot(new PlotId(0, 1), owner, "P");
+            plotWorld.claimPlot(new PlotId(1, 1), owner, "P");
+            plotWorld.setMerged(new PlotId(0, 0), PlotMergeDirection.EAST, true);
+
+            assertThat(plotWorld.getPlotKeyAt(38, 17)).isEqualTo(PlotId.pack(0, 0));
+            assertThat(plotWorld.getPlotKeyAt(17, 38)).isEqualTo(PlotWorld.ROAD);
+            assertThat(plotWorld.getPlotKeyAt(38, 38)).isEqualTo(PlotWorld.ROAD);
+
+            plotWorld.setMerged(new PlotId(0, 0), PlotMergeDirection.SOUTH, true);
+            plotWorld.setMerged(new PlotId(1, 0), PlotMergeDirection.SOUTH, true);
+            plotWorld.setMerged(new PlotId(0, 1), PlotMergeDirection.EAST, true);
+
+            assertThat(plotWorld.getPlotKeyAt(17, 38)).isEqualTo(PlotId.pack(0, 0));
+            assertThat(plotWorld.getPlotIdAt(38, 38)).isEqualTo(new PlotId(0, 0));
+        }
     }
 
     @Nested
@@ -460,6 +540,661 @@ class PlotWorldTest {
         }
     }
 
+    @Nested
+    @DisplayName("Merge Mask Index")
+    class MergeMaskIndex {
+
+        @Test
+        @DisplayName("owner change drops the merge from the index")
+        void ownerChange_dropsMerge() {
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+            plotWorld.claimPlot(west, owner, "P");
+            plotWorld.claimPlot(east, owner, "P");
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, true);
+            assertThat(plotWorld.getPlotKeyAt(38, 17)).isEqualTo(west.key());
+
+            Plot flagged = plotWorld.getPlot(east);
+            plotWorld.putPlot(east, flagged.withOwner(UUID.randomUUID(), "Other")
+                    .withMergedDirectionAdded(PlotMergeDirection.WEST));
+
+            assertThat(plotWorld.isMerged(west, PlotMergeDirection.EAST)).isFalse();
+            assertThat(plotWorld.isMerged(east, PlotMergeDirection.WEST)).isFalse();
+            assertThat(plotWorld.getPlotKeyAt(38, 17)).isEqualTo(PlotWorld.ROAD);
+        }
+
+        @Test
+        @DisplayName("removing a plot clears merges and intersections around it")
+        void removePlot_clearsNeighbors() {
+            UUID owner = UUID.randomUUID();
+            for (int x = 0; x <= 1; x++) {
+                for (int z = 0; z <= 1; z++) {
+                    plotWorld.claimPlot(new PlotId(x, z), owner, "P");
+                }
+            }
+            plotWorld.setMerged(new PlotId(0, 0), PlotMergeDirection.EAST, true);
+            plotWorld.setMerged(new PlotId(0, 0), PlotMergeDirection.SOUTH, true);
+            plotWorld.setMerged(new PlotId(1, 0), PlotMergeDirection.SOUTH, true);
+            plotWorld.setMerged(new PlotId(0, 1), PlotMergeDirection.EAST, true);
+            assertThat(plotWorld.getPlotKeyAt(38, 38)).isEqualTo(PlotId.pack(0, 0));
+
+            plotWorld.removePlot(new PlotId(1, 1));
+
+            assertThat(plotWorld.isMerged(new PlotId(1, 0), PlotMergeDirection.SOUTH)).isFalse();
+            assertThat(plotWorld.isMerged(new PlotId(0, 1), PlotMergeDirection.EAST)).isFalse();
+            assertThat(plotWorld.isMerged(new PlotId(0, 0), PlotMergeDirection.EAST)).isTrue();
+            assertThat(plotWorld.getPlotKeyAt(38, 38)).isEqualTo(PlotWorld.ROAD);
+        }
+
+        @Test
+        @DisplayName("bulk load builds the index from stored merge flags")
+        void putPlots_buildsIndex() {
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(-1, 0);
+            PlotId east = new PlotId(0, 0);
+            plotWorld.putPlots(Map.of(
+                    west, new Plot("testworld", west).withOwner(owner, "P")
+                            .withMergedDirectionAdded(PlotMergeDirection.EAST),
+                    east, new Plot("testworld", east).withOwner(owner, "P")
+                            .withMergedDirectionAdded(PlotMergeDirection.WEST)
+            ));
+
+            assertThat(plotWorld.isMerged(west, PlotMergeDirection.EAST)).isTrue();
+            assertThat(plotWorld.getPlotKeyAt(-4, 17)).isEqualTo(west.key());
+        }
+    }
+
+    @Nested
+    @DisplayName("Chunk Cache")
+    class ChunkCache {
+
+        @Test
+        @DisplayName("cached road resolution follows merge and unmerge")
+        void followsMergeAndUnmerge() {
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+            plotWorld.claimPlot(west, owner, "P");
+            plotWorld.claimPlot(east, owner, "P");
+            assertThat(plotWorld.getPlotKeyAt(38, 17)).isEqualTo(PlotWorld.ROAD);
+
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, true);
+            assertThat(plotWorld.getPlotKeyAt(38, 17)).isEqualTo(west.key());
+
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, false);
+            assertThat(plotWorld.getPlotKeyAt(38, 17)).isEqualTo(PlotWorld.ROAD);
+        }
+
+        @Test
+        @DisplayName("cached intersection is dropped when a corner plot is deleted")
+        void deleteDropsIntersection() {
+            UUID owner = UUID.randomUUID();
+            for (int x = -1; x <= 0; x++) {
+                for (int z = -1; z <= 0; z++) {
+                    plotWorld.claimPlot(new PlotId(x, z), owner, "P");
+                }
+            }
+            plotWorld.setMerged(new PlotId(-1, -1), PlotMergeDirection.EAST, true);
+            plotWorld.setMerged(new PlotId(-1, -1), PlotMergeDirection.SOUTH, true);
+            plotWorld.setMerged(new PlotId(0, -1), PlotMergeDirection.SOUTH, true);
+            plotWorld.setMerged(new PlotId(-1, 0), PlotMergeDirection.EAST, true);
+            assertThat(plotWorld.getPlotKeyAt(-3, -3)).isEqualTo(PlotId.pack(-1, -1));
+
+            plotWorld.removePlot(new PlotId(0, 0));
+
+            assertThat(plotWorld.getPlotKeyAt(-3, -3)).isEqualTo(PlotWorld.ROAD);
+            assertThat(plotWorld.getPlotKeyAt(-3, -20)).isEqualTo(PlotId.pack(-1, -1));
+        }
+
+        @Test
+        @DisplayName("bulk resolution matches single lookups")
+        void bulkMatchesSingle() {
+            UUID owner = UUID.randomUUID();
+            plotWorld.claimPlot(new PlotId(0, 0), owner, "P");
+            plotWorld.claimPlot(new PlotId(1, 0), owner, "P");
+            plotWorld.setMerged(new PlotId(0, 0), PlotMergeDirection.EAST, true);
+
+            int[] xs = {0, 1, 38, 38, -3, 200, 15, 16, 38};
+            int[] zs = {0, 0, 17, 40, -3, -90, 15, 15, 17};
+            long[] out = new long[xs.length + 2];
+            plotWorld.getPlotKeysAt(xs, zs, xs.length, out);
+
+            for (int i = 0; i < xs.length; i++) {
+                assertThat(out[i]).as("index %d", i).isEqualTo(plotWorld.getPlotKeyAt(xs[i], zs[i]));
+            }
+            assertThat(out[2]).isEqualTo(PlotId.pack(0, 0));
+            assertThat(out[xs.length]).isZero();
+        }
+
+        @Test
+        @DisplayName("bulk resolution rejects arrays shorter than count")
+        void bulkRejectsShortArrays() {
+            assertThatThrownBy(() -> plotWorld.getPlotKeysAt(new int[2], new int[2], 3, new long[3]))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("columns across chunk borders follow the plot grid")
+        void columnsFollowGrid() {
+            for (int x = 0; x < 84; x++) {
+                int offset = x % 42;
+                long expected = offset < 35 ? PlotId.pack(x / 42, 0) : PlotWorld.ROAD;
+                assertThat(plotWorld.getPlotKeyAt(x, 5)).as("x=%d", x).isEqualTo(expected);
+            }
+            for (int z = -84; z < 0; z++) {
+                int offset = z + 84;
+                long expected = offset % 42 < 35 ? PlotId.pack(0, offset / 42 - 2) : PlotWorld.ROAD;
+                assertThat(plotWorld.getPlotKeyAt(5, z)).as("z=%d", z).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class Snapshots {
+
+        @Test
+        @DisplayName("an old snapshot keeps its view after later writes")
+        void oldSnapshotUnchanged() {
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+            plotWorld.claimPlot(west, owner, "P");
+            plotWorld.claimPlot(east, owner, "P");
+            PlotWorldSnapshot before = plotWorld.snapshot();
+
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, true);
+            PlotWorldSnapshot after = plotWorld.snapshot();
+
+            assertThat(after.version()).isGreaterThan(before.version());
+            assertThat(before.isMerged(west, PlotMergeDirection.EAST)).isFalse();
+            assertThat(before.getMergeGroup(west)).containsExactly(west);
+            assertThat(before.getPlotKeyAt(38, 17)).isEqualTo(PlotWorld.ROAD);
+            assertThat(after.isMerged(west, PlotMergeDirection.EAST)).isTrue();
+            assertThat(after.getMergeGroup(east)).containsExactlyInAnyOrder(west, east);
+            assertThat(after.getPlotKeyAt(38, 17)).isEqualTo(west.key());
+        }
+
+        @Test
+        @DisplayName("deferred publishing hides writes until the batch is published")
+        void deferredPublishing() {
+            List<Runnable> pending = new ArrayList<>();
+            plotWorld.setPublishScheduler(pending::add);
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+
+            plotWorld.claimPlot(west, owner, "P");
+            plotWorld.claimPlot(east, owner, "P");
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, true);
+
+            assertThat(plotWorld.getPlot(west)).isNotNull();
+            assertThat(plotWorld.snapshot().size()).isZero();
+
+            pending.getLast().run();
+
+            PlotWorldSnapshot snapshot = plotWorld.snapshot();
+            assertThat(snapshot.version()).isEqualTo(1);
+            assertThat(snapshot.size()).isEqualTo(2);
+            assertThat(snapshot.getPlot(west).isMerged(PlotMergeDirection.EAST)).isTrue();
+            assertThat(snapshot.getPlot(east).isMerged(PlotMergeDirection.WEST)).isTrue();
+            assertThat(snapshot.getMergeRoot(east)).isEqualTo(west);
+        }
+
+        @Test
+        @DisplayName("removed plots disappear from the next snapshot")
+        void removalPublished() {
+            PlotId id = new PlotId(2, -3);
+            plotWorld.claimPlot(id, UUID.randomUUID(), "P");
+            assertThat(plotWorld.snapshot().getPlot(id)).isNotNull();
+
+            plotWorld.removePlot(id);
+
+            assertThat(plotWorld.snapshot().getPlot(id)).isNull();
+            assertThat(plotWorld.snapshot().size()).isZero();
+        }
+
+        @Test
+        @DisplayName("publishing without writes keeps the current snapshot")
+        void publishWithoutWrites() {
+            plotWorld.claimPlot(new PlotId(0, 0), UUID.randomUUID(), "P");
+            PlotWorldSnapshot snapshot = plotWorld.snapshot();
+
+            plotWorld.publish();
+
+            assertThat(plotWorld.snapshot()).isSameAs(snapshot);
+        }
+    }
+
+    @Nested
+    @DisplayName("Settings Compare-And-Set")
+    class SettingsCompareAndSet {
+
+        @Test
+        @DisplayName("applies a settings change at the expected version")
+        void appliesAtExpectedVersion() {
+            PlotId id = new PlotId(0, 0);
+            UUID friend = UUID.randomUUID();
+            Plot plot = plotWorld.claimPlot(id, UUID.randomUUID(), "P");
+            plotWorld.drainChanges();
+
+            assertThat(plotWorld.compareAndSetSettings(id, plot.getVersion(), plot.withTrustedAdded(friend))).isTrue();
+
+            assertThat(plotWorld.getPlot(id).getTrusted()).containsExactly(friend);
+            assertThat(plotWorld.getTrustedPlots(friend)).containsExactly(id);
+            assertThat(plotWorld.drainChanges()).extracting(PlotChange::plot)
+                    .containsExactly(plotWorld.getPlot(id));
+            assertThat(plotWorld.snapshot().getPlot(id).getTrusted()).containsExactly(friend);
+        }
+
+        @Test
+        @DisplayName("rejects a stale version")
+        void rejectsStaleVersion() {
+            PlotId id = new PlotId(0, 0);
+            Plot plot = plotWorld.claimPlot(id, UUID.randomUUID(), "P");
+            plotWorld.updatePlot(id, current -> current.withFlag(PlotFlag.PVP, !PlotFlag.PVP.defaultValue()));
+
+            assertThat(plotWorld.compareAndSetSettings(id, plot.getVersion(), plot.withDeniedAdded(UUID.randomUUID())))
+                    .isFalse();
+            assertThat(plotWorld.getPlot(id).getDenied()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("refuses structural changes")
+        void refusesStructuralChanges() {
+            PlotId id = new PlotId(0, 0);
+            Plot plot = plotWorld.claimPlot(id, UUID.randomUUID(), "P");
+
+            assertThatThrownBy(() -> plotWorld.compareAndSetSettings(id, plot.getVersion(), plot.withHome(true)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("a worker write builds on a settings change that got in first")
+        void workerWriteKeepsSettings() {
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+            UUID owner = UUID.randomUUID();
+            UUID friend = UUID.randomUUID();
+            plotWorld.claimPlot(west, owner, "P");
+            plotWorld.claimPlot(east, owner, "P");
+            Plot plot = plotWorld.getPlot(west);
+            plotWorld.compareAndSetSettings(west, plot.getVersion(), plot.withTrustedAdded(friend));
+
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, true);
+
+            Plot merged = plotWorld.getPlot(west);
+            assertThat(merged.isMerged(PlotMergeDirection.EAST)).isTrue();
+            assertThat(merged.getTrusted()).containsExactly(friend);
+        }
+
+        @Test
+        @DisplayName("a write whose bookkeeping is rejected is undone")
+        void rejectedBookkeeping_undoesWrite() {
+            plotWorld.setWriterExecutor(task -> {
+                throw new RejectedExecutionException("stopped");
+            });
+            PlotId id = new PlotId(0, 0);
+            Plot plot = plotWorld.claimPlot(id, UUID.randomUUID(), "P");
+
+            assertThatThrownBy(() -> plotWorld.compareAndSetSettings(
+                    id, plot.getVersion(), plot.withTrustedAdded(UUID.randomUUID())))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(plotWorld.getPlot(id)).isSameAs(plot);
+        }
+
+        @Test
+        @DisplayName("bookkeeping posted out of order still leaves the member index right")
+        void outOfOrderBookkeeping() {
+            List<Runnable> posted = new ArrayList<>();
+            plotWorld.setWriterExecutor(posted::add);
+            PlotId id = new PlotId(0, 0);
+            UUID friend = UUID.randomUUID();
+            Plot plot = plotWorld.claimPlot(id, UUID.randomUUID(), "P");
+
+            Plot trusted = plot.withTrustedAdded(friend);
+            plotWorld.compareAndSetSettings(id, plot.getVersion(), trusted);
+            plotWorld.compareAndSetSettings(id, trusted.getVersion(), trusted.withTrustedRemoved(friend));
+            posted.get(1).run();
+            posted.get(0).run();
+
+            assertThat(plotWorld.getTrustedPlots(friend)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Range Query")
+    class RangeQuery {
+
+        private List<PlotId> query(int minX, int minZ, int maxX, int maxZ) {
+            List<PlotId> ids = new ArrayList<>();
+            plotWorld.forEachPlotIn(minX, minZ, maxX, maxZ, (plot, group) -> ids.add(plot.getId()));
+            return ids;
+        }
+
+        @Test
+        @DisplayName("returns only stored plots whose area intersects the box")
+        void returnsIntersectingPlots() {
+            UUID owner = UUID.randomUUID();
+            plotWorld.claimPlot(new PlotId(0, 0), owner, "P");
+            plotWorld.claimPlot(new PlotId(1, 0), owner, "P");
+            plotWorld.claimPlot(new PlotId(-1, -1), owner, "P");
+            plotWorld.claimPlot(new PlotId(5, 5), owner, "P");
+
+            assertThat(query(-10, -10, 50, 10))
+                    .containsExactlyInAnyOrder(new PlotId(0, 0), new PlotId(1, 0), new PlotId(-1, -1));
+            assertThat(query(36, 0, 40, 10)).isEmpty();
+            assertThat(query(-5, -5, -1, -1)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("merged road strip counts as part of the plot and reports the group")
+        void mergedRoadReportsGroup() {
+            UUID owner = UUID.randomUUID();
+            plotWorld.claimPlot(new PlotId(0, 0), owner, "P");
+            plotWorld.claimPlot(new PlotId(1, 0), owner, "P");
+            plotWorld.setMerged(new PlotId(0, 0), PlotMergeDirection.EAST, true);
+
+            List<PlotMergeGroup> groups = new ArrayList<>();
+            plotWorld.forEachPlotIn(36, 0, 40, 10, (plot, group) -> groups.add(group));
+
+            assertThat(groups).hasSize(1);
+            assertThat(groups.get(0).root()).isEqualTo(new PlotId(0, 0));
+            assertThat(groups.get(0).members()).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("sees only published batches")
+        void seesPublishedBatchesOnly() {
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(0, 0);
+            PlotId east = new PlotId(1, 0);
+            plotWorld.claimPlot(west, owner, "P");
+            plotWorld.claimPlot(east, owner, "P");
+            List<Runnable> pending = new ArrayList<>();
+            plotWorld.setPublishScheduler(pending::add);
+
+            plotWorld.setMerged(west, PlotMergeDirection.EAST, true);
+            plotWorld.claimPlot(new PlotId(0, 1), owner, "P");
+
+            List<PlotMergeGroup> groups = new ArrayList<>();
+            plotWorld.forEachPlotIn(36, 0, 40, 10, (plot, group) -> groups.add(group));
+            assertThat(groups).isEmpty();
+            assertThat(query(0, 0, 70, 70)).containsExactlyInAnyOrder(west, east);
+
+            pending.getLast().run();
+
+            plotWorld.forEachPlotIn(36, 0, 40, 10, (plot, group) -> groups.add(group));
+            assertThat(groups).singleElement().satisfies(group -> assertThat(group.members()).hasSize(2));
+            assertThat(query(0, 0, 70, 70)).containsExactlyInAnyOrder(west, east, new PlotId(0, 1));
+        }
+
+        @Test
+        @DisplayName("large boxes over sparse worlds give the same result")
+        void largeBox_matchesCellScan() {
+            UUID owner = UUID.randomUUID();
+            plotWorld.claimPlot(new PlotId(3, -2), owner, "P");
+            plotWorld.claimPlot(new PlotId(-7, 9), owner, "P");
+            plotWorld.claimPlot(new PlotId(400, 0), owner, "P");
+
+            assertThat(query(-10_000, -10_000, 10_000, 10_000))
+                    .containsExactlyInAnyOrder(new PlotId(3, -2), new PlotId(-7, 9));
+        }
+    }
+
+    @Nested
+    @DisplayName("Free Plot Allocation")
+    class FreePlotAllocation {
+
+        private PlotId spiralScan() {
+            for (int radius = 0; ; radius++) {
+                for (int x = -radius; x <= radius; x++) {
+                    for (int z = -radius; z <= radius; z++) {
+                        if (Math.max(Math.abs(x), Math.abs(z)) != radius) continue;
+                        Plot plot = plotWorld.getPlot(new PlotId(x, z));
+                        if (plot == null || !plot.isClaimed()) return new PlotId(x, z);
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("fills rings in spiral order")
+        void fillsRingsInOrder() {
+            UUID owner = UUID.randomUUID();
+            for (int i = 0; i < 30; i++) {
+                PlotId next = plotWorld.findNextFreePlotId();
+                assertThat(next).isEqualTo(spiralScan());
+                plotWorld.claimPlot(next, owner, "P");
+            }
+            assertThat(plotWorld.findNextFreePlotId()).isEqualTo(new PlotId(-3, 2));
+        }
+
+        @Test
+        @DisplayName("reuses cells released inside the scanned core")
+        void reusesReleasedCells() {
+            UUID owner = UUID.randomUUID();
+            for (int i = 0; i < 25; i++) {
+                plotWorld.claimPlot(plotWorld.findNextFreePlotId(), owner, "P");
+            }
+
+            plotWorld.removePlot(new PlotId(1, 1));
+            plotWorld.removePlot(new PlotId(0, -2));
+            assertThat(plotWorld.findNextFreePlotId()).isEqualTo(new PlotId(1, 1));
+
+            plotWorld.claimPlot(new PlotId(1, 1), owner, "P");
+            assertThat(plotWorld.findNextFreePlotId()).isEqualTo(new PlotId(0, -2));
+
+            plotWorld.putPlot(new PlotId(0, -2), new Plot("testworld", new PlotId(0, -2)));
+            assertThat(plotWorld.findNextFreePlotId()).isEqualTo(new PlotId(0, -2));
+        }
+
+        @Test
+        @DisplayName("matches a full spiral scan under random churn")
+        void matchesSpiralScan() {
+            Random random = new Random(42);
+            UUID owner = UUID.randomUUID();
+            for (int step = 0; step < 400; step++) {
+                if (random.nextInt(3) == 0) {
+                    plotWorld.removePlot(new PlotId(random.nextInt(9) - 4, random.nextInt(9) - 4));
+                } else if (random.nextBoolean()) {
+                    plotWorld.claimPlot(new PlotId(random.nextInt(11) - 5, random.nextInt(11) - 5), owner, "P");
+                } else {
+                    plotWorld.claimPlot(plotWorld.findNextFreePlotId(), owner, "P");
+                }
+                assertThat(plotWorld.findNextFreePlotId()).as("step %d", step).isEqualTo(spiralScan());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Member Index")
+    class MemberIndex {
+
+        @Test
+        @DisplayName("tracks trusted and denied players through plot updates")
+        void tracksMemberships() {
+            UUID friend = UUID.randomUUID();
+            UUID griefer = UUID.randomUUID();
+            PlotId a = new PlotId(0, 0);
+            PlotId b = new PlotId(2, 3);
+            plotWorld.claimPlot(a, UUID.randomUUID(), "P");
+            plotWorld.claimPlot(b, UUID.randomUUID(), "Q");
+
+            plotWorld.putPlot(a, plotWorld.getPlot(a).withTrustedAdded(friend).withDeniedAdded(griefer));
+            plotWorld.putPlot(b, plotWorld.getPlot(b).withTrustedAdded(friend));
+
+            assertThat(plotWorld.getTrustedPlots(friend)).containsExactlyInAnyOrder(a, b);
+            assertThat(plotWorld.getDeniedPlots(griefer)).containsExactly(a);
+            assertThat(plotWorld.getTrustedPlots(griefer)).isEmpty();
+
+            plotWorld.putPlot(b, plotWorld.getPlot(b).withTrustedRemoved(friend));
+            assertThat(plotWorld.getTrustedPlots(friend)).containsExactly(a);
+        }
+
+        @Test
+        @DisplayName("delete and owner change drop memberships")
+        void deleteAndOwnerChange_dropMemberships() {
+            UUID friend = UUID.randomUUID();
+            PlotId a = new PlotId(0, 0);
+            PlotId b = new PlotId(1, 0);
+            plotWorld.claimPlot(a, UUID.randomUUID(), "P");
+            plotWorld.claimPlot(b, UUID.randomUUID(), "Q");
+            plotWorld.putPlot(a, plotWorld.getPlot(a).withTrustedAdded(friend));
+            plotWorld.putPlot(b, plotWorld.getPlot(b).withTrustedAdded(friend));
+
+            plotWorld.removePlot(a);
+            plotWorld.claimPlot(b, UUID.randomUUID(), "R");
+
+            assertThat(plotWorld.getTrustedPlots(friend)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("bulk load indexes stored memberships")
+        void putPlots_indexesMemberships() {
+            UUID griefer = UUID.randomUUID();
+            PlotId id = new PlotId(-4, 1);
+            plotWorld.putPlots(Map.of(id, new Plot("testworld", id)
+                    .withOwner(UUID.randomUUID(), "P")
+                    .withDeniedAdded(griefer)));
+
+            assertThat(plotWorld.getDeniedPlots(griefer)).containsExactly(id);
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge Group Index")
+    class MergeGroupIndex {
+
+        private void claimRow(UUID owner, int fromX, int toX) {
+            for (int x = fromX; x <= toX; x++) {
+                plotWorld.claimPlot(new PlotId(x, 0), owner, "P");
+            }
+            for (int x = fromX; x < toX; x++) {
+                plotWorld.setMerged(new PlotId(x, 0), PlotMergeDirection.EAST, true);
+            }
+        }
+
+        @Test
+        @DisplayName("merge joins groups and shares one cached instance")
+        void merge_joinsGroups() {
+            claimRow(UUID.randomUUID(), 0, 2);
+
+            PlotMergeGroup group = plotWorld.getMergeGroupInfo(new PlotId(2, 0));
+
+            assertThat(group).isNotNull();
+            assertThat(group.root()).isEqualTo(new PlotId(0, 0));
+            assertThat(group.members()).containsExactlyInAnyOrder(
+                    new PlotId(0, 0), new PlotId(1, 0), new PlotId(2, 0));
+            assertThat(plotWorld.getMergeGroupInfo(new PlotId(0, 0))).isSameAs(group);
+            assertThat(group.bounds()).isEqualTo(new PlotBounds(0, 2 * 42 + 34, 0, 34));
+        }
+
+        @Test
+        @DisplayName("unmerge splits the group in two")
+        void unmerge_splitsGroup() {
+            claimRow(UUID.randomUUID(), 0, 3);
+
+            plotWorld.setMerged(new PlotId(1, 0), PlotMergeDirection.EAST, false);
+
+            assertThat(plotWorld.getMergeGroup(new PlotId(0, 0)))
+                    .containsExactlyInAnyOrder(new PlotId(0, 0), new PlotId(1, 0));
+            assertThat(plotWorld.getMergeRoot(new PlotId(3, 0))).isEqualTo(new PlotId(2, 0));
+            assertThat(plotWorld.getMergedPlotBounds(new PlotId(3, 0)))
+                    .isEqualTo(new PlotBounds(2 * 42, 3 * 42 + 34, 0, 34));
+        }
+
+        @Test
+        @DisplayName("deleting a middle plot leaves singletons uncached")
+        void delete_splitsIntoSingletons() {
+            claimRow(UUID.randomUUID(), 0, 2);
+
+            plotWorld.removePlot(new PlotId(1, 0));
+
+            assertThat(plotWorld.getMergeGroupInfo(new PlotId(0, 0))).isNull();
+            assertThat(plotWorld.getMergeGroupInfo(new PlotId(2, 0))).isNull();
+            assertThat(plotWorld.getMergeGroup(new PlotId(2, 0))).containsExactly(new PlotId(2, 0));
+            assertThat(plotWorld.getMergeGroup(new PlotId(1, 0))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("owner change moves the root to the remaining members")
+        void ownerChange_updatesRoot() {
+            claimRow(UUID.randomUUID(), 0, 2);
+
+            Plot first = plotWorld.getPlot(new PlotId(0, 0));
+            plotWorld.putPlot(new PlotId(0, 0), first.withOwner(UUID.randomUUID(), "Other"));
+
+            assertThat(plotWorld.getMergeRoot(new PlotId(2, 0))).isEqualTo(new PlotId(1, 0));
+            assertThat(plotWorld.getMergeRoot(new PlotId(0, 0))).isEqualTo(new PlotId(0, 0));
+        }
+
+        @Test
+        @DisplayName("bulk load builds groups from stored merge flags")
+        void putPlots_buildsGroups() {
+            UUID owner = UUID.randomUUID();
+            PlotId west = new PlotId(-1, 0);
+            PlotId east = new PlotId(0, 0);
+            plotWorld.putPlots(Map.of(
+                    west, new Plot("testworld", west).withOwner(owner, "P")
+                            .withMergedDirectionAdded(PlotMergeDirection.EAST),
+                    east, new Plot("testworld", east).withOwner(owner, "P")
+                            .withMergedDirectionAdded(PlotMergeDirection.WEST)
+            ));
+
+            assertThat(plotWorld.getMergeRoot(east)).isEqualTo(west);
+            assertThat(plotWorld.getMergeGroup(east)).containsExactlyInAnyOrder(west, east);
+        }
+
+        @Test
+        @DisplayName("groups kept up through random merges, unmerges and removals match a fresh flood fill")
+        void randomEdits_matchFloodFill() {
+            Random random = new Random(42);
+            UUID[] owners = {UUID.randomUUID(), UUID.randomUUID()};
+            PlotMergeDirection[] directions = PlotMergeDirection.values();
+            for (int step = 0; step < 2000; step++) {
+                PlotId id = new PlotId(random.nextInt(6), random.nextInt(6));
+                int action = random.nextInt(10);
+                if (action == 0) {
+                    plotWorld.removePlot(id);
+                } else if (action == 1 || plotWorld.getPlot(id) == null) {
+                    plotWorld.claimPlot(id, owners[random.nextInt(owners.length)], "P");
+                } else {
+                    plotWorld.setMerged(id, directions[random.nextInt(directions.length)], action > 3);
+                }
+
+                for (int x = 0; x < 6; x++) {
+                    for (int z = 0; z < 6; z++) {
+                        PlotId cell = new PlotId(x, z);
+                        if (plotWorld.getPlot(cell) == null) continue;
+                        Set<PlotId> expected = floodFill(cell);
+                        assertThat(plotWorld.getMergeGroup(cell)).as("group of %s at step %d", cell, step)
+                                .isEqualTo(expected);
+                        if (expected.size() == 1) {
+                            assertThat(plotWorld.getMergeGroupInfo(cell)).isNull();
+                        }
+                    }
+                }
+            }
+        }
+
+        private Set<PlotId> floodFill(PlotId start) {
+            Set<PlotId> visited = new HashSet<>(List.of(start));
+            ArrayDeque<PlotId> queue = new ArrayDeque<>(visited);
+            while (!queue.isEmpty()) {
+                PlotId current = queue.removeFirst();
+                for (PlotMergeDirection dir : PlotMergeDirection.values()) {
+                    PlotId neighbor = plotWorld.getAdjacentPlotId(current, dir);
+                    if (plotWorld.isMerged(current, dir) && visited.add(neighbor)) {
+                        queue.add(neighbor);
+                    }
+                }
+            }
+            return visited;
+        }
+    }
+
     @Nested
     @DisplayName("Merged Plot Bounds")
     class MergedPlotBounds {
@@ -1,16 +1,22 @@
 package me.daoge.allayplots.storage;
 
 import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
 import me.daoge.allayplots.plot.PlotId;
 import me.daoge.allayplots.plot.PlotMergeDirection;
 import org.junit.jupiter.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("H2 Plot Storage - Incremental Save")
 class H2PlotStorageTest {
@@ -24,6 +30,9 @@ class H2PlotStorageTest {
      */
     private static class TestH2Storage extends AbstractDatabasePlotStorage {
         private final String dbName;
+        private int connectionsOpened;
+        // Makes the next connection fail its commits and switching auto-commit back on.
+        private boolean failNextConnection;
 
         TestH2Storage(String dbName) {
             super(Path.of(System.getProperty("java.io.tmpdir")), LOGGER);
@@ -45,6 +54,30 @@ class H2PlotStorageTest {
             // Use in-memory database with unique name per test
             return "jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1";
         }
+
+        @Override
+        protected Connection openConnection() throws SQLException {
+            connectionsOpened++;
+            Connection connection = super.openConnection();
+            if (!failNextConnection) {
+                return connection;
+            }
+            failNextConnection = false;
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("commit")) {
+                            throw new SQLException("commit failed");
+                        }
+                        if (method.getName().equals("setAutoCommit") && (boolean) args[0]) {
+                            throw new SQLException("restore failed");
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    });
+        }
     }
 
     @BeforeEach
@@ -53,6 +86,11 @@ class H2PlotStorageTest {
         storage = new TestH2Storage("test_" + testInfo.getDisplayName().hashCode());
     }
 
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
     @Nested
     @DisplayName("supportsIncrementalSave")
     class SupportsIncrementalSave {
@@ -318,4 +356,93 @@ class H2PlotStorageTest {
             assertThat(storage.load().get("world")).containsKey(id);
         }
     }
+
+    @Nested
+    @DisplayName("saveChanges")
+    class SaveChanges {
+
+        @Test
+        @DisplayName("a removal after a write deletes the plot")
+        void removalAfterWrite() {
+            PlotId id = new PlotId(0, 0);
+            Plot plot = new Plot("world", id).withOwner(UUID.randomUUID(), "Owner");
+            storage.saveIncremental(Map.of("world", Map.of(id, plot)), Map.of());
+
+            storage.saveChanges(List.of(
+                    new PlotChange(0, "world", id, plot.withOwner(UUID.randomUUID(), "Other")),
+                    new PlotChange(1, "world", id, null)
+            ));
+
+            assertThat(storage.load()).doesNotContainKey("world");
+        }
+
+        @Test
+        @DisplayName("a write after a removal keeps the latest plot")
+        void writeAfterRemoval() {
+            PlotId id = new PlotId(0, 0);
+            Plot first = new Plot("world", id).withOwner(UUID.randomUUID(), "First");
+            Plot second = new Plot("world", id).withOwner(UUID.randomUUID(), "Second");
+
+            storage.saveChanges(List.of(
+                    new PlotChange(0, "world", id, first),
+                    new PlotChange(1, "world", id, null),
+                    new PlotChange(2, "world", id, second)
+            ));
+
+            assertThat(storage.load().get("world").get(id).getOwnerName()).isEqualTo("Second");
+        }
+    }
+
+    @Nested
+    @DisplayName("Connection")
+    class ConnectionReuse {
+
+        @Test
+        @DisplayName("keeps one connection across loads and saves")
+        void reusesConnection() {
+            PlotId id = new PlotId(0, 0);
+            Plot plot = new Plot("world", id).withOwner(UUID.randomUUID(), "Owner").withTrustedAdded(UUID.randomUUID());
+
+            storage.load();
+            storage.saveIncremental(Map.of("world", Map.of(id, plot)), Map.of());
+            storage.saveChanges(List.of(new PlotChange(0, "world", id, plot.withHome(true))));
+            storage.save(Map.of("world", Map.of(id, plot)));
+
+            assertThat(storage.load().get("world").get(id).getTrusted()).hasSize(1);
+            assertThat(storage.connectionsOpened).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("reports the failed commit with the failed restore suppressed, then reconnects")
+        void failedRestore_keepsPrimaryFailure() {
+            PlotId id = new PlotId(0, 0);
+            Plot plot = new Plot("world", id).withOwner(UUID.randomUUID(), "Owner");
+            storage.failNextConnection = true;
+
+            assertThatThrownBy(() -> storage.saveIncremental(Map.of("world", Map.of(id, plot)), Map.of()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .cause()
+                    .hasMessage("commit failed")
+                    .satisfies(cause -> assertThat(cause.getSuppressed())
+                            .extracting(Throwable::getMessage)
+                            .containsExactly("restore failed"));
+
+            storage.saveIncremental(Map.of("world", Map.of(id, plot)), Map.of());
+            assertThat(storage.load().get("world")).containsKey(id);
+            assertThat(storage.connectionsOpened).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("opens a new connection after being closed")
+        void reopensAfterClose() {
+            PlotId id = new PlotId(0, 0);
+            Plot plot = new Plot("world", id).withOwner(UUID.randomUUID(), "Owner");
+            storage.saveIncremental(Map.of("world", Map.of(id, plot)), Map.of());
+
+            storage.close();
+
+            assertThat(storage.load().get("world")).containsKey(id);
+            assertThat(storage.connectionsOpened).isEqualTo(2);
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package me.daoge.allayplots.storage;
+
+import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
+import me.daoge.allayplots.plot.PlotId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Per-World Plot Storage")
+class PerWorldPlotStorageTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerWorldPlotStorageTest.class);
+
+    @TempDir
+    Path dataFolder;
+
+    private PerWorldPlotStorage storage;
+
+    private PerWorldPlotStorage open(PlotStorage legacy) {
+        return open(legacy, folder -> new H2PlotStorage(folder, LOGGER));
+    }
+
+    private PerWorldPlotStorage open(PlotStorage legacy, Function<Path, PlotStorage> factory) {
+        storage = new PerWorldPlotStorage(
+                dataFolder.resolve("worlds"),
+                List.of("alpha", "beta"),
+                factory,
+                legacy,
+                LOGGER,
+                2
+        );
+        return storage;
+    }
+
+    /**
+     * Storage of a world whose disk is full.
+     */
+    private static class FailingStorage implements PlotStorage {
+        @Override
+        public Map<String, Map<PlotId, Plot>> load() {
+            return Map.of();
+        }
+
+        @Override
+        public void save(Map<String, Map<PlotId, Plot>> worlds) {
+            throw new IllegalStateException("disk full");
+        }
+
+        @Override
+        public void saveIncremental(Map<String, Map<PlotId, Plot>> dirtyPlots,
+                                    Map<String, Set<PlotId>> deletedPlots) {
+            throw new IllegalStateException("disk full");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    private static PlotChange put(String worldName, int x, int z) {
+        PlotId id = new PlotId(x, z);
+        return new PlotChange(0, worldName, id, new Plot(worldName, id).withOwner(UUID.randomUUID(), "Owner"));
+    }
+
+    @Nested
+    @DisplayName("Worlds")
+    class Worlds {
+
+        @Test
+        @DisplayName("keeps every world in a folder of its own")
+        void separateFolders() {
+            open(null).load();
+
+            storage.saveChanges(List.of(put("alpha", 0, 0), put("beta", 1, 1), put("alpha", 2, 2)));
+
+            assertThat(dataFolder.resolve("worlds/alpha/plots.mv.db")).exists();
+            assertThat(dataFolder.resolve("worlds/beta/plots.mv.db")).exists();
+            storage.close();
+            Map<String, Map<PlotId, Plot>> loaded = open(null).load();
+            assertThat(loaded.get("alpha")).containsOnlyKeys(new PlotId(0, 0), new PlotId(2, 2));
+            assertThat(loaded.get("beta")).containsOnlyKeys(new PlotId(1, 1));
+        }
+
+        @Test
+        @DisplayName("loads worlds that are no longer configured")
+        void loadsUnconfiguredFolders() {
+            open(null).load();
+            storage.saveChanges(List.of(put("gamma", 3, 3)));
+            storage.close();
+
+            assertThat(open(null).load()).containsKey("gamma");
+        }
+
+        @Test
+        @DisplayName("reports a failing world without losing the others")
+        void failureOfOneWorld() {
+            open(null, folder -> folder.endsWith("beta") ? new FailingStorage() : new H2PlotStorage(folder, LOGGER))
+                    .load();
+
+            assertThatThrownBy(() -> storage.saveChanges(List.of(put("alpha", 0, 0), put("beta", 1, 1))))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("disk full");
+            assertThat(new H2PlotStorage(dataFolder.resolve("worlds/alpha"), LOGGER).load()).containsKey("alpha");
+        }
+    }
+
+    @Nested
+    @DisplayName("Legacy Import")
+    class LegacyImport {
+
+        @Test
+        @DisplayName("moves worlds of the shared storage into their own folders once")
+        void importsOnce() {
+            PlotId id = new PlotId(4, 4);
+            H2PlotStorage legacy = new H2PlotStorage(dataFolder, LOGGER);
+            legacy.save(Map.of(
+                    "alpha", Map.of(id, new Plot("alpha", id).withOwner(UUID.randomUUID(), "Owner")),
+                    "beta", Map.of(id, new Plot("beta", id).withOwner(UUID.randomUUID(), "Owner"))
+            ));
+
+            assertThat(open(legacy).load()).containsOnlyKeys("alpha", "beta");
+            storage.saveChanges(List.of(new PlotChange(0, "alpha", id, null)));
+            storage.close();
+
+            Map<String, Map<PlotId, Plot>> reloaded = open(new H2PlotStorage(dataFolder, LOGGER)).load();
+            assertThat(reloaded).containsOnlyKeys("beta");
+        }
+
+        @Test
+        @DisplayName("a failed import fails the load and leaves no folder behind")
+        void failedImportIsRetried() {
+            PlotId id = new PlotId(4, 4);
+            H2PlotStorage legacy = new H2PlotStorage(dataFolder, LOGGER);
+            legacy.save(Map.of("beta", Map.of(id, new Plot("beta", id).withOwner(UUID.randomUUID(), "Owner"))));
+
+            open(legacy, folder -> folder.getFileName().toString().endsWith("beta")
+                    ? new FailingStorage()
+                    : new H2PlotStorage(folder, LOGGER));
+
+            assertThatThrownBy(storage::load)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("beta");
+            assertThat(dataFolder.resolve("worlds/beta")).doesNotExist();
+            assertThat(dataFolder.resolve("worlds/.import-beta")).doesNotExist();
+            storage.close();
+
+            assertThat(open(new H2PlotStorage(dataFolder, LOGGER)).load().get("beta")).containsKey(id);
+        }
+    }
+}
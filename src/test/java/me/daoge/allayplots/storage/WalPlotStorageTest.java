@@ -0,0 +1,320 @@
+package me.daoge.allayplots.storage;
+
+import me.daoge.allayplots.plot.Plot;
+import me.daoge.allayplots.plot.PlotChange;
+import me.daoge.allayplots.plot.PlotId;
+import me.daoge.allayplots.plot.PlotMergeDirection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Write-Ahead Log Plot Storage")
+class WalPlotStorageTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalPlotStorageTest.class);
+
+    @TempDir
+    Path dataFolder;
+
+    private MapStorage backend;
+    private WalPlotStorage storage;
+
+    /**
+     * Backend keeping its plots in memory; survives the write-ahead log being reopened like a file would.
+     */
+    private static class MapStorage implements PlotStorage {
+        private final Map<String, Map<PlotId, Plot>> worlds = new HashMap<>();
+        private int saves;
+
+        @Override
+        public Map<String, Map<PlotId, Plot>> load() {
+            Map<String, Map<PlotId, Plot>> copy = new HashMap<>();
+            worlds.forEach((worldName, plots) -> copy.put(worldName, new HashMap<>(plots)));
+            return copy;
+        }
+
+        @Override
+        public void save(Map<String, Map<PlotId, Plot>> worlds) {
+            this.worlds.clear();
+            worlds.forEach((worldName, plots) -> this.worlds.put(worldName, new HashMap<>(plots)));
+            saves++;
+        }
+
+        @Override
+        public void saveIncremental(Map<String, Map<PlotId, Plot>> dirtyPlots,
+                                    Map<String, Set<PlotId>> deletedPlots) {
+            deletedPlots.forEach((worldName, ids) -> {
+                Map<PlotId, Plot> plots = worlds.get(worldName);
+                if (plots != null) ids.forEach(plots::remove);
+            });
+            dirtyPlots.forEach((worldName, plots) ->
+                    worlds.computeIfAbsent(worldName, name -> new HashMap<>()).putAll(plots));
+            saves++;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        backend = new MapStorage();
+        storage = open();
+        storage.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    private WalPlotStorage open() {
+        return new WalPlotStorage(backend, dataFolder, LOGGER, 0, 1 << 20);
+    }
+
+    /**
+     * Simulates a crash: the log is reopened without the old instance checkpointing first.
+     */
+    private Map<String, Map<PlotId, Plot>> reopen() {
+        storage = open();
+        return storage.load();
+    }
+
+    private List<Path> segments() throws IOException {
+        Path wal = dataFolder.resolve("wal");
+        if (!Files.isDirectory(wal)) return List.of();
+        try (Stream<Path> files = Files.list(wal)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static PlotChange put(Plot plot) {
+        return new PlotChange(0, plot.getWorldName(), plot.getId(), plot);
+    }
+
+    @Nested
+    @DisplayName("Replay")
+    class Replay {
+
+        @Test
+        @DisplayName("logged changes survive a crash before the checkpoint")
+        void replaysAfterCrash() {
+            PlotId id = new PlotId(0, 0);
+            storage.saveChanges(List.of(put(new Plot("world", id).withOwner(UUID.randomUUID(), "Owner"))));
+
+            Map<String, Map<PlotId, Plot>> loaded = reopen();
+
+            assertThat(backend.saves).isZero();
+            assertThat(loaded.get("world").get(id).getOwnerName()).isEqualTo("Owner");
+        }
+
+        @Test
+        @DisplayName("keeps every plot field")
+        void keepsAllFields() {
+            PlotId id = new PlotId(-3, 7);
+            UUID owner = UUID.randomUUID();
+            UUID trusted = UUID.randomUUID();
+            UUID denied = UUID.randomUUID();
+            Plot plot = new Plot("world", id)
+                    .withOwner(owner, "Owner")
+                    .withHome(true)
+                    .withTrustedAdded(trusted)
+                    .withDeniedAdded(denied)
+                    .withFlagRaw("pvp", "false")
+                    .withMergedDirectionAdded(PlotMergeDirection.EAST)
+                    .withMergedDirectionAdded(PlotMergeDirection.SOUTH);
+            storage.saveChanges(List.of(put(plot)));
+
+            Plot loaded = reopen().get("world").get(id);
+
+            assertThat(loaded.getOwner()).isEqualTo(owner);
+            assertThat(loaded.getOwnerName()).isEqualTo("Owner");
+            assertThat(loaded.isHome()).isTrue();
+            assertThat(loaded.getTrusted()).containsExactly(trusted);
+            assertThat(loaded.getDenied()).containsExactly(denied);
+            assertThat(loaded.getFlags()).containsEntry("pvp", "false");
+            assertThat(loaded.getMergedDirections())
+                    .containsExactlyInAnyOrder(PlotMergeDirection.EAST, PlotMergeDirection.SOUTH);
+        }
+
+        @Test
+        @DisplayName("replays removals on top of the backend")
+        void replaysRemovals() {
+            PlotId id = new PlotId(1, 1);
+            Plot plot = new Plot("world", id).withOwner(UUID.randomUUID(), "Owner");
+            backend.save(Map.of("world", Map.of(id, plot)));
+
+            storage.saveChanges(List.of(new PlotChange(0, "world", id, null)));
+
+            assertThat(reopen()).doesNotContainKey("world");
+        }
+
+        @Test
+        @DisplayName("replays every segment in order after a rotation")
+        void replaysRotatedSegments() throws IOException {
+            MapStorage failing = new MapStorage() {
+                @Override
+                public void saveIncremental(Map<String, Map<PlotId, Plot>> dirtyPlots,
+                                            Map<String, Set<PlotId>> deletedPlots) {
+                    throw new IllegalStateException("backend down");
+                }
+            };
+            storage.close();
+            storage = new WalPlotStorage(failing, dataFolder, LOGGER, 0, 1 << 20);
+            storage.load();
+            PlotId id = new PlotId(0, 0);
+            PlotId other = new PlotId(1, 0);
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            storage.saveChanges(List.of(put(new Plot("world", id).withOwner(first, "First"))));
+            // The failed checkpoint seals the first segment; later changes go to a second one.
+            assertThatThrownBy(storage::checkpoint).isInstanceOf(IllegalStateException.class);
+            storage.saveChanges(List.of(
+                    put(new Plot("world", id).withOwner(second, "Second")),
+                    put(new Plot("world", other).withOwner(first, "First"))
+            ));
+
+            assertThat(segments()).hasSize(2);
+            storage = new WalPlotStorage(failing, dataFolder, LOGGER, 0, 1 << 20);
+            Map<String, Map<PlotId, Plot>> loaded = storage.load();
+
+            assertThat(loaded.get("world").get(id).getOwner()).isEqualTo(second);
+            assertThat(loaded.get("world").get(other).getOwner()).isEqualTo(first);
+            assertThat(storage.pendingChanges()).isEqualTo(3);
+            storage.saveChanges(List.of(put(new Plot("world", new PlotId(2, 0)).withOwner(first, "First"))));
+            assertThat(segments()).hasSize(3);
+            storage = new WalPlotStorage(backend, dataFolder, LOGGER, 0, 1 << 20);
+            assertThat(storage.load().get("world")).containsOnlyKeys(id, other, new PlotId(2, 0));
+        }
+
+        @Test
+        @DisplayName("ignores a torn record at the end of a segment")
+        void ignoresTornTail() throws IOException {
+            PlotId id = new PlotId(0, 0);
+            storage.saveChanges(List.of(put(new Plot("world", id).withOwner(UUID.randomUUID(), "Owner"))));
+            Files.write(segments().getLast(), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+            Map<String, Map<PlotId, Plot>> loaded = reopen();
+
+            assertThat(loaded.get("world")).containsOnlyKeys(id);
+        }
+    }
+
+    @Nested
+    @DisplayName("Checkpoint")
+    class Checkpoint {
+
+        @Test
+        @DisplayName("writes logged changes through and deletes their segments")
+        void writesThrough() throws IOException {
+            PlotId id = new PlotId(0, 0);
+            storage.saveChanges(List.of(put(new Plot("world", id).withOwner(UUID.randomUUID(), "Owner"))));
+            assertThat(segments()).hasSize(1);
+
+            storage.checkpoint();
+
+            assertThat(backend.worlds.get("world")).containsKey(id);
+            assertThat(storage.pendingChanges()).isZero();
+            assertThat(segments()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("changes logged after a checkpoint go to a new segment")
+        void newSegmentAfterCheckpoint() throws IOException {
+            storage.saveChanges(List.of(put(new Plot("world", new PlotId(0, 0)).withOwner(UUID.randomUUID(), "A"))));
+            storage.checkpoint();
+            PlotId later = new PlotId(1, 0);
+            storage.saveChanges(List.of(put(new Plot("world", later).withOwner(UUID.randomUUID(), "B"))));
+
+            assertThat(segments()).hasSize(1);
+            assertThat(reopen().get("world")).containsKeys(new PlotId(0, 0), later);
+        }
+
+        @Test
+        @DisplayName("keeps the log when the backend fails")
+        void keepsLogOnFailure() throws IOException {
+            MapStorage failing = new MapStorage() {
+                @Override
+                public void saveIncremental(Map<String, Map<PlotId, Plot>> dirtyPlots,
+                                            Map<String, Set<PlotId>> deletedPlots) {
+                    throw new IllegalStateException("backend down");
+                }
+            };
+            storage.close();
+            storage = new WalPlotStorage(failing, dataFolder, LOGGER, 0, 1 << 20);
+            storage.load();
+            storage.saveChanges(List.of(put(new Plot("world", new PlotId(0, 0)).withOwner(UUID.randomUUID(), "A"))));
+
+            try {
+                storage.checkpoint();
+            } catch (IllegalStateException expected) {
+                // The change must still be logged.
+            }
+
+            assertThat(storage.pendingChanges()).isEqualTo(1);
+            assertThat(segments()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("keeps the log when a real database backend fails to write")
+        void keepsLogOnDatabaseFailure() throws Exception {
+            Path database = dataFolder.resolve("db");
+            H2PlotStorage h2 = new H2PlotStorage(database, LOGGER);
+            storage.close();
+            storage = new WalPlotStorage(h2, dataFolder, LOGGER, 0, 1 << 20);
+            storage.load();
+            PlotId id = new PlotId(0, 0);
+            storage.saveChanges(List.of(put(new Plot("world", id).withOwner(UUID.randomUUID(), "Owner"))));
+            try (Connection connection = DriverManager.getConnection(
+                    "jdbc:h2:" + database.resolve("plots").toAbsolutePath());
+                 Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE plots");
+            }
+
+            assertThatThrownBy(storage::checkpoint).isInstanceOf(IllegalStateException.class);
+
+            assertThat(storage.pendingChanges()).isEqualTo(1);
+            assertThat(segments()).hasSize(1);
+            storage = new WalPlotStorage(new H2PlotStorage(database, LOGGER), dataFolder, LOGGER, 0, 1 << 20);
+            assertThat(storage.load().get("world")).containsKey(id);
+        }
+
+        @Test
+        @DisplayName("keeps logged changes when a full save fails")
+        void keepsPendingOnFailedSave() throws IOException {
+            MapStorage failing = new MapStorage() {
+                @Override
+                public void save(Map<String, Map<PlotId, Plot>> worlds) {
+                    throw new IllegalStateException("backend down");
+                }
+            };
+            storage.close();
+            storage = new WalPlotStorage(failing, dataFolder, LOGGER, 0, 1 << 20);
+            storage.load();
+            PlotId id = new PlotId(0, 0);
+            storage.saveChanges(List.of(put(new Plot("world", id).withOwner(UUID.randomUUID(), "Owner"))));
+
+            assertThatThrownBy(() -> storage.save(Map.of())).isInstanceOf(IllegalStateException.class);
+
+            assertThat(storage.pendingChanges()).isEqualTo(1);
+            storage.checkpoint();
+            assertThat(failing.worlds.get("world")).containsKey(id);
+            assertThat(segments()).isEmpty();
+        }
+    }
+}